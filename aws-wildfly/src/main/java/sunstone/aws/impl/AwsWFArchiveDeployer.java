@@ -11,11 +11,14 @@ import org.wildfly.extras.creaper.core.CommandFailedException;
 import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
 import sunstone.annotation.DomainMode;
 import sunstone.annotation.WildFly;
+import sunstone.core.SunstoneEvents;
 import sunstone.core.api.SunstoneArchiveDeployer;
 import sunstone.core.exceptions.IllegalArgumentSunstoneException;
 import sunstone.core.exceptions.SunstoneException;
 import sunstone.core.exceptions.UnsupportedSunstoneOperationException;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -48,8 +51,10 @@ public class AwsWFArchiveDeployer implements SunstoneArchiveDeployer {
     }
 
     static void undeployFromEc2Instance(String deploymentName, Identification resourceIdentification, WildFly wildFly, AwsSunstoneStore store) throws SunstoneException {
-        try (OnlineManagementClient client = AwsWFIdentifiableSunstoneResourceUtils.resolveOnlineManagementClient(resourceIdentification, wildFly, store)){
+        try (OnlineManagementClient client = AwsWFIdentifiableSunstoneResourceUtils.resolveOnlineManagementClient(resourceIdentification, wildFly, store);
+             SunstoneEvents.Recording event = SunstoneEvents.wildFlyDeployment("undeploy", deploymentName, resourceIdentification.identification.toString())) {
             client.apply(new Undeploy.Builder(deploymentName).build());
+            event.success();
         } catch (CommandFailedException e) {
             throw new RuntimeException(e);
         } catch (IOException e) {
@@ -65,13 +70,28 @@ public class AwsWFArchiveDeployer implements SunstoneArchiveDeployer {
         if (domainMode != null) {
             setDomainServers(builder,domainMode);
         }
-        try (OnlineManagementClient client = AwsWFIdentifiableSunstoneResourceUtils.resolveOnlineManagementClient(resourceIdentification, wildFly, store)) {
+        try (OnlineManagementClient client = AwsWFIdentifiableSunstoneResourceUtils.resolveOnlineManagementClient(resourceIdentification, wildFly, store);
+             SunstoneEvents.Recording event = SunstoneEvents.wildFlyDeployment("deploy", deploymentName, resourceIdentification.identification.toString())) {
             client.apply(builder.build());
+            event.success();
         } catch (CommandFailedException | IOException e) {
             throw new SunstoneException(e);
         }
     }
 
+    /**
+     * Export ShrinkWrap archives to bytes ahead of time, other deployments are read when deployed.
+     */
+    @Override
+    public Object prepare(Object object) {
+        if (object instanceof Archive) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ((Archive<?>) object).as(ZipExporter.class).exportTo(bytes);
+            return new ByteArrayInputStream(bytes.toByteArray());
+        }
+        return object;
+    }
+
     @Override
     public void deploy(String deploymentName, Object object, ExtensionContext ctx) throws SunstoneException {
         AwsSunstoneStore store = AwsSunstoneStore.get(ctx);
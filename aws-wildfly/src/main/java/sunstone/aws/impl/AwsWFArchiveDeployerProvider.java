@@ -9,8 +9,10 @@ import sunstone.core.spi.SunstoneArchiveDeployerProvider;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static java.lang.String.format;
 import static sunstone.aws.impl.AwsWFIdentifiableSunstoneResource.Identification;
@@ -39,4 +41,9 @@ public class AwsWFArchiveDeployerProvider implements SunstoneArchiveDeployerProv
         }
         return Optional.empty();
     }
+
+    @Override
+    public Set<Class<? extends Annotation>> getHandledAnnotations() {
+        return Collections.singleton(AwsResourceIdentificationAnnotation.class);
+    }
 }
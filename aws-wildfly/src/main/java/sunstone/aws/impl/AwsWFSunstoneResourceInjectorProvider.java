@@ -9,8 +9,10 @@ import sunstone.core.spi.SunstoneResourceInjectorProvider;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static java.lang.String.format;
 
@@ -21,6 +23,11 @@ import static java.lang.String.format;
 public class AwsWFSunstoneResourceInjectorProvider implements SunstoneResourceInjectorProvider {
     @Override
     public Optional<SunstoneResourceInjector> create(Field field) {
+        return create(field, field.getType());
+    }
+
+    @Override
+    public Optional<SunstoneResourceInjector> create(Field field, Class<?> type) {
         Annotation[] fieldAnnotations = field.getAnnotations();
         List<Annotation> resourceIdentifications = AnnotationUtils.findAnnotationsAnnotatedBy(field.getAnnotations(), AwsResourceIdentificationAnnotation.class);
         if (resourceIdentifications.isEmpty()) {
@@ -34,10 +41,15 @@ public class AwsWFSunstoneResourceInjectorProvider implements SunstoneResourceIn
         if (!wildFly.isPresent()) {
             AwsWFLogger.DEFAULT.info(format("%s is missing %s annotation, sunstone azure-wildfly is going with standalone defaults", field, WildFly.class));
         }
-        if (identification.type != AwsWFIdentifiableSunstoneResource.UNSUPPORTED && identification.type.isTypeSupportedForInject(field.getType())) {
-            return Optional.of(new AwsWFSunstoneResourceInjector(identification, wildFly.orElse(new WildFly.WildFlyDefault()), field.getType()));
+        if (identification.type != AwsWFIdentifiableSunstoneResource.UNSUPPORTED && identification.type.isTypeSupportedForInject(type)) {
+            return Optional.of(new AwsWFSunstoneResourceInjector(identification, wildFly.orElse(new WildFly.WildFlyDefault()), type));
         } else {
             return Optional.empty();
         }
     }
+
+    @Override
+    public Set<Class<? extends Annotation>> getHandledAnnotations() {
+        return Collections.singleton(AwsResourceIdentificationAnnotation.class);
+    }
 }
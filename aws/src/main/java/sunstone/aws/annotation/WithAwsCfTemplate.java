@@ -59,4 +59,13 @@ public @interface WithAwsCfTemplate {
      * Suite may be defined as a surefire run or as {@link org.junit.platform.suite.api.Suite}
      */
     boolean perSuite() default false;
+
+    /**
+     * Templates with lower order are deployed first. Use it for templates that depend on resources created by other
+     * templates of the test class.
+     * <p>
+     * Templates with the same order are independent on each other and are deployed concurrently if
+     * {@code sunstone.deploy.parallel} Sunstone Config property is {@code true}.
+     */
+    int order() default 0;
 }
@@ -3,100 +3,318 @@ package sunstone.aws.impl;
 
 import org.slf4j.Logger;
 import software.amazon.awssdk.core.waiters.WaiterResponse;
+import software.amazon.awssdk.services.cloudformation.CloudFormationAsyncClient;
 import software.amazon.awssdk.services.cloudformation.CloudFormationClient;
+import software.amazon.awssdk.services.cloudformation.model.CloudFormationException;
 import software.amazon.awssdk.services.cloudformation.model.CreateStackRequest;
 import software.amazon.awssdk.services.cloudformation.model.DeleteStackRequest;
 import software.amazon.awssdk.services.cloudformation.model.DescribeStacksRequest;
 import software.amazon.awssdk.services.cloudformation.model.DescribeStacksResponse;
 import software.amazon.awssdk.services.cloudformation.model.OnFailure;
 import software.amazon.awssdk.services.cloudformation.model.Parameter;
+import software.amazon.awssdk.services.cloudformation.model.Stack;
+import software.amazon.awssdk.services.cloudformation.model.StackStatus;
+import software.amazon.awssdk.services.cloudformation.model.Tag;
+import software.amazon.awssdk.services.cloudformation.waiters.CloudFormationAsyncWaiter;
 import software.amazon.awssdk.services.cloudformation.waiters.CloudFormationWaiter;
+import sunstone.core.KeepAliveJournal;
+import sunstone.core.SunstoneConfigResolver;
+import sunstone.core.SunstoneEvents;
+import sunstone.core.SunstoneTimings;
 
-import java.io.Closeable;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /**
  * Purpose: the class handles AWS CloudFormation template - deploy and undeploy the template to and from a stack.
  * <p>
  * Used by {@link AwsSunstoneDeployer}. Deploys to a stack with a random name (which is deleted as a whole later).
  * <p>
- * CloudFormation client credentials are from  Sunstone Config properties. See {@link AwsUtils}.
+ * Stacks of test classes are created and deleted by {@link CloudFormationAsyncClient}, so that several stacks may be
+ * created at once without holding a thread per stack. Suite level stacks use the blocking client. Creation is watched by
+ * {@link AwsStackEvents}, which fails on the first resource that fails to be created; a failed stack is deleted in the
+ * background unless {@link AwsConfig#STACK_ON_FAILURE} is {@link OnFailure#DO_NOTHING}.
+ * <p>
+ * CloudFormation client credentials are from  Sunstone Config properties. See {@link AwsUtils}. Async clients are owned
+ * and closed by {@link AwsSunstoneStore}.
  */
-class AwsCloudFormationCloudDeploymentManager implements Closeable {
+class AwsCloudFormationCloudDeploymentManager {
     static Logger LOGGER = AwsLogger.DEFAULT;
 
-    private final Map<CloudFormationClient, Set<String>> client2stacks;
-    private final Map<String, CloudFormationClient> stack2Client;
+    private final Map<CloudFormationAsyncClient, Set<String>> client2stacks;
+    private final Map<String, CloudFormationAsyncClient> stack2Client;
 
     AwsCloudFormationCloudDeploymentManager() {
         client2stacks = new ConcurrentHashMap<>();
         stack2Client = new ConcurrentHashMap<>();
     }
 
-    String deploy(CloudFormationClient cfClient, String template, Map<String, String> parameters) {
-        String stackName = "SunstoneStack-" + UUID.randomUUID().toString().substring(0, 5);
+    CompletableFuture<String> deploy(CloudFormationAsyncClient cfClient, String template, Map<String, String> parameters) {
+        return createStackAsync(cfClient, template, parameters);
+    }
 
-        CloudFormationWaiter waiter = cfClient.waiter();
+    public void undeploy(String stack) {
+        join(undeployAsync(stack));
+    }
 
-        List<Parameter> cfParameters = new ArrayList<>();
-        parameters.forEach((k, v) -> cfParameters.add(Parameter.builder().parameterKey(k).parameterValue(v).build()));
+    CompletableFuture<Void> undeployAsync(String stack) {
+        CloudFormationAsyncClient cfClient = stack2Client.get(stack);
+        return deleteStackAsync(cfClient, stack).thenRun(() -> {
+            stack2Client.remove(stack);
+            client2stacks.get(cfClient).remove(stack);
+        });
+    }
 
-        CreateStackRequest stackRequest = CreateStackRequest.builder()
-                .stackName(stackName)
-                .templateBody(template)//templateURL(location)
-                .parameters(cfParameters)
-                .onFailure(OnFailure.ROLLBACK)
-                .build();
+    /**
+     * Create a stack with a random name from the template and wait until it is created.
+     *
+     * @return name of the stack
+     */
+    static String createStack(CloudFormationClient cfClient, String template, Map<String, String> parameters) {
+        return createStack(cfClient, template, parameters, Collections.emptyMap());
+    }
 
-        cfClient.createStack(stackRequest);
-        DescribeStacksRequest stacksRequest = DescribeStacksRequest.builder()
-                .stackName(stackName)
-                .build();
+    static String createStack(CloudFormationClient cfClient, String template, Map<String, String> parameters, Map<String, String> tags) {
+        String stackName = newStackName();
 
-        WaiterResponse<DescribeStacksResponse> waiterResponse = waiter.waitUntilStackCreateComplete(stacksRequest);
-        LOGGER.debug("Stack {} is ready {}", stackName, waiterResponse.matched().response().orElse(null));
+        CreateStackRequest stackRequest = createStackRequest(stackName, template, parameters, tags);
+
+        try (SunstoneTimings.Phase phase = SunstoneTimings.start("template-provisioning", stackName, SunstoneEvents.cloudTemplate("aws", "deploy", stackName))) {
+            cfClient.createStack(stackRequest);
+
+            try (SunstoneTimings.Phase polling = SunstoneTimings.start("provisioning-polling", stackName, SunstoneEvents.cloudFormationWait(stackName, "create"))) {
+                join(AwsStackEvents.watchCreate(cfClient, stackName));
+                polling.success();
+            } catch (RuntimeException e) {
+                abandonStack(() -> cfClient.deleteStack(DeleteStackRequest.builder().stackName(stackName).build()), stackName);
+                throw e;
+            }
+            LOGGER.debug("Stack {} is ready", stackName);
+            phase.success();
+        }
         return stackName;
     }
 
-    public void undeploy(String stack) {
-        CloudFormationClient cfClient = stack2Client.get(stack);
-        CloudFormationWaiter waiter = cfClient.waiter();
+    /**
+     * Start creating a stack with a random name from the template.
+     *
+     * @return future completed with the name of the stack once the stack is created
+     */
+    static CompletableFuture<String> createStackAsync(CloudFormationAsyncClient cfClient, String template, Map<String, String> parameters) {
+        String stackName = newStackName();
+        CreateStackRequest stackRequest = createStackRequest(stackName, template, parameters, Collections.emptyMap());
+
+        SunstoneTimings.Phase phase = SunstoneTimings.start("template-provisioning", stackName, SunstoneEvents.cloudTemplate("aws", "deploy", stackName));
+        return cfClient.createStack(stackRequest)
+                .thenCompose(created -> {
+                    SunstoneTimings.Phase polling = SunstoneTimings.start("provisioning-polling", stackName, SunstoneEvents.cloudFormationWait(stackName, "create"));
+                    return AwsStackEvents.watchCreate(cfClient, stackName).whenComplete((nothing, t) -> {
+                        if (t == null) {
+                            polling.success();
+                        } else {
+                            abandonStack(() -> cfClient.deleteStack(DeleteStackRequest.builder().stackName(stackName).build()), stackName);
+                        }
+                        polling.close();
+                    });
+                })
+                .thenApply(nothing -> {
+                    LOGGER.debug("Stack {} is ready", stackName);
+                    return stackName;
+                })
+                .whenComplete((stack, t) -> {
+                    if (t == null) {
+                        phase.success();
+                    }
+                    phase.close();
+                });
+    }
+
+    /**
+     * A stack failed to be created. The delete is requested right away, which also cancels creation of the remaining
+     * resources. The deletion is not waited for. With {@link OnFailure#DO_NOTHING}, the failed stack is kept for
+     * inspection and has to be deleted manually.
+     */
+    private static void abandonStack(Runnable delete, String stack) {
+        if (getOnFailure() == OnFailure.DO_NOTHING) {
+            LOGGER.warn("Stack {} failed and is kept, delete it once it is not needed", stack);
+            return;
+        }
+        try {
+            delete.run();
+            LOGGER.debug("Stack {} failed and is being deleted in the background", stack);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Unable to delete failed stack {}", stack, e);
+        }
+    }
+
+    static OnFailure getOnFailure() {
+        return OnFailure.valueOf(SunstoneConfigResolver.getValue(AwsConfig.STACK_ON_FAILURE, OnFailure.ROLLBACK.name()).toUpperCase(Locale.ROOT));
+    }
 
+    /**
+     * Start deleting the stack.
+     *
+     * @return future completed once the stack is deleted
+     */
+    static CompletableFuture<Void> deleteStackAsync(CloudFormationAsyncClient cfClient, String stack) {
         DeleteStackRequest stackRequest = DeleteStackRequest.builder()
                 .stackName(stack)
                 .build();
-
-        cfClient.deleteStack(stackRequest);
         DescribeStacksRequest stacksRequest = DescribeStacksRequest.builder()
                 .stackName(stack)
                 .build();
 
-        WaiterResponse<DescribeStacksResponse> waiterResponse = waiter.waitUntilStackDeleteComplete(stacksRequest);
-        LOGGER.debug("Stack {} is deleted {}", stack, waiterResponse.matched().response().orElse(null));
-        stack2Client.remove(stack);
-        client2stacks.get(cfClient).remove(stack);
+        SunstoneTimings.Phase phase = SunstoneTimings.start("template-teardown", stack, SunstoneEvents.cloudTemplate("aws", "undeploy", stack));
+        CloudFormationAsyncWaiter waiter = cfClient.waiter();
+        return cfClient.deleteStack(stackRequest)
+                .thenCompose(deleted -> {
+                    SunstoneEvents.Recording wait = SunstoneEvents.cloudFormationWait(stack, "delete");
+                    return waiter.waitUntilStackDeleteComplete(stacksRequest).whenComplete((response, t) -> {
+                        if (t == null) {
+                            wait.success();
+                        }
+                        wait.close();
+                    });
+                })
+                .<Void>thenApply(response -> {
+                    LOGGER.debug("Stack {} is deleted {}", stack, response.matched().response().orElse(null));
+                    return null;
+                })
+                .whenComplete((nothing, t) -> {
+                    if (t == null) {
+                        phase.success();
+                    }
+                    phase.close();
+                    waiter.close();
+                });
+    }
+
+    /**
+     * Wait for the future, failures are rethrown unwrapped if possible.
+     */
+    static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
     }
 
-    public void close() {
-        client2stacks.forEach((client, strings) -> client.close());
+    private static String newStackName() {
+        return "SunstoneStack-" + UUID.randomUUID().toString().substring(0, 5);
+    }
+
+    private static CreateStackRequest createStackRequest(String stackName, String template, Map<String, String> parameters, Map<String, String> tags) {
+        List<Parameter> cfParameters = new ArrayList<>();
+        parameters.forEach((k, v) -> cfParameters.add(Parameter.builder().parameterKey(k).parameterValue(v).build()));
+
+        return CreateStackRequest.builder()
+                .stackName(stackName)
+                .templateBody(template)//templateURL(location)
+                .parameters(cfParameters)
+                .tags(tags.entrySet().stream().map(t -> Tag.builder().key(t.getKey()).value(t.getValue()).build()).collect(Collectors.toList()))
+                .onFailure(getOnFailure())
+                .build();
     }
 
-    public String deployAndRegister(CloudFormationClient cfClient, String templateContent, Map<String, String> parameters) {
-        String stack = deploy(cfClient, templateContent, parameters);
-        client2stacks.putIfAbsent(cfClient, Collections.synchronizedSet(new HashSet<>()));
-        client2stacks.get(cfClient).add(stack);
-        stack2Client.put(stack, cfClient);
+    /**
+     * Keep-alive mode ({@link KeepAliveJournal}): reuse the stack recorded for the key if it is still healthy, create a
+     * new tagged stack otherwise. The stack is {@link KeepAliveJournal#hold(String) held} until the suite level deployment
+     * is undeployed. Also starts reaping of expired stacks.
+     *
+     * @return name of the stack
+     */
+    static String createOrReuseStack(CloudFormationClient cfClient, String key, String template, Map<String, String> parameters, String region) {
+        KeepAliveJournal.startReaper("aws-", entry -> {
+            try (CloudFormationClient client = AwsUtils.getCloudFormationClient(entry.region)) {
+                deleteStack(client, entry.handle);
+            }
+            return true;
+        });
+        // refreshed right away so that a reaper of another JVM doesn't delete the stack while it is checked
+        Optional<KeepAliveJournal.Entry> kept = KeepAliveJournal.claim(key);
+        if (kept.isPresent()) {
+            String stack = kept.get().handle;
+            if (isHealthy(cfClient, stack, key)) {
+                LOGGER.info("Reusing stack {} kept alive by a previous run", stack);
+                KeepAliveJournal.hold(key);
+                return stack;
+            }
+            LOGGER.warn("Stack {} kept alive by a previous run is not healthy, creating a new one", stack);
+            KeepAliveJournal.remove(key);
+        }
+        Map<String, String> tags = new HashMap<>();
+        tags.put(KeepAliveJournal.HASH_TAG, key);
+        tags.put(KeepAliveJournal.TTL_TAG, Long.toString(KeepAliveJournal.getTtl().toMinutes()));
+        String stack = createStack(cfClient, template, parameters, tags);
+        KeepAliveJournal.put(key, stack, region);
+        KeepAliveJournal.hold(key);
         return stack;
     }
 
+    private static boolean isHealthy(CloudFormationClient cfClient, String stack, String key) {
+        try {
+            Stack description = cfClient.describeStacks(DescribeStacksRequest.builder().stackName(stack).build()).stacks().get(0);
+            boolean complete = description.stackStatus() == StackStatus.CREATE_COMPLETE || description.stackStatus() == StackStatus.UPDATE_COMPLETE;
+            return complete && description.tags().contains(Tag.builder().key(KeepAliveJournal.HASH_TAG).value(key).build());
+        } catch (CloudFormationException e) {
+            // the stack doesn't exist
+            return false;
+        }
+    }
+
+    /**
+     * Delete the stack and wait until it is deleted.
+     */
+    static void deleteStack(CloudFormationClient cfClient, String stack) {
+        DeleteStackRequest stackRequest = DeleteStackRequest.builder()
+                .stackName(stack)
+                .build();
+
+        try (CloudFormationWaiter waiter = cfClient.waiter();
+             SunstoneTimings.Phase phase = SunstoneTimings.start("template-teardown", stack, SunstoneEvents.cloudTemplate("aws", "undeploy", stack))) {
+            cfClient.deleteStack(stackRequest);
+            DescribeStacksRequest stacksRequest = DescribeStacksRequest.builder()
+                    .stackName(stack)
+                    .build();
+
+            WaiterResponse<DescribeStacksResponse> waiterResponse;
+            try (SunstoneEvents.Recording wait = SunstoneEvents.cloudFormationWait(stack, "delete")) {
+                waiterResponse = waiter.waitUntilStackDeleteComplete(stacksRequest);
+                wait.success();
+            }
+            LOGGER.debug("Stack {} is deleted {}", stack, waiterResponse.matched().response().orElse(null));
+            phase.success();
+        }
+    }
+
+    /**
+     * Start creating the stack, it is registered (for {@link #undeploy(String)}) once it is created.
+     */
+    public CompletableFuture<String> deployAndRegister(CloudFormationAsyncClient cfClient, String templateContent, Map<String, String> parameters) {
+        return deploy(cfClient, templateContent, parameters).thenApply(stack -> {
+            client2stacks.computeIfAbsent(cfClient, c -> Collections.synchronizedSet(new HashSet<>())).add(stack);
+            stack2Client.put(stack, cfClient);
+            return stack;
+        });
+    }
+
     public void undeployAll() {
-        stack2Client.forEach((stack, client) -> undeploy(stack));
+        join(CompletableFuture.allOf(stack2Client.keySet().stream().map(this::undeployAsync).toArray(CompletableFuture[]::new)));
     }
 }
@@ -9,4 +9,15 @@ public class AwsConfig {
     public static final String ACCESS_KEY_ID = "sunstone.aws.accessKeyID";
     public static final String SECRET_ACCESS_KEY = "sunstone.aws.secretAccessKey";
     public static final String REGION = "sunstone.aws.region";
+
+    // seconds between DescribeStackEvents calls while a stack is created
+    public static final String STACK_EVENTS_POLL_INTERVAL = "sunstone.aws.stack.eventsPollInterval";
+    // minutes to wait for a stack to be created, adjusted by sunstone.timeout.factor
+    public static final String STACK_CREATE_TIMEOUT = "sunstone.aws.stack.createTimeout";
+    // OnFailure of created stacks: ROLLBACK (default), DELETE or DO_NOTHING (failed stacks are kept for inspection)
+    public static final String STACK_ON_FAILURE = "sunstone.aws.stack.onFailure";
+    // return stacks of test classes to a pool and update them by change sets instead of creating new ones
+    public static final String STACK_REUSE = "sunstone.aws.stack.reuse";
+    // connection pool size of the HTTP clients shared by all AWS service clients
+    public static final String HTTP_MAX_CONNECTIONS = "sunstone.aws.http.maxConnections";
 }
@@ -0,0 +1,114 @@
+package sunstone.aws.impl;
+
+
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.junit.platform.commons.support.HierarchyTraversalMode;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.ec2.Ec2Client;
+import software.amazon.awssdk.services.ec2.model.DescribeInstancesRequest;
+import software.amazon.awssdk.services.ec2.model.Filter;
+import software.amazon.awssdk.services.ec2.model.Instance;
+import software.amazon.awssdk.services.ec2.model.Tag;
+import sunstone.annotation.Deployment;
+import sunstone.aws.annotation.AwsEc2Instance;
+import sunstone.core.ResourceCache;
+import sunstone.core.SunstoneConfigResolver;
+import sunstone.core.SunstoneTimings;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves all EC2 instances a test class needs - {@link AwsEc2Instance} fields and {@link Deployment} targets - into
+ * {@link ResourceCache} at once, so that injection and archive deploy don't call {@code DescribeInstances} one by one.
+ * <p>
+ * Name tags are resolved per region by one paginated {@code DescribeInstances} request with a multi-value
+ * {@code tag:Name} filter. Names that are already cached (e.g. indexed with their stack) are skipped. If more instances
+ * have the same name, the first one is cached, the same as a lookup of the single instance would find. Resolving is best
+ * effort - instances that are not resolved are looked up as usual.
+ */
+class AwsEc2InstanceResolver {
+    // maximum number of values of an EC2 filter
+    private static final int MAX_FILTER_VALUES = 200;
+
+    static void resolve(Class<?> testClass, AwsSunstoneStore store) {
+        if (!ResourceCache.isEnabled()) {
+            return;
+        }
+        getNames(testClass, store.getResourceCache()).forEach((region, names) -> {
+            try (SunstoneTimings.Phase phase = SunstoneTimings.start("resource-resolve", region)) {
+                resolve(store.getAwsEc2ClientOrCreate(region), names, region, store.getResourceCache());
+                phase.success();
+            } catch (SdkException e) {
+                AwsLogger.DEFAULT.debug("Unable to resolve EC2 instances {} in {}, they will be looked up one by one", names, region, e);
+            }
+        });
+    }
+
+    /**
+     * @return names of the instances the class needs that are not cached yet, by region
+     */
+    static Map<String, Set<String>> getNames(Class<?> testClass, ResourceCache cache) {
+        Map<String, Set<String>> region2names = new HashMap<>();
+        for (AwsEc2Instance instance : getAnnotations(testClass)) {
+            try {
+                String region = SunstoneConfigResolver.resolveExpressionToString(instance.region());
+                String name = SunstoneConfigResolver.resolveExpressionToString(instance.nameTag());
+                if (!cache.contains("aws", "Instance", name, region)) {
+                    region2names.computeIfAbsent(region, r -> new LinkedHashSet<>()).add(name);
+                }
+            } catch (RuntimeException e) {
+                AwsLogger.DEFAULT.debug("Unable to resolve {}, it will be looked up once injected", instance, e);
+            }
+        }
+        return region2names;
+    }
+
+    private static List<AwsEc2Instance> getAnnotations(Class<?> testClass) {
+        List<AwsEc2Instance> annotations = new ArrayList<>();
+        for (Field field : AnnotationSupport.findAnnotatedFields(testClass, AwsEc2Instance.class)) {
+            annotations.add(field.getAnnotation(AwsEc2Instance.class));
+        }
+        for (Method method : AnnotationSupport.findAnnotatedMethods(testClass, Deployment.class, HierarchyTraversalMode.TOP_DOWN)) {
+            AnnotationSupport.findAnnotation(method, AwsEc2Instance.class).ifPresent(annotations::add);
+        }
+        return annotations;
+    }
+
+    static void resolve(Ec2Client ec2Client, Set<String> names, String region, ResourceCache cache) {
+        List<String> remaining = new ArrayList<>(names);
+        Set<String> found = new HashSet<>();
+        for (int i = 0; i < remaining.size(); i += MAX_FILTER_VALUES) {
+            List<String> batch = remaining.subList(i, Math.min(i + MAX_FILTER_VALUES, remaining.size()));
+            Filter runningInstancesFilter = Filter.builder()
+                    .name("instance-state-name")
+                    .values("running")
+                    .build();
+            Filter tagFilter = Filter.builder()
+                    .name("tag:Name")
+                    .values(batch)
+                    .build();
+            DescribeInstancesRequest request = DescribeInstancesRequest.builder()
+                    .filters(runningInstancesFilter, tagFilter)
+                    .build();
+            for (Instance instance : ec2Client.describeInstancesPaginator(request).reservations().stream()
+                    .flatMap(reservation -> reservation.instances().stream())
+                    .toArray(Instance[]::new)) {
+                // filter values may contain wildcards, cache exact matches only
+                instance.tags().stream()
+                        .filter(tag -> tag.key().equals("Name") && batch.contains(tag.value()))
+                        .map(Tag::value)
+                        .findFirst()
+                        .filter(found::add)
+                        .ifPresent(name -> cache.put("aws", "Instance", name, region, instance));
+            }
+        }
+    }
+}
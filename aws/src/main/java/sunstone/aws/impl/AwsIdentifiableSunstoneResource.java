@@ -10,6 +10,7 @@ import sunstone.aws.annotation.AwsAutoResolve;
 import sunstone.aws.annotation.AwsEc2Instance;
 import sunstone.aws.annotation.AwsRds;
 import sunstone.core.SunstoneConfigResolver;
+import sunstone.core.SunstoneEvents;
 import sunstone.core.exceptions.IllegalArgumentSunstoneException;
 import sunstone.core.exceptions.SunstoneCloudResourceException;
 import sunstone.core.exceptions.SunstoneException;
@@ -78,7 +79,8 @@ enum AwsIdentifiableSunstoneResource {
             AwsEc2Instance vm = (AwsEc2Instance) injectionAnnotation;
             String vmNameTag = SunstoneConfigResolver.resolveExpressionToString(vm.nameTag());
             String region = SunstoneConfigResolver.resolveExpressionToString(vm.region());
-            Optional<Instance> awsEc2 = AwsUtils.findEc2InstanceByNameTag(store.getAwsEc2ClientOrCreate(region), vmNameTag);
+            Optional<Instance> awsEc2 = store.getCachedResource("aws", "Instance", vmNameTag, region,
+                    () -> AwsUtils.findEc2InstanceByNameTag(store.getAwsEc2ClientOrCreate(region), vmNameTag));
             return clazz.cast(awsEc2.orElseThrow(() -> new SunstoneCloudResourceException(format("Unable to find '%s' AWS EC2 instance in '%s' region.", vmNameTag, region))));
         }
     },
@@ -100,7 +102,8 @@ enum AwsIdentifiableSunstoneResource {
             AwsRds rds = (AwsRds) injectionAnnotation;
             String vmNameTag = SunstoneConfigResolver.resolveExpressionToString(rds.name());
             String region = SunstoneConfigResolver.resolveExpressionToString(rds.region());
-            Optional<DBInstance> awsRds = AwsUtils.findRdsInstanceByNameTag(store.getAwsRdsClientOrCreate(region), vmNameTag);
+            Optional<DBInstance> awsRds = store.getCachedResource("aws", "DBInstance", vmNameTag, region,
+                    () -> AwsUtils.findRdsInstanceByNameTag(store.getAwsRdsClientOrCreate(region), vmNameTag));
             return clazz.cast(awsRds.orElseThrow(() -> new SunstoneCloudResourceException(format("Unable to find '%s' AWS RDS instance in '%s' region.", vmNameTag, region))));
         }
     };
@@ -159,7 +162,11 @@ enum AwsIdentifiableSunstoneResource {
             this.identification = annotation;
         }
         <T> T get(AwsSunstoneStore store, Class<T> clazz) throws SunstoneException {
-            return type.get(identification, store, clazz);
+            try (SunstoneEvents.Recording event = SunstoneEvents.resourceLookup("aws", type.name(), identification.toString())) {
+                T resource = type.get(identification, store, clazz);
+                event.success();
+                return resource;
+            }
         }
     }
 
@@ -0,0 +1,95 @@
+package sunstone.aws.impl;
+
+
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.cloudformation.CloudFormationClient;
+import software.amazon.awssdk.services.cloudformation.model.DescribeStackResourcesRequest;
+import software.amazon.awssdk.services.cloudformation.model.StackResource;
+import software.amazon.awssdk.services.ec2.Ec2Client;
+import software.amazon.awssdk.services.ec2.model.DescribeInstancesRequest;
+import software.amazon.awssdk.services.ec2.model.Filter;
+import software.amazon.awssdk.services.ec2.model.Instance;
+import software.amazon.awssdk.services.ec2.model.Tag;
+import software.amazon.awssdk.services.rds.RdsClient;
+import software.amazon.awssdk.services.rds.model.DBInstance;
+import software.amazon.awssdk.services.rds.model.DescribeDbInstancesRequest;
+import sunstone.core.ResourceCache;
+import sunstone.core.SunstoneTimings;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Indexes EC2 and RDS instances of a freshly deployed stack into {@link ResourceCache}, so that injection and archive
+ * deploy don't have to look them up by name one by one.
+ * <p>
+ * Resources of the stack are listed by {@code DescribeStackResources} and described by one batched call per resource
+ * type. Indexing is best effort - resources that are not indexed are looked up as usual.
+ */
+class AwsResourceIndex {
+    private static final String EC2_INSTANCE = "AWS::EC2::Instance";
+    private static final String RDS_INSTANCE = "AWS::RDS::DBInstance";
+
+    static void index(CloudFormationClient cfClient, Ec2Client ec2Client, RdsClient rdsClient, String stack, String region, ResourceCache cache) {
+        if (!ResourceCache.isEnabled()) {
+            return;
+        }
+        try (SunstoneTimings.Phase phase = SunstoneTimings.start("resource-index", stack)) {
+            List<StackResource> resources = cfClient.describeStackResources(DescribeStackResourcesRequest.builder().stackName(stack).build())
+                    .stackResources();
+            indexEc2Instances(ec2Client, physicalIds(resources, EC2_INSTANCE), region, cache);
+            indexRdsInstances(rdsClient, physicalIds(resources, RDS_INSTANCE), region, cache);
+            phase.success();
+        } catch (SdkException e) {
+            AwsLogger.DEFAULT.debug("Unable to index resources of stack {}, they will be looked up one by one", stack, e);
+        }
+    }
+
+    private static List<String> physicalIds(List<StackResource> resources, String type) {
+        return resources.stream()
+                .filter(r -> type.equals(r.resourceType()) && r.physicalResourceId() != null)
+                .map(StackResource::physicalResourceId)
+                .collect(Collectors.toList());
+    }
+
+    private static void indexEc2Instances(Ec2Client ec2Client, List<String> instanceIds, String region, ResourceCache cache) {
+        if (instanceIds.isEmpty()) {
+            return;
+        }
+        Filter runningInstancesFilter = Filter.builder()
+                .name("instance-state-name")
+                .values("running")
+                .build();
+        DescribeInstancesRequest request = DescribeInstancesRequest.builder()
+                .instanceIds(instanceIds)
+                .filters(runningInstancesFilter)
+                .build();
+        for (Instance instance : ec2Client.describeInstancesPaginator(request).reservations().stream()
+                .flatMap(reservation -> reservation.instances().stream())
+                .collect(Collectors.toList())) {
+            for (Tag tag : instance.tags()) {
+                if (tag.key().equals("Name")) {
+                    cache.put("aws", "Instance", tag.value(), region, instance);
+                }
+            }
+        }
+    }
+
+    private static void indexRdsInstances(RdsClient rdsClient, List<String> dbInstanceIds, String region, ResourceCache cache) {
+        if (dbInstanceIds.isEmpty()) {
+            return;
+        }
+        software.amazon.awssdk.services.rds.model.Filter idFilter = software.amazon.awssdk.services.rds.model.Filter.builder()
+                .name("db-instance-id")
+                .values(dbInstanceIds)
+                .build();
+        DescribeDbInstancesRequest request = DescribeDbInstancesRequest.builder()
+                .filters(idFilter)
+                .build();
+        for (DBInstance db : rdsClient.describeDBInstancesPaginator(request).dbInstances()) {
+            if ("available".equals(db.dbInstanceStatus())) {
+                cache.put("aws", "DBInstance", db.dbInstanceIdentifier(), region, db);
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package sunstone.aws.impl;
+
+
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import sunstone.core.SunstoneConfigResolver;
+
+import java.io.Closeable;
+
+/**
+ * Credentials provider and HTTP clients (one for blocking, one for async clients) shared by AWS service clients of a
+ * suite, so that connections and threads don't grow with the number of clients. Pool size is
+ * {@link AwsConfig#HTTP_MAX_CONNECTIONS}.
+ * <p>
+ * Kept in the root store by {@link AwsSunstoneStore} and closed once the suite finishes, the next suite reads the
+ * configuration again. Service clients don't close the shared HTTP clients.
+ */
+class AwsSharedClients implements Closeable {
+    final AwsCredentialsProvider credentialsProvider;
+    final SdkHttpClient httpClient;
+    final SdkAsyncHttpClient asyncHttpClient;
+
+    AwsSharedClients() {
+        int maxConnections = SunstoneConfigResolver.getValue(AwsConfig.HTTP_MAX_CONNECTIONS, 50);
+        credentialsProvider = AwsUtils.getCredentialsProvider();
+        httpClient = ApacheHttpClient.builder()
+                .maxConnections(maxConnections)
+                .build();
+        asyncHttpClient = NettyNioAsyncHttpClient.builder()
+                .maxConcurrency(maxConnections)
+                .build();
+    }
+
+    @Override
+    public void close() {
+        try {
+            httpClient.close();
+        } finally {
+            asyncHttpClient.close();
+        }
+    }
+}
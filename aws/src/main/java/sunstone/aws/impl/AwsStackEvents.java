@@ -0,0 +1,190 @@
+package sunstone.aws.impl;
+
+
+import org.slf4j.Logger;
+import software.amazon.awssdk.services.cloudformation.CloudFormationAsyncClient;
+import software.amazon.awssdk.services.cloudformation.CloudFormationClient;
+import software.amazon.awssdk.services.cloudformation.model.DescribeStackEventsRequest;
+import software.amazon.awssdk.services.cloudformation.model.DescribeStackEventsResponse;
+import software.amazon.awssdk.services.cloudformation.model.ResourceStatus;
+import software.amazon.awssdk.services.cloudformation.model.StackEvent;
+import sunstone.core.ConcurrencyUtils;
+import sunstone.core.SunstoneConfigResolver;
+import sunstone.core.TimeoutUtils;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static java.lang.String.format;
+
+/**
+ * Watches creation of a stack by polling {@code DescribeStackEvents} incrementally. New events are logged and the watch
+ * fails as soon as a resource of the stack fails to be created, without waiting for the stack to be rolled back.
+ * <p>
+ * Events of a failed stack are written to {@code logs/<stack>-events.log}.
+ * <p>
+ * Polls of all watched stacks are scheduled on a single thread, the watch doesn't hold a thread for the whole creation.
+ * The scheduling thread never calls CloudFormation itself, calls of the blocking client are run on a separate pool.
+ */
+class AwsStackEvents {
+    static Logger LOGGER = AwsLogger.DEFAULT;
+    private static final String STACK_TYPE = "AWS::CloudFormation::Stack";
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(new ConcurrencyUtils.DaemonThreadFactory("sunstone-aws-stack-events"));
+    private static final ExecutorService blockingCalls = Executors.newCachedThreadPool(new ConcurrencyUtils.DaemonThreadFactory("sunstone-aws-stack-events-call"));
+
+    private final String stack;
+    private final Function<DescribeStackEventsRequest, CompletableFuture<DescribeStackEventsResponse>> describe;
+    private final long deadline;
+    private final Set<String> seen = new HashSet<>();
+    private final List<StackEvent> history = new ArrayList<>();
+    private final CompletableFuture<Void> created = new CompletableFuture<>();
+
+    private AwsStackEvents(String stack, Function<DescribeStackEventsRequest, CompletableFuture<DescribeStackEventsResponse>> describe) {
+        this.stack = stack;
+        this.describe = describe;
+        this.deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(TimeoutUtils.adjust(SunstoneConfigResolver.getValue(AwsConfig.STACK_CREATE_TIMEOUT, 60L)));
+    }
+
+    /**
+     * @return future completed once the stack is created, completed exceptionally once a resource or the stack fails
+     */
+    static CompletableFuture<Void> watchCreate(CloudFormationAsyncClient cfClient, String stack) {
+        return watchCreate(stack, cfClient::describeStackEvents);
+    }
+
+    /**
+     * Same as {@link #watchCreate(CloudFormationAsyncClient, String)}, the blocking client is called by a thread of a
+     * separate pool.
+     */
+    static CompletableFuture<Void> watchCreate(CloudFormationClient cfClient, String stack) {
+        return watchCreate(stack, request -> CompletableFuture.supplyAsync(() -> cfClient.describeStackEvents(request), blockingCalls));
+    }
+
+    /**
+     * @param describe {@code DescribeStackEvents} call, must not block
+     */
+    static CompletableFuture<Void> watchCreate(String stack, Function<DescribeStackEventsRequest, CompletableFuture<DescribeStackEventsResponse>> describe) {
+        AwsStackEvents events = new AwsStackEvents(stack, describe);
+        events.poll();
+        return events.created;
+    }
+
+    private void poll() {
+        CompletableFuture<List<StackEvent>> newEvents;
+        try {
+            newEvents = fetch(null, new ArrayList<>());
+        } catch (RuntimeException e) {
+            newEvents = new CompletableFuture<>();
+            newEvents.completeExceptionally(e);
+        }
+        newEvents.whenComplete((events, t) -> {
+            if (t != null) {
+                created.completeExceptionally(t);
+                return;
+            }
+            process(events);
+            if (created.isDone()) {
+                return;
+            }
+            if (System.nanoTime() - deadline > 0) {
+                fail(format("Stack %s was not created in time", stack));
+                return;
+            }
+            scheduler.schedule(this::poll, SunstoneConfigResolver.getValue(AwsConfig.STACK_EVENTS_POLL_INTERVAL, 10L), TimeUnit.SECONDS);
+        });
+    }
+
+    /**
+     * Events newer than the last seen one, newest first. Pages are fetched only until a seen event is found.
+     */
+    private CompletableFuture<List<StackEvent>> fetch(String nextToken, List<StackEvent> newEvents) {
+        DescribeStackEventsRequest request = DescribeStackEventsRequest.builder()
+                .stackName(stack)
+                .nextToken(nextToken)
+                .build();
+        return describe.apply(request).thenCompose(response -> {
+            for (StackEvent event : response.stackEvents()) {
+                if (seen.contains(event.eventId())) {
+                    return CompletableFuture.completedFuture(newEvents);
+                }
+                newEvents.add(event);
+            }
+            if (response.nextToken() == null) {
+                return CompletableFuture.completedFuture(newEvents);
+            }
+            return fetch(response.nextToken(), newEvents);
+        });
+    }
+
+    private void process(List<StackEvent> newEvents) {
+        List<StackEvent> events = new ArrayList<>(newEvents);
+        Collections.reverse(events);
+        for (StackEvent event : events) {
+            seen.add(event.eventId());
+            history.add(event);
+            LOGGER.info("Stack {}: {} {} {}{}", stack, event.logicalResourceId(), event.resourceType(), event.resourceStatusAsString(),
+                    event.resourceStatusReason() != null ? " - " + event.resourceStatusReason() : "");
+            if (created.isDone()) {
+                continue;
+            }
+            boolean stackEvent = STACK_TYPE.equals(event.resourceType()) && stack.equals(event.logicalResourceId());
+            if (stackEvent && event.resourceStatus() == ResourceStatus.CREATE_COMPLETE) {
+                created.complete(null);
+            } else if (!stackEvent && event.resourceStatus() == ResourceStatus.CREATE_FAILED) {
+                fail(format("Unable to create %s (%s) in stack %s: %s", event.logicalResourceId(), event.resourceType(), stack, event.resourceStatusReason()));
+            } else if (stackEvent && isFailure(event.resourceStatus())) {
+                fail(format("Unable to create stack %s, it is %s: %s", stack, event.resourceStatusAsString(), event.resourceStatusReason()));
+            }
+        }
+    }
+
+    private static boolean isFailure(ResourceStatus status) {
+        return status == ResourceStatus.CREATE_FAILED
+                || status == ResourceStatus.ROLLBACK_IN_PROGRESS
+                || status == ResourceStatus.ROLLBACK_COMPLETE
+                || status == ResourceStatus.ROLLBACK_FAILED
+                || status == ResourceStatus.DELETE_IN_PROGRESS
+                || status == ResourceStatus.DELETE_COMPLETE;
+    }
+
+    private void fail(String message) {
+        LOGGER.error(message);
+        writeHistory();
+        created.completeExceptionally(new RuntimeException(message));
+    }
+
+    private void writeHistory() {
+        Path logDir = Paths.get("logs");
+        try {
+            Files.createDirectories(logDir);
+        } catch (IOException e) {
+            LOGGER.error("Error creating log directory", e);
+            return;
+        }
+        Path eventsFile = logDir.resolve(stack + "-events.log");
+        try (FileWriter writer = new FileWriter(eventsFile.toString())) {
+            for (StackEvent event : history) {
+                writer.write(event.timestamp() + "\tresource: " + event.logicalResourceId() + "\ttype: " + event.resourceType()
+                        + "\tphysical id: " + event.physicalResourceId() + "\tstatus: " + event.resourceStatusAsString()
+                        + "\treason: " + event.resourceStatusReason() + "\n");
+            }
+            LOGGER.info("Events of stack {} are written to {}", stack, eventsFile.toAbsolutePath());
+        } catch (IOException e) {
+            LOGGER.error("Error writing stack events", e);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package sunstone.aws.impl;
+
+
+import org.slf4j.Logger;
+import software.amazon.awssdk.services.cloudformation.CloudFormationAsyncClient;
+import software.amazon.awssdk.services.cloudformation.model.ChangeSetStatus;
+import software.amazon.awssdk.services.cloudformation.model.ChangeSetType;
+import software.amazon.awssdk.services.cloudformation.model.CreateChangeSetRequest;
+import software.amazon.awssdk.services.cloudformation.model.DeleteChangeSetRequest;
+import software.amazon.awssdk.services.cloudformation.model.DescribeChangeSetRequest;
+import software.amazon.awssdk.services.cloudformation.model.DescribeChangeSetResponse;
+import software.amazon.awssdk.services.cloudformation.model.DescribeStacksRequest;
+import software.amazon.awssdk.services.cloudformation.model.ExecuteChangeSetRequest;
+import software.amazon.awssdk.services.cloudformation.model.Parameter;
+import software.amazon.awssdk.services.cloudformation.waiters.CloudFormationAsyncWaiter;
+import sunstone.core.SunstoneEvents;
+import sunstone.core.SunstoneTimings;
+
+import java.io.Closeable;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Suite wide pool of stacks used if {@link AwsConfig#STACK_REUSE} is enabled. A stack of a test class is returned to the
+ * pool once the class is done instead of being deleted. Next class with the same template in the same region takes the
+ * pooled stack; if its parameters differ, the stack is updated in place by a change set, so that only the changed
+ * resources are provisioned. An empty change set (the differing parameters change no resource) is not executed.
+ * <p>
+ * A stack that can't be updated is deleted in the background and a new one is created. Pooled stacks, including the
+ * ones still in use, are deleted when the pool is closed, i.e. at the end of the suite. Closing also waits for the
+ * background deletes.
+ */
+class AwsStackPool implements Closeable {
+    static Logger LOGGER = AwsLogger.DEFAULT;
+
+    private final ConcurrentMap<String, Deque<PooledStack>> idle = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, PooledStack> inUse = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CloudFormationAsyncClient> region2client = new ConcurrentHashMap<>();
+    private final Queue<CompletableFuture<Void>> abandoned = new ConcurrentLinkedQueue<>();
+    private final Function<String, CloudFormationAsyncClient> clientFactory;
+
+    /**
+     * @param clientFactory creates a client for a region, the clients are closed with the pool
+     */
+    AwsStackPool(Function<String, CloudFormationAsyncClient> clientFactory) {
+        this.clientFactory = clientFactory;
+    }
+
+    /**
+     * Take a pooled stack of the template, updated to the parameters, or create a new one.
+     *
+     * @param key key of the template content and region
+     * @return future completed with the name of the stack once it is ready
+     */
+    CompletableFuture<String> acquire(String key, String region, String template, Map<String, String> parameters) {
+        CloudFormationAsyncClient cfClient = getClient(region);
+        PooledStack pooled = idle.getOrDefault(key, new ConcurrentLinkedDeque<>()).poll();
+        CompletableFuture<String> stack;
+        if (pooled == null) {
+            stack = AwsCloudFormationCloudDeploymentManager.createStackAsync(cfClient, template, parameters);
+        } else if (pooled.parameters.equals(parameters)) {
+            LOGGER.info("Reusing pooled stack {}", pooled.name);
+            stack = CompletableFuture.completedFuture(pooled.name);
+        } else {
+            stack = update(cfClient, pooled.name, parameters)
+                    .thenApply(nothing -> pooled.name)
+                    .exceptionally(t -> {
+                        LOGGER.warn("Unable to update pooled stack {}, creating a new one", pooled.name, t);
+                        abandoned.add(AwsCloudFormationCloudDeploymentManager.deleteStackAsync(cfClient, pooled.name).whenComplete((nothing, d) -> {
+                            if (d != null) {
+                                LOGGER.warn("Unable to delete pooled stack {}", pooled.name, d);
+                            }
+                        }));
+                        return null;
+                    })
+                    .thenCompose(name -> name != null
+                            ? CompletableFuture.completedFuture(name)
+                            : AwsCloudFormationCloudDeploymentManager.createStackAsync(cfClient, template, parameters));
+        }
+        return stack.thenApply(name -> {
+            inUse.put(name, new PooledStack(name, key, region, parameters));
+            return name;
+        });
+    }
+
+    /**
+     * Return the stack to the pool, it is deleted once the pool is closed unless another class takes it.
+     */
+    void release(String stack) {
+        PooledStack pooled = inUse.remove(stack);
+        if (pooled != null) {
+            idle.computeIfAbsent(pooled.key, k -> new ConcurrentLinkedDeque<>()).push(pooled);
+        }
+    }
+
+    /**
+     * Apply parameters to the stack by a change set. The change set is not executed if it has no changes.
+     */
+    private static CompletableFuture<Void> update(CloudFormationAsyncClient cfClient, String stack, Map<String, String> parameters) {
+        String changeSetName = "sunstone-" + UUID.randomUUID().toString().substring(0, 8);
+        List<Parameter> cfParameters = parameters.entrySet().stream()
+                .map(p -> Parameter.builder().parameterKey(p.getKey()).parameterValue(p.getValue()).build())
+                .collect(Collectors.toList());
+        CreateChangeSetRequest changeSetRequest = CreateChangeSetRequest.builder()
+                .stackName(stack)
+                .changeSetName(changeSetName)
+                .changeSetType(ChangeSetType.UPDATE)
+                .usePreviousTemplate(true)
+                .parameters(cfParameters)
+                .build();
+        DescribeChangeSetRequest describeRequest = DescribeChangeSetRequest.builder()
+                .stackName(stack)
+                .changeSetName(changeSetName)
+                .build();
+
+        SunstoneTimings.Phase phase = SunstoneTimings.start("template-update", stack, SunstoneEvents.cloudTemplate("aws", "update", stack));
+        CloudFormationAsyncWaiter waiter = cfClient.waiter();
+        return cfClient.createChangeSet(changeSetRequest)
+                // the waiter fails for a change set without changes, such a failure is ignored once the status is checked
+                .thenCompose(created -> waiter.waitUntilChangeSetCreateComplete(describeRequest).handle((response, t) -> t))
+                .thenCompose(waitFailure -> cfClient.describeChangeSet(describeRequest).thenApply(changeSet -> {
+                    if (waitFailure != null && !isEmpty(changeSet)) {
+                        throw waitFailure instanceof CompletionException ? (CompletionException) waitFailure : new CompletionException(waitFailure);
+                    }
+                    return changeSet;
+                }))
+                .thenCompose(changeSet -> {
+                    if (isEmpty(changeSet)) {
+                        LOGGER.info("Reusing pooled stack {}, parameter changes don't change any resource", stack);
+                        return cfClient.deleteChangeSet(DeleteChangeSetRequest.builder().stackName(stack).changeSetName(changeSetName).build())
+                                .<Void>thenApply(deleted -> null);
+                    }
+                    if (changeSet.status() != ChangeSetStatus.CREATE_COMPLETE) {
+                        throw new RuntimeException("Unable to create change set for stack " + stack + ": " + changeSet.statusReason());
+                    }
+                    LOGGER.info("Updating pooled stack {}, {} resources change", stack, changeSet.changes().size());
+                    SunstoneEvents.Recording wait = SunstoneEvents.cloudFormationWait(stack, "update");
+                    return cfClient.executeChangeSet(ExecuteChangeSetRequest.builder().stackName(stack).changeSetName(changeSetName).build())
+                            .thenCompose(executed -> waiter.waitUntilStackUpdateComplete(DescribeStacksRequest.builder().stackName(stack).build()))
+                            .<Void>thenApply(response -> {
+                                if (!response.matched().response().isPresent()) {
+                                    throw new RuntimeException("Unable to update stack " + stack);
+                                }
+                                return null;
+                            })
+                            .whenComplete((nothing, t) -> {
+                                if (t == null) {
+                                    wait.success();
+                                }
+                                wait.close();
+                            });
+                })
+                .whenComplete((nothing, t) -> {
+                    if (t == null) {
+                        phase.success();
+                    }
+                    phase.close();
+                    waiter.close();
+                });
+    }
+
+    private static boolean isEmpty(DescribeChangeSetResponse changeSet) {
+        if (changeSet.status() == ChangeSetStatus.CREATE_COMPLETE) {
+            return changeSet.changes().isEmpty();
+        }
+        String reason = changeSet.statusReason();
+        return changeSet.status() == ChangeSetStatus.FAILED && reason != null
+                && (reason.contains("didn't contain changes") || reason.contains("No updates are to be performed"));
+    }
+
+    private CloudFormationAsyncClient getClient(String region) {
+        return region2client.computeIfAbsent(region, clientFactory);
+    }
+
+    /**
+     * Delete pooled stacks, idle and in use, and wait for it as well as for stacks deleted in the background.
+     */
+    @Override
+    public void close() {
+        try {
+            Stream<CompletableFuture<Void>> deletes = Stream.concat(idle.values().stream().flatMap(Deque::stream), inUse.values().stream())
+                    .map(pooled -> AwsCloudFormationCloudDeploymentManager.deleteStackAsync(getClient(pooled.region), pooled.name));
+            AwsCloudFormationCloudDeploymentManager.join(CompletableFuture.allOf(Stream.concat(deletes, abandoned.stream())
+                    .toArray(CompletableFuture[]::new)));
+        } finally {
+            idle.clear();
+            inUse.clear();
+            abandoned.clear();
+            region2client.values().forEach(CloudFormationAsyncClient::close);
+        }
+    }
+
+    private static class PooledStack {
+        final String name;
+        final String key;
+        final String region;
+        final Map<String, String> parameters;
+
+        PooledStack(String name, String key, String region, Map<String, String> parameters) {
+            this.name = name;
+            this.key = key;
+            this.region = region;
+            this.parameters = parameters;
+        }
+    }
+}
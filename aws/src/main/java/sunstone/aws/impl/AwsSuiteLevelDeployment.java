@@ -0,0 +1,64 @@
+package sunstone.aws.impl;
+
+
+import software.amazon.awssdk.services.cloudformation.CloudFormationClient;
+import sunstone.core.KeepAliveJournal;
+import sunstone.core.api.SuiteLevelDeployment;
+
+import java.util.Map;
+
+/**
+ * {@code perSuite} CloudFormation template deployed as a stack. Uses its own CloudFormation client so that it may be
+ * deployed ahead of time, independently on a test class. In the keep-alive mode, the stack is reused by later runs.
+ */
+class AwsSuiteLevelDeployment implements SuiteLevelDeployment {
+    private final String key;
+    private final int order;
+    private final String content;
+    private final Map<String, String> parameters;
+    private final String region;
+
+    AwsSuiteLevelDeployment(String key, int order, String content, Map<String, String> parameters, String region) {
+        this.key = key;
+        this.order = order;
+        this.content = content;
+        this.parameters = parameters;
+        this.region = region;
+    }
+
+    @Override
+    public String getKey() {
+        return key;
+    }
+
+    @Override
+    public int getOrder() {
+        return order;
+    }
+
+    @Override
+    public String deploy() {
+        String stack;
+        try (CloudFormationClient cfClient = AwsUtils.getCloudFormationClient(region)) {
+            if (KeepAliveJournal.isEnabled()) {
+                stack = AwsCloudFormationCloudDeploymentManager.createOrReuseStack(cfClient, key, content, parameters, region);
+            } else {
+                stack = AwsCloudFormationCloudDeploymentManager.createStack(cfClient, content, parameters);
+            }
+        }
+        return stack;
+    }
+
+    @Override
+    public void undeploy(String stack) {
+        if (KeepAliveJournal.isEnabled()) {
+            KeepAliveJournal.put(key, stack, region);
+            KeepAliveJournal.release(key);
+            AwsLogger.DEFAULT.info("Stack {} is kept alive for {} minutes", stack, KeepAliveJournal.getTtl().toMinutes());
+            return;
+        }
+        try (CloudFormationClient cfClient = AwsUtils.getCloudFormationClient(region)) {
+            AwsCloudFormationCloudDeploymentManager.deleteStack(cfClient, stack);
+        }
+    }
+}
@@ -2,18 +2,27 @@ package sunstone.aws.impl;
 
 
 import org.junit.jupiter.api.extension.ExtensionContext;
-import software.amazon.awssdk.services.cloudformation.CloudFormationClient;
 import sunstone.aws.annotation.WithAwsCfTemplate;
 import sunstone.aws.annotation.WithAwsCfTemplateRepeatable;
 import sunstone.core.AbstractSunstoneCloudDeployer;
+import sunstone.core.ConcurrencyUtils;
 import sunstone.core.SunstoneConfigResolver;
 import sunstone.core.SunstoneExtension;
+import sunstone.core.api.SuiteLevelDeployment;
 import sunstone.core.exceptions.IllegalArgumentSunstoneException;
 import sunstone.core.exceptions.SunstoneException;
 
 import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 import static java.lang.String.format;
 
@@ -39,39 +48,139 @@ public class AwsSunstoneDeployer extends AbstractSunstoneCloudDeployer {
         verify(annotation);
         AwsSunstoneStore store = AwsSunstoneStore.get(ctx);
 
+        Map<Integer, List<WithAwsCfTemplate>> templatesByOrder = Arrays.stream(getTemplates())
+                .collect(Collectors.groupingBy(WithAwsCfTemplate::order, TreeMap::new, Collectors.toList()));
+        for (List<WithAwsCfTemplate> templates : templatesByOrder.values()) {
+            deployCfTemplates(templates, store);
+        }
+        // resolve instances needed by the class at once rather than field by field
+        AwsEc2InstanceResolver.resolve(ctx.getRequiredTestClass(), store);
+    }
+
+    @Override
+    public int getOrder() {
         if (WithAwsCfTemplate.class.isAssignableFrom(annotation.annotationType())) {
-            deployCfTemplate((WithAwsCfTemplate) annotation, store);
+            return ((WithAwsCfTemplate) annotation).order();
         } else if (WithAwsCfTemplateRepeatable.class.isAssignableFrom(annotation.annotationType())) {
-            for (WithAwsCfTemplate withAwsCfTemplate : ((WithAwsCfTemplateRepeatable) annotation).value()) {
-                deployCfTemplate(withAwsCfTemplate, store);
+            return Arrays.stream(((WithAwsCfTemplateRepeatable) annotation).value()).mapToInt(WithAwsCfTemplate::order).min().orElse(0);
+        }
+        return 0;
+    }
+
+    @Override
+    public List<SuiteLevelDeployment> getSuiteLevelDeployments() {
+        if (!AwsUtils.propertiesForAwsClientArePresent()) {
+            return Collections.emptyList();
+        }
+        List<SuiteLevelDeployment> deployments = new ArrayList<>();
+        for (WithAwsCfTemplate template : getTemplates()) {
+            if (template.perSuite()) {
+                try {
+                    deployments.add(suiteLevelDeployment(template));
+                } catch (IOException | SunstoneException e) {
+                    AwsLogger.DEFAULT.debug("Unable to prepare {} for deploying ahead of time", template, e);
+                }
             }
         }
+        return deployments;
+    }
+
+    private WithAwsCfTemplate[] getTemplates() {
+        if (WithAwsCfTemplate.class.isAssignableFrom(annotation.annotationType())) {
+            return new WithAwsCfTemplate[] {(WithAwsCfTemplate) annotation};
+        } else if (WithAwsCfTemplateRepeatable.class.isAssignableFrom(annotation.annotationType())) {
+            return ((WithAwsCfTemplateRepeatable) annotation).value();
+        }
+        return new WithAwsCfTemplate[0];
+    }
+
+    private static AwsSuiteLevelDeployment suiteLevelDeployment(WithAwsCfTemplate awsTemplateDefinition) throws IOException, SunstoneException {
+        String content = getResourceContent(SunstoneConfigResolver.resolveExpressionToString(awsTemplateDefinition.template()));
+        Map<String, String> parameters = getParameters(awsTemplateDefinition.parameters());
+        String region = getRegion(awsTemplateDefinition);
+        return new AwsSuiteLevelDeployment(suiteLevelDeploymentKey("aws", content, parameters, region, null), awsTemplateDefinition.order(), content, parameters, region);
+    }
+
+    private static String getRegion(WithAwsCfTemplate awsTemplateDefinition) throws IllegalArgumentSunstoneException {
+        String region = SunstoneConfigResolver.resolveExpressionToString(awsTemplateDefinition.region());
+        if (region == null) {
+            throw new IllegalArgumentSunstoneException("Region for AWS template is not defined. It must be specified either "
+                    + "in the annotation or as Sunstone Config property.");
+        }
+        return region;
     }
 
-    private void deployCfTemplate(WithAwsCfTemplate awsTemplateDefinition, AwsSunstoneStore store) throws
-        SunstoneException {
-        AwsCloudFormationCloudDeploymentManager deploymentManager = store.getAwsCfDemploymentManagerOrCreate();
-
-        try {
-            String content = getResourceContent(SunstoneConfigResolver.resolveExpressionToString(awsTemplateDefinition.template()));
-            Map<String, String> parameters = getParameters(awsTemplateDefinition.parameters());
-            String region = SunstoneConfigResolver.resolveExpressionToString(awsTemplateDefinition.region());
-            if (region == null) {
-                throw new IllegalArgumentSunstoneException("Region for AWS template is not defined. It must be specified either "
-                        + "in the annotation or as Sunstone Config property.");
+    /**
+     * Deploy templates with the same order. Stacks of the templates (even in different regions) are created at once,
+     * then all of them are waited for. Created stacks are registered for undeploy even if others fail. If
+     * {@link AwsConfig#STACK_REUSE} is enabled, stacks are taken from and returned to the {@link AwsStackPool}.
+     */
+    private void deployCfTemplates(List<WithAwsCfTemplate> templates, AwsSunstoneStore store) throws SunstoneException {
+        List<Throwable> failures = new ArrayList<>();
+        Map<CompletableFuture<String>, String> stack2region = new LinkedHashMap<>();
+        boolean reuseStacks = SunstoneConfigResolver.getValue(AwsConfig.STACK_REUSE, false);
+        for (WithAwsCfTemplate template : templates) {
+            if (!template.perSuite()) {
+                try {
+                    String region = getRegion(template);
+                    String content = getResourceContent(SunstoneConfigResolver.resolveExpressionToString(template.template()));
+                    Map<String, String> parameters = getParameters(template.parameters());
+                    CompletableFuture<String> stack = reuseStacks
+                            ? store.getAwsStackPoolOrCreate().acquire(suiteLevelDeploymentKey("aws", content, Collections.emptyMap(), region, null), region, content, parameters)
+                            : store.getAwsCfDemploymentManagerOrCreate().deployAndRegister(store.getAwsCfAsyncClientOrCreate(region), content, parameters);
+                    stack2region.put(stack, region);
+                } catch (IOException e) {
+                    failures.add(new SunstoneException(e));
+                } catch (SunstoneException | RuntimeException e) {
+                    failures.add(e);
+                }
+            }
+        }
+        // suite level deployments are shared, they are deployed (or waited for) while the stacks are being created
+        for (WithAwsCfTemplate template : templates) {
+            if (template.perSuite()) {
+                try {
+                    String region = getRegion(template);
+                    store.deploySuiteLevel(suiteLevelDeployment(template), "aws", region, stack -> AwsResourceIndex.index(store.getAwsCfClientOrCreate(region),
+                            store.getAwsEc2ClientOrCreate(region), store.getAwsRdsClientOrCreate(region), stack, region, store.getResourceCache()));
+                } catch (IOException e) {
+                    failures.add(new SunstoneException(e));
+                } catch (SunstoneException | RuntimeException e) {
+                    failures.add(e);
+                }
             }
-            if (!awsTemplateDefinition.perSuite() || !store.suiteLevelDeploymentExists(awsTemplateDefinition)) {
-                CloudFormationClient cfClient = store.getAwsCfClientOrCreate(region);
-                String stack = deploymentManager.deployAndRegister(cfClient, content, parameters);
-                if (awsTemplateDefinition.perSuite()) {
-                    store.addSuiteLevelClosable(() -> deploymentManager.undeploy(stack));
-                    store.addSuiteLevelDeployment(annotation);
+        }
+        stack2region.forEach((future, region) -> {
+            try {
+                String stack = AwsCloudFormationCloudDeploymentManager.join(future);
+                if (reuseStacks) {
+                    AwsStackPool pool = store.getAwsStackPoolOrCreate();
+                    store.addIndependentClosable(() -> {
+                        // resources of the stack may change once another class updates it
+                        store.invalidateCachedResources("aws", region);
+                        pool.release(stack);
+                    });
                 } else {
-                    store.addClosable(() -> deploymentManager.undeploy(stack));
+                    AwsCloudFormationCloudDeploymentManager deploymentManager = store.getAwsCfDemploymentManagerOrCreate();
+                    store.addIndependentClosable(() -> {
+                        deploymentManager.undeploy(stack);
+                        store.invalidateCachedResources("aws", region);
+                    });
                 }
+                AwsResourceIndex.index(store.getAwsCfClientOrCreate(region), store.getAwsEc2ClientOrCreate(region), store.getAwsRdsClientOrCreate(region), stack, region, store.getResourceCache());
+            } catch (RuntimeException e) {
+                failures.add(e);
             }
-        } catch (IOException e) {
-            throw new SunstoneException(e);
+        });
+
+        if (failures.size() == 1 && failures.get(0) instanceof SunstoneException) {
+            throw (SunstoneException) failures.get(0);
+        }
+        RuntimeException failure = failures.size() == 1 && failures.get(0) instanceof RuntimeException
+                ? (RuntimeException) failures.get(0)
+                : ConcurrencyUtils.aggregate("Unable to deploy AWS CloudFormation templates", failures);
+        if (failure != null) {
+            throw failure;
         }
     }
 
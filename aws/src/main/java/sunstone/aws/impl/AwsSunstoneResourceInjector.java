@@ -46,7 +46,7 @@ public class AwsSunstoneResourceInjector implements SunstoneResourceInjector {
         Ec2Client client;
         if (identification.type == AwsIdentifiableSunstoneResource.AUTO) {
             AwsAutoResolve annotation = (AwsAutoResolve) identification.identification;
-            client = AwsUtils.getEC2Client(SunstoneConfigResolver.resolveExpressionToString(annotation.region()));
+            client = store.getAwsEc2ClientOrCreate(SunstoneConfigResolver.resolveExpressionToString(annotation.region()));
         } else {
             throw new UnsupportedSunstoneOperationException("EC2 Client may be injected only with " + AwsIdentifiableSunstoneResource.AUTO);
         }
@@ -57,7 +57,7 @@ public class AwsSunstoneResourceInjector implements SunstoneResourceInjector {
         S3Client client;
         if (identification.type == AwsIdentifiableSunstoneResource.AUTO) {
             AwsAutoResolve annotation = (AwsAutoResolve) identification.identification;
-            client = AwsUtils.getS3Client(SunstoneConfigResolver.resolveExpressionToString(annotation.region()));
+            client = store.getAwsS3ClientOrCreate(SunstoneConfigResolver.resolveExpressionToString(annotation.region()));
         } else {
             throw new UnsupportedSunstoneOperationException("EC2 Client may be injected only with " + AwsIdentifiableSunstoneResource.AUTO);
         }
@@ -69,7 +69,7 @@ public class AwsSunstoneResourceInjector implements SunstoneResourceInjector {
         RdsClient client;
         if (identification.type == AwsIdentifiableSunstoneResource.AUTO) {
             AwsAutoResolve annotation = (AwsAutoResolve) identification.identification;
-            client = AwsUtils.getRdsClient(SunstoneConfigResolver.resolveExpressionToString(annotation.region()));
+            client = store.getAwsRdsClientOrCreate(SunstoneConfigResolver.resolveExpressionToString(annotation.region()));
         } else {
             throw new UnsupportedSunstoneOperationException("RDS Client may be injected only with " + AwsIdentifiableSunstoneResource.AUTO);
         }
@@ -123,7 +123,7 @@ public class AwsSunstoneResourceInjector implements SunstoneResourceInjector {
         if (Hostname.class.isAssignableFrom(obj.getClass()) || Instance.class.isAssignableFrom(obj.getClass()) || DBInstance.class.isAssignableFrom(obj.getClass()) ) {
             // nothing to close
         } else if(SdkAutoCloseable.class.isAssignableFrom(obj.getClass())) {
-            ((SdkAutoCloseable) obj).close();
+            // clients are shared by the store which closes them
         } else {
             throw new IllegalArgumentSunstoneException("Unknown type " + obj.getClass());
         }
@@ -2,9 +2,12 @@ package sunstone.aws.impl;
 
 
 import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ExtensionContext.Store;
+import software.amazon.awssdk.services.cloudformation.CloudFormationAsyncClient;
 import software.amazon.awssdk.services.cloudformation.CloudFormationClient;
 import software.amazon.awssdk.services.ec2.Ec2Client;
 import software.amazon.awssdk.services.rds.RdsClient;
+import software.amazon.awssdk.services.s3.S3Client;
 import sunstone.core.SunstoneStore;
 
 import java.util.concurrent.ConcurrentHashMap;
@@ -16,8 +19,12 @@ import java.util.concurrent.ConcurrentMap;
 class AwsSunstoneStore extends SunstoneStore {
     private static final String AWS_CF_DEMPLOYMENT_MANAGER = "awsCfTemplateManager";
     private static final String AWS_REGION_2_CF_CLIENT = "awsCfClient";
+    private static final String AWS_REGION_2_CF_ASYNC_CLIENT = "awsCfAsyncClient";
     private static final String AWS_REGION_2_EC2_CLIENT = "awsEc2Clients";
     private static final String AWS_REGION_2_RDS_CLIENT = "awsRdsClients";
+    private static final String AWS_REGION_2_S3_CLIENT = "awsS3Clients";
+    private static final String AWS_STACK_POOL = "awsStackPool";
+    private static final String AWS_SHARED_CLIENTS = "awsSharedClients";
 
 
     protected AwsSunstoneStore(ExtensionContext ctx) {
@@ -32,10 +39,47 @@ class AwsSunstoneStore extends SunstoneStore {
         return getStore().getOrComputeIfAbsent(AWS_CF_DEMPLOYMENT_MANAGER, k -> new AwsCloudFormationCloudDeploymentManager(), AwsCloudFormationCloudDeploymentManager.class);
     }
 
+    /**
+     * Credentials and HTTP clients shared by the clients of the whole suite. Registered before the clients using them,
+     * so that it is closed after them.
+     */
+    AwsSharedClients getAwsSharedClientsOrCreate() {
+        Store rootStore = getContext().getRoot().getStore(ExtensionContext.Namespace.GLOBAL);
+        return rootStore.getOrComputeIfAbsent(AWS_SHARED_CLIENTS, k -> {
+            AwsSharedClients shared = new AwsSharedClients();
+            addSuiteLevelClosable(shared);
+            return shared;
+        }, AwsSharedClients.class);
+    }
+
+    /**
+     * Pool of stacks shared by the whole suite, see {@link AwsConfig#STACK_REUSE}.
+     */
+    AwsStackPool getAwsStackPoolOrCreate() {
+        Store rootStore = getContext().getRoot().getStore(ExtensionContext.Namespace.GLOBAL);
+        AwsSharedClients shared = getAwsSharedClientsOrCreate();
+        return rootStore.getOrComputeIfAbsent(AWS_STACK_POOL, k -> {
+            AwsStackPool pool = new AwsStackPool(region -> AwsUtils.getCloudFormationAsyncClient(region, shared));
+            addSuiteLevelIndependentClosable(pool);
+            return pool;
+        }, AwsStackPool.class);
+    }
+
     CloudFormationClient getAwsCfClientOrCreate(String regionStr) {
         ConcurrentMap<String, CloudFormationClient> region2cfClient = getStore().getOrComputeIfAbsent(AWS_REGION_2_CF_CLIENT, s -> new ConcurrentHashMap<>(), ConcurrentMap.class);
         return region2cfClient.computeIfAbsent(regionStr, r -> {
-            CloudFormationClient client = AwsUtils.getCloudFormationClient(r);
+            AwsSharedClients shared = getAwsSharedClientsOrCreate();
+            CloudFormationClient client = AwsUtils.getCloudFormationClient(r, shared);
+            addSuiteLevelClosable(client);
+            return client;
+        });
+    }
+
+    CloudFormationAsyncClient getAwsCfAsyncClientOrCreate(String regionStr) {
+        ConcurrentMap<String, CloudFormationAsyncClient> region2cfClient = getStore().getOrComputeIfAbsent(AWS_REGION_2_CF_ASYNC_CLIENT, s -> new ConcurrentHashMap<>(), ConcurrentMap.class);
+        return region2cfClient.computeIfAbsent(regionStr, r -> {
+            AwsSharedClients shared = getAwsSharedClientsOrCreate();
+            CloudFormationAsyncClient client = AwsUtils.getCloudFormationAsyncClient(r, shared);
             addSuiteLevelClosable(client);
             return client;
         });
@@ -43,8 +87,9 @@ class AwsSunstoneStore extends SunstoneStore {
 
     Ec2Client getAwsEc2ClientOrCreate(String regionStr) {
         ConcurrentMap<String, Ec2Client> region2Ec2Client = getStore().getOrComputeIfAbsent(AWS_REGION_2_EC2_CLIENT, s -> new ConcurrentHashMap<String, Ec2Client>(), ConcurrentMap.class);
-        return  region2Ec2Client.computeIfAbsent(regionStr, r -> {
-            Ec2Client client = AwsUtils.getEC2Client(r);
+        return region2Ec2Client.computeIfAbsent(regionStr, r -> {
+            AwsSharedClients shared = getAwsSharedClientsOrCreate();
+            Ec2Client client = AwsUtils.getEC2Client(r, shared);
             addSuiteLevelClosable(client);
             return client;
         });
@@ -53,7 +98,18 @@ class AwsSunstoneStore extends SunstoneStore {
     RdsClient getAwsRdsClientOrCreate(String regionStr) {
         ConcurrentMap<String, RdsClient> region2RdsClient = getStore().getOrComputeIfAbsent(AWS_REGION_2_RDS_CLIENT, s -> new ConcurrentHashMap<>(), ConcurrentMap.class);
         return region2RdsClient.computeIfAbsent(regionStr, r -> {
-            RdsClient client = AwsUtils.getRdsClient(r);
+            AwsSharedClients shared = getAwsSharedClientsOrCreate();
+            RdsClient client = AwsUtils.getRdsClient(r, shared);
+            addSuiteLevelClosable(client);
+            return client;
+        });
+    }
+
+    S3Client getAwsS3ClientOrCreate(String regionStr) {
+        ConcurrentMap<String, S3Client> region2S3Client = getStore().getOrComputeIfAbsent(AWS_REGION_2_S3_CLIENT, s -> new ConcurrentHashMap<>(), ConcurrentMap.class);
+        return region2S3Client.computeIfAbsent(regionStr, r -> {
+            AwsSharedClients shared = getAwsSharedClientsOrCreate();
+            S3Client client = AwsUtils.getS3Client(r, shared);
             addSuiteLevelClosable(client);
             return client;
         });
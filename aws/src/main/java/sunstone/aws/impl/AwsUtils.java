@@ -5,14 +5,12 @@ import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.cloudformation.CloudFormationAsyncClient;
 import software.amazon.awssdk.services.cloudformation.CloudFormationClient;
 import software.amazon.awssdk.services.ec2.Ec2Client;
 import software.amazon.awssdk.services.ec2.model.DescribeInstancesRequest;
-import software.amazon.awssdk.services.ec2.model.DescribeInstancesResponse;
 import software.amazon.awssdk.services.ec2.model.Filter;
 import software.amazon.awssdk.services.ec2.model.Instance;
-import software.amazon.awssdk.services.ec2.model.Reservation;
-import software.amazon.awssdk.services.ec2.model.Tag;
 import software.amazon.awssdk.services.rds.RdsClient;
 import software.amazon.awssdk.services.rds.model.DBInstance;
 import software.amazon.awssdk.services.rds.model.DescribeDbInstancesRequest;
@@ -23,11 +21,18 @@ import sunstone.core.SunstoneConfigResolver;
 
 import java.util.Optional;
 
+/**
+ * Factories of AWS service clients. Clients of a test class use {@link AwsSharedClients} of the suite, other clients
+ * (e.g. of a deployment made ahead of time) have their own HTTP client which is closed with them.
+ */
 class AwsUtils {
 
-    private static AwsCredentialsProvider getCredentialsProvider() {
-        AwsBasicCredentials credentials = AwsBasicCredentials.create(SunstoneConfigResolver.getString(AwsConfig.ACCESS_KEY_ID), SunstoneConfigResolver.getString(AwsConfig.SECRET_ACCESS_KEY));
-        return StaticCredentialsProvider.create(credentials);
+    /**
+     * Credentials read from Sunstone Config properties.
+     */
+    static AwsCredentialsProvider getCredentialsProvider() {
+        return StaticCredentialsProvider.create(AwsBasicCredentials.create(SunstoneConfigResolver.getString(AwsConfig.ACCESS_KEY_ID),
+                SunstoneConfigResolver.getString(AwsConfig.SECRET_ACCESS_KEY)));
     }
 
     static boolean propertiesForAwsClientArePresent() {
@@ -51,26 +56,47 @@ class AwsUtils {
         return cfClient;
     }
 
-    static Ec2Client getEC2Client(String region) {
+    static CloudFormationClient getCloudFormationClient(String region, AwsSharedClients shared) {
+        CloudFormationClient cfClient = CloudFormationClient.builder()
+                .region(getAndCheckRegion(region))
+                .credentialsProvider(shared.credentialsProvider)
+                .httpClient(shared.httpClient)
+                .build();
+        return cfClient;
+    }
+
+    static CloudFormationAsyncClient getCloudFormationAsyncClient(String region, AwsSharedClients shared) {
+        CloudFormationAsyncClient cfClient = CloudFormationAsyncClient.builder()
+                .region(getAndCheckRegion(region))
+                .credentialsProvider(shared.credentialsProvider)
+                .httpClient(shared.asyncHttpClient)
+                .build();
+        return cfClient;
+    }
+
+    static Ec2Client getEC2Client(String region, AwsSharedClients shared) {
         Ec2Client ec2Client = Ec2Client.builder()
                 .region(getAndCheckRegion(region))
-                .credentialsProvider(getCredentialsProvider())
+                .credentialsProvider(shared.credentialsProvider)
+                .httpClient(shared.httpClient)
                 .build();
         return ec2Client;
     }
 
-    static S3Client getS3Client(String region) {
+    static S3Client getS3Client(String region, AwsSharedClients shared) {
         S3Client s3Client = S3Client.builder()
                 .region(getAndCheckRegion(region))
-                .credentialsProvider(getCredentialsProvider())
+                .credentialsProvider(shared.credentialsProvider)
+                .httpClient(shared.httpClient)
                 .build();
         return s3Client;
     }
 
-    static RdsClient getRdsClient(String region) {
+    static RdsClient getRdsClient(String region, AwsSharedClients shared) {
         RdsClient rdsClient = RdsClient.builder()
                 .region(getAndCheckRegion(region))
-                .credentialsProvider(getCredentialsProvider())
+                .credentialsProvider(shared.credentialsProvider)
+                .httpClient(shared.httpClient)
                 .build();
         return rdsClient;
     }
@@ -89,18 +115,10 @@ class AwsUtils {
                 .filters(runningInstancesFilter, tagFilter)
                 .build();
 
-        DescribeInstancesResponse response = client.describeInstances(request);
-
-        for (Reservation reservation : response.reservations()) {
-            for (Instance instance : reservation.instances()) {
-                for (Tag tag : instance.tags()) {
-                    if (tag.key().equals("Name") && tag.value().equals(name)) {
-                        return Optional.of(instance);
-                    }
-                }
-            }
-        }
-        return Optional.empty();
+        return client.describeInstancesPaginator(request).reservations().stream()
+                .flatMap(reservation -> reservation.instances().stream())
+                .filter(instance -> instance.tags().stream().anyMatch(tag -> tag.key().equals("Name") && tag.value().equals(name)))
+                .findFirst();
     }
 
     static Optional<DBInstance> findRdsInstanceByNameTag(RdsClient rdsClient, String name) {
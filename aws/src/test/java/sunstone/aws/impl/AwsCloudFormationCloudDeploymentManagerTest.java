@@ -0,0 +1,106 @@
+package sunstone.aws.impl;
+
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.cloudformation.model.CreateStackResponse;
+import software.amazon.awssdk.services.cloudformation.model.OnFailure;
+import software.amazon.awssdk.services.cloudformation.model.ResourceStatus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AwsCloudFormationCloudDeploymentManagerTest {
+
+    @Test
+    public void stacksAreCreatedAtOnceAndJoined() {
+        StubCloudFormationAsyncClient client = new StubCloudFormationAsyncClient();
+        // creation is requested, but not answered until both stacks are requested
+        List<CompletableFuture<CreateStackResponse>> pending = new ArrayList<>();
+        client.onCreate = request -> {
+            CompletableFuture<CreateStackResponse> response = new CompletableFuture<>();
+            pending.add(response);
+            return response;
+        };
+        AwsCloudFormationCloudDeploymentManager manager = new AwsCloudFormationCloudDeploymentManager();
+
+        CompletableFuture<String> first = manager.deployAndRegister(client, "{}", Collections.emptyMap());
+        CompletableFuture<String> second = manager.deployAndRegister(client, "{}", Collections.emptyMap());
+
+        assertThat(client.created).hasSize(2);
+        assertThat(first).isNotDone();
+        assertThat(second).isNotDone();
+        pending.forEach(response -> response.complete(CreateStackResponse.builder().build()));
+
+        assertThat(Arrays.asList(AwsCloudFormationCloudDeploymentManager.join(first), AwsCloudFormationCloudDeploymentManager.join(second)))
+                .containsExactly(client.created.get(0).stackName(), client.created.get(1).stackName());
+    }
+
+    @Test
+    public void stackIsDeletedAsynchronously() {
+        StubCloudFormationAsyncClient client = new StubCloudFormationAsyncClient();
+        AwsCloudFormationCloudDeploymentManager manager = new AwsCloudFormationCloudDeploymentManager();
+        String stack = AwsCloudFormationCloudDeploymentManager.join(manager.deployAndRegister(client, "{}", Collections.emptyMap()));
+
+        AwsCloudFormationCloudDeploymentManager.join(manager.undeployAsync(stack));
+
+        assertThat(client.deleted).containsExactly(stack);
+    }
+
+    @Test
+    public void failedStackDoesNotPreventUndeployOfOthers() {
+        StubCloudFormationAsyncClient client = new StubCloudFormationAsyncClient();
+        AwsCloudFormationCloudDeploymentManager manager = new AwsCloudFormationCloudDeploymentManager();
+        CompletableFuture<String> created = manager.deployAndRegister(client, "{}", Collections.emptyMap());
+        String failedResource = "Instance";
+        client.onCreate = request -> {
+            CompletableFuture<CreateStackResponse> response = CompletableFuture.completedFuture(CreateStackResponse.builder().build());
+            client.events = stack -> stack.equals(request.stackName())
+                    ? Collections.singletonList(StubCloudFormationAsyncClient.resourceEvent(stack, failedResource, "AWS::EC2::Instance", ResourceStatus.CREATE_FAILED))
+                    : Collections.singletonList(StubCloudFormationAsyncClient.stackEvent(stack, ResourceStatus.CREATE_COMPLETE));
+            return response;
+        };
+        CompletableFuture<String> failed = manager.deployAndRegister(client, "{}", Collections.emptyMap());
+
+        assertThatThrownBy(() -> AwsCloudFormationCloudDeploymentManager.join(failed)).hasMessageContaining("Unable to create " + failedResource);
+        String stack = AwsCloudFormationCloudDeploymentManager.join(created);
+        String failedStackName = client.created.get(1).stackName();
+        // the failed stack is deleted right away, the created one stays registered for undeploy
+        assertThat(client.deleted).containsExactly(failedStackName);
+
+        manager.undeployAll();
+
+        assertThat(client.deleted).containsExactly(failedStackName, stack);
+    }
+
+    @Test
+    public void stacksAreRolledBackByDefault() {
+        StubCloudFormationAsyncClient client = new StubCloudFormationAsyncClient();
+
+        AwsCloudFormationCloudDeploymentManager.join(AwsCloudFormationCloudDeploymentManager.createStackAsync(client, "{}", Collections.emptyMap()));
+
+        assertThat(client.created.get(0).onFailure()).isEqualTo(OnFailure.ROLLBACK);
+    }
+
+    @Test
+    public void failedStackIsKeptWithDoNothing() {
+        System.setProperty(AwsConfig.STACK_ON_FAILURE, "do_nothing");
+        try {
+            StubCloudFormationAsyncClient client = new StubCloudFormationAsyncClient();
+            client.events = stack -> Collections.singletonList(StubCloudFormationAsyncClient.stackEvent(stack, ResourceStatus.CREATE_FAILED));
+
+            CompletableFuture<String> failed = AwsCloudFormationCloudDeploymentManager.createStackAsync(client, "{}", Collections.emptyMap());
+
+            assertThatThrownBy(() -> AwsCloudFormationCloudDeploymentManager.join(failed)).hasMessageContaining("CREATE_FAILED");
+            assertThat(client.created.get(0).onFailure()).isEqualTo(OnFailure.DO_NOTHING);
+            assertThat(client.deleted).isEmpty();
+        } finally {
+            System.clearProperty(AwsConfig.STACK_ON_FAILURE);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package sunstone.aws.impl;
+
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.ec2.Ec2Client;
+import software.amazon.awssdk.services.ec2.model.DescribeInstancesRequest;
+import software.amazon.awssdk.services.ec2.model.DescribeInstancesResponse;
+import software.amazon.awssdk.services.ec2.model.Filter;
+import software.amazon.awssdk.services.ec2.model.Instance;
+import software.amazon.awssdk.services.ec2.model.Reservation;
+import software.amazon.awssdk.services.ec2.model.Tag;
+import software.amazon.awssdk.services.ec2.paginators.DescribeInstancesIterable;
+import sunstone.annotation.Deployment;
+import sunstone.aws.annotation.AwsEc2Instance;
+import sunstone.core.CoreConfig;
+import sunstone.core.ResourceCache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AwsEc2InstanceResolverTest {
+    private static final String REGION = "us-east-1";
+    private static final String NAME_PROPERTY = "sunstone.test.deployment.instance";
+
+    private final RecordingResourceCache cache = new RecordingResourceCache();
+    private final StubEc2Client ec2Client = new StubEc2Client();
+
+    @BeforeEach
+    public void setUp() {
+        System.setProperty(CoreConfig.RESOURCE_CACHE_TTL, "60");
+        System.setProperty(NAME_PROPERTY, "deployment-vm");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        System.clearProperty(CoreConfig.RESOURCE_CACHE_TTL);
+        System.clearProperty(NAME_PROPERTY);
+    }
+
+    @Test
+    public void oneRequestResolvesFieldsAndDeploymentTargets() {
+        ec2Client.instances.addAll(instances("field-vm", "other-field-vm", "deployment-vm", "unrelated-vm"));
+        cache.put("aws", "Instance", "indexed-vm", REGION, Instance.builder().build());
+
+        Map<String, Set<String>> names = AwsEc2InstanceResolver.getNames(ResolvedClass.class, cache);
+        assertThat(names).containsOnlyKeys(REGION);
+        // the indexed instance is not resolved again
+        assertThat(names.get(REGION)).containsExactlyInAnyOrder("field-vm", "other-field-vm", "deployment-vm");
+
+        AwsEc2InstanceResolver.resolve(ec2Client, names.get(REGION), REGION, cache);
+
+        assertThat(ec2Client.paginated).hasSize(1);
+        for (String name : names.get(REGION)) {
+            assertThat(cache.contains("aws", "Instance", name, REGION)).as(name).isTrue();
+        }
+        assertThat(cache.contains("aws", "Instance", "unrelated-vm", REGION)).isFalse();
+    }
+
+    @Test
+    public void namesAreChunked() {
+        Set<String> names = IntStream.range(0, 250).mapToObj(i -> "vm-" + i).collect(Collectors.toCollection(LinkedHashSet::new));
+        ec2Client.instances.addAll(instances(names.toArray(new String[0])));
+
+        AwsEc2InstanceResolver.resolve(ec2Client, names, REGION, cache);
+
+        assertThat(ec2Client.paginated).extracting(request -> nameFilter(request).size()).containsExactly(200, 50);
+        assertThat(names).allMatch(name -> cache.contains("aws", "Instance", name, REGION));
+    }
+
+    @Test
+    public void firstInstanceOfNameIsCached() {
+        List<Instance> duplicates = instances("vm", "vm");
+        ec2Client.instances.addAll(duplicates);
+
+        AwsEc2InstanceResolver.resolve(ec2Client, Collections.singleton("vm"), REGION, cache);
+
+        assertThat(cache.puts).containsExactly(duplicates.get(0));
+    }
+
+    private static List<Instance> instances(String... names) {
+        List<Instance> instances = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            instances.add(Instance.builder()
+                    .instanceId("i-" + i)
+                    .tags(Tag.builder().key("Name").value(names[i]).build())
+                    .build());
+        }
+        return instances;
+    }
+
+    private static List<String> nameFilter(DescribeInstancesRequest request) {
+        return request.filters().stream()
+                .filter(filter -> filter.name().equals("tag:Name"))
+                .map(Filter::values)
+                .findFirst()
+                .orElse(Collections.emptyList());
+    }
+
+    static class ResolvedClass {
+        @AwsEc2Instance(nameTag = "field-vm", region = REGION)
+        Instance field;
+
+        @AwsEc2Instance(nameTag = "other-field-vm", region = REGION)
+        static Instance staticField;
+
+        @AwsEc2Instance(nameTag = "indexed-vm", region = REGION)
+        Instance indexed;
+
+        @Deployment
+        @AwsEc2Instance(nameTag = "${" + NAME_PROPERTY + "}", region = REGION)
+        static Object deployment() {
+            return null;
+        }
+    }
+
+    static class RecordingResourceCache extends ResourceCache {
+        final List<Object> puts = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void put(String provider, String type, String name, String scope, Object resource) {
+            super.put(provider, type, name, scope, resource);
+            puts.add(resource);
+        }
+    }
+
+    /**
+     * Answers {@code DescribeInstances} with the instances matching the {@code tag:Name} filter, in one page.
+     */
+    static class StubEc2Client implements Ec2Client {
+        final List<DescribeInstancesRequest> paginated = new CopyOnWriteArrayList<>();
+        final List<Instance> instances = new CopyOnWriteArrayList<>();
+
+        @Override
+        public DescribeInstancesIterable describeInstancesPaginator(DescribeInstancesRequest request) {
+            paginated.add(request);
+            return new DescribeInstancesIterable(this, request);
+        }
+
+        @Override
+        public DescribeInstancesResponse describeInstances(DescribeInstancesRequest request) {
+            List<String> names = nameFilter(request);
+            List<Instance> matching = instances.stream()
+                    .filter(instance -> instance.tags().stream().anyMatch(tag -> names.contains(tag.value())))
+                    .collect(Collectors.toList());
+            return DescribeInstancesResponse.builder()
+                    .reservations(Reservation.builder().instances(matching).build())
+                    .build();
+        }
+
+        @Override
+        public String serviceName() {
+            return SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package sunstone.aws.impl;
+
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+import org.junit.platform.launcher.core.LauncherFactory;
+import org.junit.platform.launcher.listeners.SummaryGeneratingListener;
+import org.junit.platform.launcher.listeners.TestExecutionSummary;
+import software.amazon.awssdk.services.ec2.Ec2Client;
+import software.amazon.awssdk.services.rds.RdsClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import sunstone.aws.annotation.AwsAutoResolve;
+import sunstone.core.SunstoneExtension;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClass;
+
+public class AwsInjectedClientsTest {
+    private static final String REGION = "us-east-1";
+
+    @BeforeEach
+    public void setUp() {
+        // clients are only built, AWS is not called
+        System.setProperty(AwsConfig.ACCESS_KEY_ID, "test");
+        System.setProperty(AwsConfig.SECRET_ACCESS_KEY, "test");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        System.clearProperty(AwsConfig.ACCESS_KEY_ID);
+        System.clearProperty(AwsConfig.SECRET_ACCESS_KEY);
+    }
+
+    @Test
+    public void injectedClientsAreStoreClients() {
+        SummaryGeneratingListener listener = new SummaryGeneratingListener();
+        LauncherFactory.create().execute(LauncherDiscoveryRequestBuilder.request().selectors(selectClass(InjectedClients.class)).build(), listener);
+        TestExecutionSummary summary = listener.getSummary();
+
+        assertThat(summary.getFailures()).extracting(TestExecutionSummary.Failure::getException).isEmpty();
+        assertThat(summary.getTestsSucceededCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void injectedClientsAreNotClosedByInjector() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        Ec2Client ec2 = new Ec2Client() {
+            @Override
+            public String serviceName() {
+                return SERVICE_NAME;
+            }
+
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+        S3Client s3 = new S3Client() {
+            @Override
+            public String serviceName() {
+                return SERVICE_NAME;
+            }
+
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+        RdsClient rds = new RdsClient() {
+            @Override
+            public String serviceName() {
+                return SERVICE_NAME;
+            }
+
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+
+        for (Object client : new Object[] {ec2, s3, rds}) {
+            new AwsSunstoneResourceInjector(null, client.getClass()).closeResource(client);
+        }
+
+        assertThat(closed).isFalse();
+    }
+
+    /**
+     * Run by {@link #injectedClientsAreStoreClients()}, not on its own.
+     */
+    @ExtendWith(SunstoneExtension.class)
+    @ExtendWith(ContextResolver.class)
+    static class InjectedClients {
+        @AwsAutoResolve(region = REGION)
+        static Ec2Client ec2;
+
+        @AwsAutoResolve(region = REGION)
+        static S3Client s3;
+
+        @AwsAutoResolve(region = REGION)
+        static RdsClient rds;
+
+        @Test
+        void test(ExtensionContext ctx) {
+            AwsSunstoneStore store = AwsSunstoneStore.get(ctx);
+            assertThat(ec2).isSameAs(store.getAwsEc2ClientOrCreate(REGION));
+            assertThat(s3).isSameAs(store.getAwsS3ClientOrCreate(REGION));
+            assertThat(rds).isSameAs(store.getAwsRdsClientOrCreate(REGION));
+        }
+    }
+
+    static class ContextResolver implements ParameterResolver {
+        @Override
+        public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+            return parameterContext.getParameter().getType() == ExtensionContext.class;
+        }
+
+        @Override
+        public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+            return extensionContext;
+        }
+    }
+}
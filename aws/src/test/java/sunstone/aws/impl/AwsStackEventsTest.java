@@ -0,0 +1,87 @@
+package sunstone.aws.impl;
+
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.cloudformation.model.DescribeStackEventsRequest;
+import software.amazon.awssdk.services.cloudformation.model.DescribeStackEventsResponse;
+import software.amazon.awssdk.services.cloudformation.model.ResourceStatus;
+import software.amazon.awssdk.services.cloudformation.model.StackEvent;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static sunstone.aws.impl.StubCloudFormationAsyncClient.resourceEvent;
+import static sunstone.aws.impl.StubCloudFormationAsyncClient.stackEvent;
+
+public class AwsStackEventsTest {
+    private static final String STACK = "SunstoneStack-test";
+
+    private final Deque<DescribeStackEventsResponse> responses = new ArrayDeque<>();
+    private final List<String> requestedTokens = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        System.setProperty(AwsConfig.STACK_EVENTS_POLL_INTERVAL, "0");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        System.clearProperty(AwsConfig.STACK_EVENTS_POLL_INTERVAL);
+    }
+
+    private CompletableFuture<DescribeStackEventsResponse> describe(DescribeStackEventsRequest request) {
+        requestedTokens.add(request.nextToken());
+        return CompletableFuture.completedFuture(responses.remove());
+    }
+
+    private void respond(String nextToken, StackEvent... newestFirst) {
+        responses.add(DescribeStackEventsResponse.builder().stackEvents(newestFirst).nextToken(nextToken).build());
+    }
+
+    @Test
+    public void onlyNewEventsAreFetched() throws Exception {
+        StackEvent started = stackEvent(STACK, ResourceStatus.CREATE_IN_PROGRESS);
+        StackEvent bucket = resourceEvent(STACK, "Bucket", "AWS::S3::Bucket", ResourceStatus.CREATE_IN_PROGRESS);
+        StackEvent instance = resourceEvent(STACK, "Instance", "AWS::EC2::Instance", ResourceStatus.CREATE_IN_PROGRESS);
+        // first poll, two pages
+        respond("older", instance, bucket);
+        respond(null, started);
+        // second poll, the first page ends with seen events, older pages must not be fetched
+        respond("older", stackEvent(STACK, ResourceStatus.CREATE_COMPLETE), instance, bucket);
+
+        AwsStackEvents.watchCreate(STACK, this::describe).get(10, TimeUnit.SECONDS);
+
+        assertThat(requestedTokens).containsExactly(null, "older", null);
+        assertThat(responses).isEmpty();
+    }
+
+    @Test
+    public void failedResourceFailsWithoutWaitingForStack() {
+        respond(null, resourceEvent(STACK, "Instance", "AWS::EC2::Instance", ResourceStatus.CREATE_FAILED),
+                resourceEvent(STACK, "Bucket", "AWS::S3::Bucket", ResourceStatus.CREATE_COMPLETE),
+                stackEvent(STACK, ResourceStatus.CREATE_IN_PROGRESS));
+
+        CompletableFuture<Void> created = AwsStackEvents.watchCreate(STACK, this::describe);
+
+        assertThatThrownBy(() -> AwsCloudFormationCloudDeploymentManager.join(created))
+                .hasMessageContaining("Unable to create Instance (AWS::EC2::Instance) in stack " + STACK);
+        // the stack is still being created, but it is not polled anymore
+        assertThat(requestedTokens).hasSize(1);
+    }
+
+    @Test
+    public void rolledBackStackFails() {
+        respond(null, stackEvent(STACK, ResourceStatus.ROLLBACK_IN_PROGRESS), stackEvent(STACK, ResourceStatus.CREATE_IN_PROGRESS));
+
+        assertThatThrownBy(() -> AwsCloudFormationCloudDeploymentManager.join(AwsStackEvents.watchCreate(STACK, this::describe)))
+                .hasMessageContaining("Unable to create stack " + STACK + ", it is ROLLBACK_IN_PROGRESS");
+    }
+}
@@ -0,0 +1,132 @@
+package sunstone.aws.impl;
+
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.cloudformation.model.Change;
+import software.amazon.awssdk.services.cloudformation.model.ChangeSetStatus;
+import software.amazon.awssdk.services.cloudformation.model.DescribeChangeSetResponse;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AwsStackPoolTest {
+    private static final String KEY = "template-key";
+    private static final String REGION = "us-east-1";
+    private static final Map<String, String> PARAMETERS = Collections.singletonMap("instanceName", "first");
+    private static final Map<String, String> OTHER_PARAMETERS = Collections.singletonMap("instanceName", "second");
+
+    private final StubCloudFormationAsyncClient client = new StubCloudFormationAsyncClient();
+    private final AwsStackPool pool = new AwsStackPool(region -> client);
+
+    @AfterEach
+    public void tearDown() {
+        pool.close();
+    }
+
+    private String acquire(Map<String, String> parameters) {
+        return AwsCloudFormationCloudDeploymentManager.join(pool.acquire(KEY, REGION, "{}", parameters));
+    }
+
+    private String pooledStack() {
+        String stack = acquire(PARAMETERS);
+        pool.release(stack);
+        return stack;
+    }
+
+    @Test
+    public void stackWithEqualParametersIsReused() {
+        String stack = pooledStack();
+
+        assertThat(acquire(PARAMETERS)).isEqualTo(stack);
+        assertThat(client.created).hasSize(1);
+        assertThat(client.changeSets).isEmpty();
+    }
+
+    @Test
+    public void emptyChangeSetIsNotExecuted() {
+        String stack = pooledStack();
+        // CloudFormation fails a change set without changes, its waiter fails too
+        client.changeSet = request -> DescribeChangeSetResponse.builder()
+                .changeSetName(request.changeSetName())
+                .status(ChangeSetStatus.FAILED)
+                .statusReason("The submitted information didn't contain changes. Submit different information to create a change set.")
+                .build();
+
+        assertThat(acquire(OTHER_PARAMETERS)).isEqualTo(stack);
+        assertThat(client.changeSets).hasSize(1);
+        assertThat(client.deletedChangeSets).containsExactly(client.changeSets.get(0).changeSetName());
+        assertThat(client.executed).isEmpty();
+        assertThat(client.created).hasSize(1);
+    }
+
+    @Test
+    public void stackIsUpdatedByChangeSet() {
+        String stack = pooledStack();
+        client.changeSet = request -> DescribeChangeSetResponse.builder()
+                .changeSetName(request.changeSetName())
+                .status(ChangeSetStatus.CREATE_COMPLETE)
+                .changes(Change.builder().build())
+                .build();
+
+        assertThat(acquire(OTHER_PARAMETERS)).isEqualTo(stack);
+        assertThat(client.changeSets.get(0).parameters()).extracting(p -> p.parameterValue()).containsExactly("second");
+        assertThat(client.executed).containsExactly(stack);
+        assertThat(client.created).hasSize(1);
+    }
+
+    @Test
+    public void stackThatFailsToUpdateIsReplaced() {
+        String stack = pooledStack();
+        client.changeSet = request -> DescribeChangeSetResponse.builder()
+                .changeSetName(request.changeSetName())
+                .status(ChangeSetStatus.FAILED)
+                .statusReason("Parameter instanceName is not allowed")
+                .build();
+
+        String replacement = acquire(OTHER_PARAMETERS);
+
+        assertThat(replacement).isNotEqualTo(stack);
+        assertThat(client.created).hasSize(2);
+        assertThat(client.executed).isEmpty();
+        assertThat(client.deleted).containsExactly(stack);
+    }
+
+    @Test
+    public void unexpectedWaiterFailureIsNotIgnored() {
+        String stack = pooledStack();
+        AtomicInteger describes = new AtomicInteger();
+        // the waiter fails, the change set looks fine afterwards
+        client.changeSet = request -> {
+            if (describes.getAndIncrement() == 0) {
+                throw new IllegalStateException("Rate exceeded");
+            }
+            return DescribeChangeSetResponse.builder()
+                    .changeSetName(request.changeSetName())
+                    .status(ChangeSetStatus.CREATE_COMPLETE)
+                    .changes(Change.builder().build())
+                    .build();
+        };
+
+        String replacement = acquire(OTHER_PARAMETERS);
+
+        assertThat(replacement).isNotEqualTo(stack);
+        assertThat(client.executed).isEmpty();
+        assertThat(client.deleted).containsExactly(stack);
+    }
+
+    @Test
+    public void closeDeletesIdleStacksAndStacksInUse() {
+        String idle = acquire(PARAMETERS);
+        String inUse = acquire(PARAMETERS);
+        pool.release(idle);
+
+        pool.close();
+
+        assertThat(client.deleted).containsExactlyInAnyOrder(idle, inUse);
+        assertThat(client.closed).isTrue();
+    }
+}
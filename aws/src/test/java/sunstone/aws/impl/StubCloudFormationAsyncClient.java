@@ -0,0 +1,137 @@
+package sunstone.aws.impl;
+
+
+import software.amazon.awssdk.services.cloudformation.CloudFormationAsyncClient;
+import software.amazon.awssdk.services.cloudformation.model.ChangeSetStatus;
+import software.amazon.awssdk.services.cloudformation.model.CreateChangeSetRequest;
+import software.amazon.awssdk.services.cloudformation.model.CreateChangeSetResponse;
+import software.amazon.awssdk.services.cloudformation.model.DeleteChangeSetRequest;
+import software.amazon.awssdk.services.cloudformation.model.DeleteChangeSetResponse;
+import software.amazon.awssdk.services.cloudformation.model.CreateStackRequest;
+import software.amazon.awssdk.services.cloudformation.model.CreateStackResponse;
+import software.amazon.awssdk.services.cloudformation.model.DeleteStackRequest;
+import software.amazon.awssdk.services.cloudformation.model.DeleteStackResponse;
+import software.amazon.awssdk.services.cloudformation.model.DescribeChangeSetRequest;
+import software.amazon.awssdk.services.cloudformation.model.DescribeChangeSetResponse;
+import software.amazon.awssdk.services.cloudformation.model.DescribeStackEventsRequest;
+import software.amazon.awssdk.services.cloudformation.model.DescribeStackEventsResponse;
+import software.amazon.awssdk.services.cloudformation.model.DescribeStacksRequest;
+import software.amazon.awssdk.services.cloudformation.model.DescribeStacksResponse;
+import software.amazon.awssdk.services.cloudformation.model.ExecuteChangeSetRequest;
+import software.amazon.awssdk.services.cloudformation.model.ExecuteChangeSetResponse;
+import software.amazon.awssdk.services.cloudformation.model.ResourceStatus;
+import software.amazon.awssdk.services.cloudformation.model.Stack;
+import software.amazon.awssdk.services.cloudformation.model.StackEvent;
+import software.amazon.awssdk.services.cloudformation.model.StackStatus;
+import software.amazon.awssdk.services.cloudformation.waiters.CloudFormationAsyncWaiter;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+/**
+ * CloudFormation client answering from memory. Stacks are created right away and their creation is reported by a single
+ * {@code CREATE_COMPLETE} event unless {@link #onCreate} or {@link #events} say otherwise. Change sets are described by
+ * {@link #changeSet}, executed change sets update the stack right away.
+ */
+class StubCloudFormationAsyncClient implements CloudFormationAsyncClient {
+    final List<CreateStackRequest> created = new CopyOnWriteArrayList<>();
+    final List<String> deleted = new CopyOnWriteArrayList<>();
+    final List<CreateChangeSetRequest> changeSets = new CopyOnWriteArrayList<>();
+    final List<String> deletedChangeSets = new CopyOnWriteArrayList<>();
+    final List<String> executed = new CopyOnWriteArrayList<>();
+    volatile Function<CreateStackRequest, CompletableFuture<CreateStackResponse>> onCreate =
+            request -> CompletableFuture.completedFuture(CreateStackResponse.builder().stackId(request.stackName()).build());
+    volatile Function<String, List<StackEvent>> events = stack -> Collections.singletonList(stackEvent(stack, ResourceStatus.CREATE_COMPLETE));
+    volatile Function<DescribeChangeSetRequest, DescribeChangeSetResponse> changeSet =
+            request -> DescribeChangeSetResponse.builder().changeSetName(request.changeSetName()).status(ChangeSetStatus.CREATE_COMPLETE).build();
+    volatile boolean closed;
+
+    static StackEvent stackEvent(String stack, ResourceStatus status) {
+        return resourceEvent(stack, stack, "AWS::CloudFormation::Stack", status);
+    }
+
+    static StackEvent resourceEvent(String stack, String resource, String type, ResourceStatus status) {
+        return StackEvent.builder()
+                .eventId(stack + "-" + resource + "-" + status)
+                .stackName(stack)
+                .logicalResourceId(resource)
+                .resourceType(type)
+                .resourceStatus(status)
+                .timestamp(Instant.now())
+                .build();
+    }
+
+    @Override
+    public CompletableFuture<CreateStackResponse> createStack(CreateStackRequest request) {
+        created.add(request);
+        return onCreate.apply(request);
+    }
+
+    @Override
+    public CompletableFuture<DescribeStackEventsResponse> describeStackEvents(DescribeStackEventsRequest request) {
+        return CompletableFuture.completedFuture(DescribeStackEventsResponse.builder().stackEvents(events.apply(request.stackName())).build());
+    }
+
+    @Override
+    public CompletableFuture<DeleteStackResponse> deleteStack(DeleteStackRequest request) {
+        deleted.add(request.stackName());
+        return CompletableFuture.completedFuture(DeleteStackResponse.builder().build());
+    }
+
+    @Override
+    public CompletableFuture<DescribeStacksResponse> describeStacks(DescribeStacksRequest request) {
+        StackStatus status = deleted.contains(request.stackName()) ? StackStatus.DELETE_COMPLETE
+                : executed.contains(request.stackName()) ? StackStatus.UPDATE_COMPLETE : StackStatus.CREATE_COMPLETE;
+        return CompletableFuture.completedFuture(DescribeStacksResponse.builder()
+                .stacks(Stack.builder().stackName(request.stackName()).stackStatus(status).build())
+                .build());
+    }
+
+    @Override
+    public CompletableFuture<CreateChangeSetResponse> createChangeSet(CreateChangeSetRequest request) {
+        changeSets.add(request);
+        return CompletableFuture.completedFuture(CreateChangeSetResponse.builder().build());
+    }
+
+    @Override
+    public CompletableFuture<DescribeChangeSetResponse> describeChangeSet(DescribeChangeSetRequest request) {
+        CompletableFuture<DescribeChangeSetResponse> response = new CompletableFuture<>();
+        try {
+            response.complete(changeSet.apply(request));
+        } catch (RuntimeException e) {
+            response.completeExceptionally(e);
+        }
+        return response;
+    }
+
+    @Override
+    public CompletableFuture<DeleteChangeSetResponse> deleteChangeSet(DeleteChangeSetRequest request) {
+        deletedChangeSets.add(request.changeSetName());
+        return CompletableFuture.completedFuture(DeleteChangeSetResponse.builder().build());
+    }
+
+    @Override
+    public CompletableFuture<ExecuteChangeSetResponse> executeChangeSet(ExecuteChangeSetRequest request) {
+        executed.add(request.stackName());
+        return CompletableFuture.completedFuture(ExecuteChangeSetResponse.builder().build());
+    }
+
+    @Override
+    public CloudFormationAsyncWaiter waiter() {
+        return CloudFormationAsyncWaiter.builder().client(this).build();
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+}
@@ -17,11 +17,14 @@ import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
 import sunstone.annotation.DomainMode;
 import sunstone.annotation.WildFly;
 import sunstone.azure.impl.AzureWFIdentifiableSunstoneResource.Identification;
+import sunstone.core.SunstoneEvents;
 import sunstone.core.api.SunstoneArchiveDeployer;
 import sunstone.core.exceptions.IllegalArgumentSunstoneException;
 import sunstone.core.exceptions.SunstoneException;
 import sunstone.core.exceptions.UnsupportedSunstoneOperationException;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -59,9 +62,13 @@ public class AzureWFArchiveDeployer implements SunstoneArchiveDeployer {
         Path tempFile = Files.createTempFile("sunstone-war-deployment-", ".war");
         Files.copy(is, tempFile, StandardCopyOption.REPLACE_EXISTING);
         WebApp azureWebApp = resourceIdentification.get(store, WebApp.class);
-        azureWebApp.deployAsync(DeployType.WAR, tempFile.toFile()).block();
-//        azureWebApp.restartAsync().block();
-        AzureWFUtils.waitForWebAppDeployment(azureWebApp);
+        // a WAR deployed to a Web App is always ROOT.war
+        try (SunstoneEvents.Recording event = SunstoneEvents.wildFlyDeployment("deploy", "ROOT.war", azureWebApp.name())) {
+            azureWebApp.deployAsync(DeployType.WAR, tempFile.toFile()).block();
+//            azureWebApp.restartAsync().block();
+            AzureWFUtils.waitForWebAppDeployment(azureWebApp);
+            event.success();
+        }
     }
 
     static void undeployFromWebApp(Identification resourceIdentification, AzureSunstoneStore store) throws SunstoneException {
@@ -97,16 +104,20 @@ public class AzureWFArchiveDeployer implements SunstoneArchiveDeployer {
         if (domainMode != null) {
             setDomainServers(builder,domainMode);
         }
-        try (OnlineManagementClient client = AzureWFIdentifiableSunstoneResourceUtils.resolveOnlineManagementClient(resourceIdentification, wildFly, store)){
+        try (OnlineManagementClient client = AzureWFIdentifiableSunstoneResourceUtils.resolveOnlineManagementClient(resourceIdentification, wildFly, store);
+             SunstoneEvents.Recording event = SunstoneEvents.wildFlyDeployment("deploy", deploymentName, resourceIdentification.identification.toString())) {
             client.apply(builder.build());
+            event.success();
         } catch (CommandFailedException | IOException e) {
             throw new RuntimeException(e);
         }
     }
 
     static void undeployFromVmInstance(String deploymentName, Identification resourceIdentification, WildFly wildFly, AzureSunstoneStore store) throws SunstoneException {
-        try (OnlineManagementClient client = AzureWFIdentifiableSunstoneResourceUtils.resolveOnlineManagementClient(resourceIdentification, wildFly, store)){
+        try (OnlineManagementClient client = AzureWFIdentifiableSunstoneResourceUtils.resolveOnlineManagementClient(resourceIdentification, wildFly, store);
+             SunstoneEvents.Recording event = SunstoneEvents.wildFlyDeployment("undeploy", deploymentName, resourceIdentification.identification.toString())) {
             client.apply(new Undeploy.Builder(deploymentName).build());
+            event.success();
         } catch (CommandFailedException e) {
             throw new RuntimeException(e);
         } catch (IOException e) {
@@ -114,6 +125,19 @@ public class AzureWFArchiveDeployer implements SunstoneArchiveDeployer {
         }
     }
 
+    /**
+     * Export ShrinkWrap archives to bytes ahead of time, other deployments are read when deployed.
+     */
+    @Override
+    public Object prepare(Object object) {
+        if (object instanceof Archive) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ((Archive<?>) object).as(ZipExporter.class).exportTo(bytes);
+            return new ByteArrayInputStream(bytes.toByteArray());
+        }
+        return object;
+    }
+
     @Override
     public void deploy(String deploymentName, Object object, ExtensionContext ctx) throws SunstoneException {
         AzureSunstoneStore store = AzureSunstoneStore.get(ctx);
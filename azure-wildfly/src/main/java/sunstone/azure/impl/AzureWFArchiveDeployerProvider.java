@@ -10,8 +10,10 @@ import sunstone.core.spi.SunstoneArchiveDeployerProvider;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static java.lang.String.format;
 
@@ -42,4 +44,9 @@ public class AzureWFArchiveDeployerProvider implements SunstoneArchiveDeployerPr
         }
         return Optional.empty();
     }
+
+    @Override
+    public Set<Class<? extends Annotation>> getHandledAnnotations() {
+        return Collections.singleton(AzureResourceIdentificationAnnotation.class);
+    }
 }
@@ -9,8 +9,10 @@ import sunstone.core.spi.SunstoneResourceInjectorProvider;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static java.lang.String.format;
 
@@ -21,6 +23,11 @@ import static java.lang.String.format;
 public class AzureWFSunstoneResourceInjectorProvider implements SunstoneResourceInjectorProvider {
     @Override
     public Optional<SunstoneResourceInjector> create(Field field) {
+        return create(field, field.getType());
+    }
+
+    @Override
+    public Optional<SunstoneResourceInjector> create(Field field, Class<?> type) {
         Annotation[] fieldAnnotations = field.getAnnotations();
         List<Annotation> resourceIdentifications = AnnotationUtils.findAnnotationsAnnotatedBy(fieldAnnotations, AzureResourceIdentificationAnnotation.class);
         if (resourceIdentifications.isEmpty()) {
@@ -28,7 +35,7 @@ public class AzureWFSunstoneResourceInjectorProvider implements SunstoneResource
         }
         Optional<WildFly> wildFly = AnnotationUtils.getAnnotation(fieldAnnotations, WildFly.class);
         AzureWFIdentifiableSunstoneResource.Identification identification = new AzureWFIdentifiableSunstoneResource.Identification(resourceIdentifications.get(0));
-        if (identification.type != AzureWFIdentifiableSunstoneResource.UNSUPPORTED && identification.type.isTypeSupportedForInject(field.getType())) {
+        if (identification.type != AzureWFIdentifiableSunstoneResource.UNSUPPORTED && identification.type.isTypeSupportedForInject(type)) {
 
             if (resourceIdentifications.size() > 1) {
                 AzureWFLogger.DEFAULT.warn(format("Injected field %s is supposed to be annotated only by one annotation identifying a cloud resource. %s is accepted.", field, resourceIdentifications.get(0).toString()));
@@ -39,9 +46,14 @@ public class AzureWFSunstoneResourceInjectorProvider implements SunstoneResource
             if (!wildFly.isPresent()) {
                 AzureWFLogger.DEFAULT.info(format("%s is missing %s annotation, sunstone azure-wildfly is going with standalone defaults", field, WildFly.class));
             }
-            return Optional.of(new AzureWFSunstoneResourceInjector(identification, wildFly.orElse(new WildFly.WildFlyDefault()), field.getType()));
+            return Optional.of(new AzureWFSunstoneResourceInjector(identification, wildFly.orElse(new WildFly.WildFlyDefault()), type));
         } else {
             return Optional.empty();
         }
     }
+
+    @Override
+    public Set<Class<? extends Annotation>> getHandledAnnotations() {
+        return Collections.singleton(AzureResourceIdentificationAnnotation.class);
+    }
 }
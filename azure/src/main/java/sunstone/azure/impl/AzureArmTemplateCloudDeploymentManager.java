@@ -8,11 +8,15 @@ import com.azure.resourcemanager.AzureResourceManager;
 import com.azure.resourcemanager.resources.fluentcore.model.Accepted;
 import com.azure.resourcemanager.resources.models.Deployment;
 import com.azure.resourcemanager.resources.models.DeploymentMode;
+import com.azure.resourcemanager.resources.models.ResourceGroup;
 import com.azure.resourcemanager.resources.models.ResourceGroups;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import org.slf4j.Logger;
+import sunstone.core.KeepAliveJournal;
+import sunstone.core.SunstoneEvents;
+import sunstone.core.SunstoneTimings;
 import sunstone.core.TimeoutUtils;
 
 import java.io.IOException;
@@ -23,6 +27,8 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static sunstone.core.SunstoneConfigResolver.getValue;
 
@@ -39,6 +45,10 @@ class AzureArmTemplateCloudDeploymentManager {
 
     private final AzureResourceManager armManager;
     private final Set<String> usedRG;
+    // several templates may share a group (also templates of test classes running concurrently), the group is created
+    // and deleted under its lock and deleted once the last template deployed to it in this JVM is undeployed
+    private static final ConcurrentMap<String, Object> groupLocks = new ConcurrentHashMap<>();
+    private static final Map<String, Integer> groupUsers = new ConcurrentHashMap<>();
 
     AzureArmTemplateCloudDeploymentManager(AzureResourceManager arm) {
         armManager = arm;
@@ -53,50 +63,139 @@ class AzureArmTemplateCloudDeploymentManager {
      * Returns resource group name as resources are supposed to share the lifecycle
      */
     void deploy(String template, Map<String, String> parameters, String group, String regionStr) throws IOException {
+        deploy(template, parameters, group, regionStr, Collections.emptyMap());
+    }
+
+    void deploy(String template, Map<String, String> parameters, String group, String regionStr, Map<String, String> tags) throws IOException {
         String deploymentName = "SunstoneDeployment-" + UUID.randomUUID().toString().substring(0, 5);
+        try (SunstoneTimings.Phase phase = SunstoneTimings.start("template-provisioning", group, SunstoneEvents.cloudTemplate("azure", "deploy", group))) {
+            deploy(template, parameters, group, regionStr, tags, deploymentName);
+            phase.success();
+        }
+    }
+
+    private void deploy(String template, Map<String, String> parameters, String group, String regionStr, Map<String, String> tags, String deploymentName) throws IOException {
         Region region = Region.fromName(regionStr);
         if (region == null) {
             throw new IllegalArgumentException("Unknown region " + regionStr);
         }
 
-        if (!armManager.resourceGroups().contain(group)) {
-            armManager.resourceGroups().define(group)
-                    .withRegion(region)
-                    .create();
-        } else {
-            LOGGER.warn("Azure resource group '{}' already exists! It will be reused and deleted when tests are finished.", group);
+        synchronized (groupLocks.computeIfAbsent(group, k -> new Object())) {
+            if (!armManager.resourceGroups().contain(group)) {
+                armManager.resourceGroups().define(group)
+                        .withRegion(region)
+                        .withTags(tags)
+                        .create();
+            } else {
+                if (!groupUsers.containsKey(group)) {
+                    LOGGER.warn("Azure resource group '{}' already exists! It will be reused and deleted when tests are finished.", group);
+                }
+                if (!tags.isEmpty()) {
+                    armManager.resourceGroups().getByName(group).update().withTags(tags).apply();
+                }
+            }
+            groupUsers.merge(group, 1, Integer::sum);
         }
 
-        //.create() doesn't allow status check and fails
-        Accepted<Deployment> acceptedDeployment = armManager.deployments().define(deploymentName)
-                .withExistingResourceGroup(group)
-                .withTemplate(template)
-                .withParameters(parametersFromMap(template, parameters))
-                .withMode(DeploymentMode.INCREMENTAL)
-                .beginCreate();
-
-        // polling wait
-        final Duration pollInterval = Duration.ofSeconds(TimeoutUtils.adjust(getValue(AzureConfig.DEPLOY_POLL_WAIT, 1)));
-        LongRunningOperationStatus pollStatus = acceptedDeployment.getActivationResponse().getStatus();
-        long delayInMills = pollInterval.toMillis();
-        while (!pollStatus.isComplete()) {
+        try {
+            //.create() doesn't allow status check and fails
+            Accepted<Deployment> acceptedDeployment = armManager.deployments().define(deploymentName)
+                    .withExistingResourceGroup(group)
+                    .withTemplate(template)
+                    .withParameters(parametersFromMap(template, parameters))
+                    .withMode(DeploymentMode.INCREMENTAL)
+                    .beginCreate();
+
+            // polling wait
+            final Duration pollInterval = Duration.ofSeconds(TimeoutUtils.adjust(getValue(AzureConfig.DEPLOY_POLL_WAIT, 1)));
+            LongRunningOperationStatus pollStatus = acceptedDeployment.getActivationResponse().getStatus();
+            long delayInMills = pollInterval.toMillis();
+            try (SunstoneTimings.Phase polling = SunstoneTimings.start("provisioning-polling", group)) {
+                while (!pollStatus.isComplete()) {
+                    try (SunstoneEvents.Recording poll = SunstoneEvents.deploymentPoll(group, deploymentName)) {
+                        try {
+                            Thread.sleep(delayInMills);
+                        } catch (InterruptedException e) {
+                            throw new RuntimeException(e);
+                        }
+
+                        PollResponse<?> pollResponse = acceptedDeployment.getSyncPoller().poll();
+                        pollStatus = pollResponse.getStatus();
+                        poll.success();
+                    }
+                }
+                polling.success();
+            }
+            if (pollStatus != LongRunningOperationStatus.SUCCESSFULLY_COMPLETED) {
+                LOGGER.error("Azure deployment from template {} in \"{}\" group failed", deploymentName, group);
+                AzureUtils.downloadResourceGroupLogs(armManager, group);
+                throw new RuntimeException("Deployment failed for group:" + group);
+            }
+        } catch (Exception e) {
+            // the template doesn't use the group anymore, the group is deleted unless another template uses it
             try {
-                Thread.sleep(delayInMills);
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
+                undeploy(group);
+            } catch (RuntimeException undeployException) {
+                e.addSuppressed(undeployException);
             }
+            throw e;
+        }
 
-            PollResponse<?> pollResponse = acceptedDeployment.getSyncPoller().poll();
-            pollStatus = pollResponse.getStatus();
+        LOGGER.debug("Azure deployment from template {} in \"{}\" group is ready", deploymentName, group);
+    }
+
+    /**
+     * Keep-alive mode ({@link KeepAliveJournal}): reuse the group recorded for the key if it is still healthy, deploy the
+     * template to a tagged group otherwise. The group is {@link KeepAliveJournal#hold(String) held} until the suite level
+     * deployment is undeployed. Also starts reaping of expired groups.
+     */
+    void deployOrReuse(String key, String template, Map<String, String> parameters, String group, String region) throws IOException {
+        KeepAliveJournal.startReaper("azure-", entry -> new AzureArmTemplateCloudDeploymentManager(AzureUtils.getResourceManager()).deleteUnused(entry.handle));
+        // refreshed right away so that a reaper of another JVM doesn't delete the group while it is checked
+        if (KeepAliveJournal.claim(key).isPresent()) {
+            if (isHealthy(group, key)) {
+                LOGGER.info("Reusing resource group {} kept alive by a previous run", group);
+                synchronized (groupLocks.computeIfAbsent(group, k -> new Object())) {
+                    groupUsers.merge(group, 1, Integer::sum);
+                }
+                KeepAliveJournal.hold(key);
+                return;
+            }
+            LOGGER.warn("Resource group {} kept alive by a previous run is not healthy, deploying again", group);
+            KeepAliveJournal.remove(key);
         }
-        if (pollStatus != LongRunningOperationStatus.SUCCESSFULLY_COMPLETED) {
-            LOGGER.error("Azure deployment from template {} in \"{}\" group failed", deploymentName, group);
-            AzureUtils.downloadResourceGroupLogs(armManager, group);
-            undeploy(group);
-            throw new RuntimeException("Deployment failed for group:" + group);
+        Map<String, String> tags = new HashMap<>();
+        tags.put(KeepAliveJournal.HASH_TAG, key);
+        tags.put(KeepAliveJournal.TTL_TAG, Long.toString(KeepAliveJournal.getTtl().toMinutes()));
+        deploy(template, parameters, group, region, tags);
+        KeepAliveJournal.put(key, group, region);
+        KeepAliveJournal.hold(key);
+    }
+
+    /**
+     * Delete the expired group unless a template in this JVM still uses it.
+     *
+     * @return false if the group is used and was not deleted
+     */
+    boolean deleteUnused(String group) {
+        synchronized (groupLocks.computeIfAbsent(group, k -> new Object())) {
+            if (groupUsers.containsKey(group)) {
+                return false;
+            }
+            ResourceGroups rgs = armManager.resourceGroups();
+            if (rgs.contain(group)) {
+                rgs.deleteByName(group);
+            }
+            return true;
         }
+    }
 
-        LOGGER.debug("Azure deployment from template {} in \"{}\" group is ready", deploymentName, group);
+    private boolean isHealthy(String group, String key) {
+        if (!armManager.resourceGroups().contain(group)) {
+            return false;
+        }
+        ResourceGroup resourceGroup = armManager.resourceGroups().getByName(group);
+        return "Succeeded".equals(resourceGroup.provisioningState()) && key.equals(resourceGroup.tags().get(KeepAliveJournal.HASH_TAG));
     }
 
     private String parametersFromMap(String template, Map<String, String> parameters) {
@@ -134,11 +233,31 @@ class AzureArmTemplateCloudDeploymentManager {
     }
 
     public void undeploy(String rgName) {
-        ResourceGroups rgs = armManager.resourceGroups();
-        if (rgs.contain(rgName)) {
-            rgs.deleteByName(rgName);
+        synchronized (groupLocks.computeIfAbsent(rgName, k -> new Object())) {
+            if (groupUsers.computeIfPresent(rgName, (k, users) -> users > 1 ? users - 1 : null) != null) {
+                LOGGER.debug("Azure resource group '{}' is still used by other deployments", rgName);
+                usedRG.remove(rgName);
+                return;
+            }
+            try (SunstoneTimings.Phase phase = SunstoneTimings.start("template-teardown", rgName, SunstoneEvents.cloudTemplate("azure", "undeploy", rgName))) {
+                ResourceGroups rgs = armManager.resourceGroups();
+                if (rgs.contain(rgName)) {
+                    rgs.deleteByName(rgName);
+                }
+                usedRG.remove(rgName);
+                phase.success();
+            }
+        }
+    }
+
+    /**
+     * Stop using the group without deleting it, i.e. the group is kept alive. Other templates deployed to the group
+     * still don't delete it until their last undeploy.
+     */
+    void release(String group) {
+        synchronized (groupLocks.computeIfAbsent(group, k -> new Object())) {
+            groupUsers.computeIfPresent(group, (k, users) -> users > 1 ? users - 1 : null);
         }
-        usedRG.remove(rgName);
     }
 
     public void deployAndRegister(String group, String region, String templateContent, Map<String, String> parameters) throws IOException {
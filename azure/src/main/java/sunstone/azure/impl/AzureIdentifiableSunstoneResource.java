@@ -13,6 +13,7 @@ import sunstone.azure.annotation.AzurePgSqlServer;
 import sunstone.azure.annotation.AzureVirtualMachine;
 import sunstone.azure.annotation.AzureWebApplication;
 import sunstone.core.SunstoneConfigResolver;
+import sunstone.core.SunstoneEvents;
 import sunstone.core.exceptions.IllegalArgumentSunstoneException;
 import sunstone.core.exceptions.SunstoneCloudResourceException;
 import sunstone.core.exceptions.SunstoneException;
@@ -80,7 +81,8 @@ enum AzureIdentifiableSunstoneResource {
             AzureVirtualMachine vm = (AzureVirtualMachine) injectionAnnotation;
             String vmName = SunstoneConfigResolver.resolveExpressionToString(vm.name());
             String vmGroup = SunstoneConfigResolver.resolveExpressionToString(vm.group());
-            Optional<VirtualMachine> azureVM = AzureUtils.findAzureVM(store.getAzureArmClientOrCreate(), vmName, vmGroup);
+            Optional<VirtualMachine> azureVM = store.getCachedResource("azure", "VirtualMachine", vmName, vmGroup,
+                    () -> AzureUtils.findAzureVM(store.getAzureArmClientOrCreate(), vmName, vmGroup));
             return clazz.cast(azureVM.orElseThrow(() -> new SunstoneCloudResourceException(format("Unable to find '%s' Azure VM in '%s' resource group.", vmName, vmGroup))));
         }
     },
@@ -108,7 +110,8 @@ enum AzureIdentifiableSunstoneResource {
             AzureWebApplication webApp = (AzureWebApplication) injectionAnnotation;
             String appName = SunstoneConfigResolver.resolveExpressionToString(webApp.name());
             String appGroup = SunstoneConfigResolver.resolveExpressionToString(webApp.group());
-            Optional<WebApp> azureWebApp = AzureUtils.findAzureWebApp(store.getAzureArmClientOrCreate(), appName, appGroup);
+            Optional<WebApp> azureWebApp = store.getCachedResource("azure", "WebApp", appName, appGroup,
+                    () -> AzureUtils.findAzureWebApp(store.getAzureArmClientOrCreate(), appName, appGroup));
             return clazz.cast(azureWebApp.orElseThrow(() -> new SunstoneCloudResourceException(format("Unable to find '%s' Azure Web App in '%s' resource group.", appName, appGroup))));
         }
     },
@@ -135,7 +138,8 @@ enum AzureIdentifiableSunstoneResource {
             AzureAppServicePlan plan = (AzureAppServicePlan) injectionAnnotation;
             String planName = SunstoneConfigResolver.resolveExpressionToString(plan.name());
             String planGroup = SunstoneConfigResolver.resolveExpressionToString(plan.group());
-            Optional<AppServicePlan> azureWebApp = AzureUtils.findAzureAppServicePlan(store.getAzureArmClientOrCreate(), planName, planGroup);
+            Optional<AppServicePlan> azureWebApp = store.getCachedResource("azure", "AppServicePlan", planName, planGroup,
+                    () -> AzureUtils.findAzureAppServicePlan(store.getAzureArmClientOrCreate(), planName, planGroup));
             return clazz.cast(azureWebApp.orElseThrow(() -> new SunstoneCloudResourceException(format("Unable to find '%s' Azure App Service plan in '%s' resource group.", planName, planGroup))));
         }
     },
@@ -161,7 +165,8 @@ enum AzureIdentifiableSunstoneResource {
             AzurePgSqlServer pgsqlServer = (AzurePgSqlServer) injectionAnnotation;
             String serverName = SunstoneConfigResolver.resolveExpressionToString(pgsqlServer.name());
             String serverGroup = SunstoneConfigResolver.resolveExpressionToString(pgsqlServer.group());
-            Optional<Server> azureWebApp = AzureUtils.findAzurePgSqlServer(store.getAzurePgSqlManagerOrCreate(), serverName, serverGroup);
+            Optional<Server> azureWebApp = store.getCachedResource("azure", "Server", serverName, serverGroup,
+                    () -> AzureUtils.findAzurePgSqlServer(store.getAzurePgSqlManagerOrCreate(), serverName, serverGroup));
             return clazz.cast(azureWebApp.orElseThrow(() -> new SunstoneCloudResourceException(format("Unable to find '%s' Azure PostgreSql Server in '%s' resource group.", serverName, serverGroup))));
         }
     };
@@ -217,10 +222,14 @@ enum AzureIdentifiableSunstoneResource {
             this.identification = annotation;
         }
         <T> T get(AzureSunstoneStore store, Class<T> clazz) throws SunstoneException {
-            return type.get(identification, store, clazz);
+            try (SunstoneEvents.Recording event = SunstoneEvents.resourceLookup("azure", type.name(), identification.toString())) {
+                T resource = type.get(identification, store, clazz);
+                event.success();
+                return resource;
+            }
         }
         Object get(AzureSunstoneStore store) throws SunstoneException {
-            return type.get(identification, store, Object.class);
+            return get(store, Object.class);
         }
     }
 
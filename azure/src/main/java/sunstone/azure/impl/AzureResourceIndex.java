@@ -0,0 +1,59 @@
+package sunstone.azure.impl;
+
+
+import com.azure.resourcemanager.AzureResourceManager;
+import com.azure.resourcemanager.appservice.models.AppServicePlan;
+import com.azure.resourcemanager.compute.models.VirtualMachine;
+import com.azure.resourcemanager.postgresqlflexibleserver.PostgreSqlManager;
+import com.azure.resourcemanager.postgresqlflexibleserver.models.Server;
+import com.azure.resourcemanager.resources.models.GenericResource;
+import sunstone.core.ResourceCache;
+import sunstone.core.SunstoneTimings;
+
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Indexes resources of a freshly deployed resource group into {@link ResourceCache}, so that injection and archive
+ * deploy don't have to look them up by name one by one.
+ * <p>
+ * The group is listed once and only resource types present in it are listed with their typed API. Web apps are not
+ * indexed, as the listing provides only their basic view. Indexing is best effort - resources that are not indexed
+ * are looked up as usual.
+ */
+class AzureResourceIndex {
+    private static final String VIRTUAL_MACHINES = "microsoft.compute/virtualmachines";
+    private static final String APP_SERVICE_PLANS = "microsoft.web/serverfarms";
+    private static final String PGSQL_SERVERS = "microsoft.dbforpostgresql/flexibleservers";
+
+    static void index(AzureResourceManager arm, Supplier<PostgreSqlManager> pgsqlManager, String group, ResourceCache cache) {
+        if (!ResourceCache.isEnabled()) {
+            return;
+        }
+        try (SunstoneTimings.Phase phase = SunstoneTimings.start("resource-index", group)) {
+            Set<String> types = arm.genericResources().listByResourceGroup(group).stream()
+                    .map(GenericResource::type)
+                    .map(String::toLowerCase)
+                    .collect(Collectors.toSet());
+            if (types.contains(VIRTUAL_MACHINES)) {
+                for (VirtualMachine vm : arm.virtualMachines().listByResourceGroup(group)) {
+                    cache.put("azure", "VirtualMachine", vm.name(), group, vm);
+                }
+            }
+            if (types.contains(APP_SERVICE_PLANS)) {
+                for (AppServicePlan plan : arm.appServicePlans().listByResourceGroup(group)) {
+                    cache.put("azure", "AppServicePlan", plan.name(), group, plan);
+                }
+            }
+            if (types.contains(PGSQL_SERVERS)) {
+                for (Server server : pgsqlManager.get().servers().listByResourceGroup(group)) {
+                    cache.put("azure", "Server", server.name(), group, server);
+                }
+            }
+            phase.success();
+        } catch (RuntimeException e) {
+            AzureLogger.DEFAULT.debug("Unable to index resources of group {}, they will be looked up one by one", group, e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package sunstone.azure.impl;
+
+
+import com.azure.resourcemanager.AzureResourceManager;
+import sunstone.core.KeepAliveJournal;
+import sunstone.core.api.SuiteLevelDeployment;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * {@code perSuite} ARM template deployed to a resource group. Uses its own resource manager so that it may be deployed
+ * ahead of time, independently on a test class. In the keep-alive mode, the group is reused by later runs.
+ */
+class AzureSuiteLevelDeployment implements SuiteLevelDeployment {
+    private final String key;
+    private final int order;
+    private final String content;
+    private final Map<String, String> parameters;
+    private final String group;
+    private final String region;
+
+    AzureSuiteLevelDeployment(String key, int order, String content, Map<String, String> parameters, String group, String region) {
+        this.key = key;
+        this.order = order;
+        this.content = content;
+        this.parameters = parameters;
+        this.group = group;
+        this.region = region;
+    }
+
+    @Override
+    public String getKey() {
+        return key;
+    }
+
+    @Override
+    public int getOrder() {
+        return order;
+    }
+
+    @Override
+    public String deploy() throws IOException {
+        AzureResourceManager arm = AzureUtils.getResourceManager();
+        AzureArmTemplateCloudDeploymentManager manager = new AzureArmTemplateCloudDeploymentManager(arm);
+        if (KeepAliveJournal.isEnabled()) {
+            manager.deployOrReuse(key, content, parameters, group, region);
+        } else {
+            manager.deploy(content, parameters, group, region);
+        }
+        return group;
+    }
+
+    @Override
+    public void undeploy(String group) {
+        if (KeepAliveJournal.isEnabled()) {
+            KeepAliveJournal.put(key, group, region);
+            KeepAliveJournal.release(key);
+            new AzureArmTemplateCloudDeploymentManager(AzureUtils.getResourceManager()).release(group);
+            AzureLogger.DEFAULT.info("Resource group {} is kept alive for {} minutes", group, KeepAliveJournal.getTtl().toMinutes());
+            return;
+        }
+        new AzureArmTemplateCloudDeploymentManager(AzureUtils.getResourceManager()).undeploy(group);
+    }
+}
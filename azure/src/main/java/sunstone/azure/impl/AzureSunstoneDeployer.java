@@ -7,11 +7,17 @@ import sunstone.azure.annotation.WithAzureArmTemplateRepeatable;
 import sunstone.core.AbstractSunstoneCloudDeployer;
 import sunstone.core.SunstoneConfigResolver;
 import sunstone.core.SunstoneExtension;
+import sunstone.core.api.SuiteLevelDeployment;
 import sunstone.core.exceptions.IllegalArgumentSunstoneException;
 import sunstone.core.exceptions.SunstoneException;
 
 import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 
 import static java.lang.String.format;
@@ -40,40 +46,96 @@ public class AzureSunstoneDeployer extends AbstractSunstoneCloudDeployer {
         if (WithAzureArmTemplate.class.isAssignableFrom(annotation.annotationType())) {
             deployArmTemplate((WithAzureArmTemplate) annotation, store);
         } else if (WithAzureArmTemplateRepeatable.class.isAssignableFrom(annotation.annotationType())) {
-            for (WithAzureArmTemplate withAzureArmTemplate : ((WithAzureArmTemplateRepeatable) annotation).value()) {
+            WithAzureArmTemplate[] templates = ((WithAzureArmTemplateRepeatable) annotation).value().clone();
+            Arrays.sort(templates, Comparator.comparingInt(WithAzureArmTemplate::order));
+            for (WithAzureArmTemplate withAzureArmTemplate : templates) {
                 deployArmTemplate(withAzureArmTemplate, store);
             }
         }
     }
 
-    private void deployArmTemplate(WithAzureArmTemplate armTemplateDefinition, AzureSunstoneStore store) throws SunstoneException {
-        AzureArmTemplateCloudDeploymentManager deploymentManager = store.getAzureArmTemplateDeploymentManagerOrCreate();
+    @Override
+    public int getOrder() {
+        if (WithAzureArmTemplate.class.isAssignableFrom(annotation.annotationType())) {
+            return ((WithAzureArmTemplate) annotation).order();
+        } else if (WithAzureArmTemplateRepeatable.class.isAssignableFrom(annotation.annotationType())) {
+            return Arrays.stream(((WithAzureArmTemplateRepeatable) annotation).value()).mapToInt(WithAzureArmTemplate::order).min().orElse(0);
+        }
+        return 0;
+    }
 
-        String content = null;
-        try {
-            content = getResourceContent(SunstoneConfigResolver.resolveExpressionToString(armTemplateDefinition.template()));
-            String group = SunstoneConfigResolver.resolveExpressionToString(armTemplateDefinition.group());
-            if (group == null) {
-                throw new IllegalArgumentSunstoneException("Resource group for Azure ARM template is not defined. "
-                        + "It must be specified either in the annotation or as Sunstone Config property.");
-            }
-            String region = SunstoneConfigResolver.resolveExpressionToString(armTemplateDefinition.region());
-            if (region == null) {
-                throw new IllegalArgumentSunstoneException("Region for Azure ARM template is not defined. It must be specified either "
-                        + "in the annotation or as Sunstone Config property.");
+    @Override
+    public List<SuiteLevelDeployment> getSuiteLevelDeployments() {
+        if (!AzureUtils.propertiesForArmClientArePresent()) {
+            return Collections.emptyList();
+        }
+        List<SuiteLevelDeployment> deployments = new ArrayList<>();
+        for (WithAzureArmTemplate template : getTemplates()) {
+            if (template.perSuite()) {
+                try {
+                    deployments.add(suiteLevelDeployment(template));
+                } catch (IOException | SunstoneException e) {
+                    AzureLogger.DEFAULT.debug("Unable to prepare {} for deploying ahead of time", template, e);
+                }
             }
+        }
+        return deployments;
+    }
 
-            Map<String, String> parameters = getParameters(armTemplateDefinition.parameters());
+    private WithAzureArmTemplate[] getTemplates() {
+        if (WithAzureArmTemplate.class.isAssignableFrom(annotation.annotationType())) {
+            return new WithAzureArmTemplate[] {(WithAzureArmTemplate) annotation};
+        } else if (WithAzureArmTemplateRepeatable.class.isAssignableFrom(annotation.annotationType())) {
+            return ((WithAzureArmTemplateRepeatable) annotation).value();
+        }
+        return new WithAzureArmTemplate[0];
+    }
 
-            if (!armTemplateDefinition.perSuite() || !store.suiteLevelDeploymentExists(armTemplateDefinition)) {
-                deploymentManager.deployAndRegister(group, region, content, parameters);
-                if (armTemplateDefinition.perSuite()) {
-                    store.addSuiteLevelClosable(() -> deploymentManager.undeploy(group));
-                    store.addSuiteLevelDeployment(annotation);
-                } else {
-                    store.addClosable(() -> deploymentManager.undeploy(group));
-                }
+    private static AzureSuiteLevelDeployment suiteLevelDeployment(WithAzureArmTemplate armTemplateDefinition) throws IOException, SunstoneException {
+        String content = getResourceContent(SunstoneConfigResolver.resolveExpressionToString(armTemplateDefinition.template()));
+        Map<String, String> parameters = getParameters(armTemplateDefinition.parameters());
+        String group = getGroup(armTemplateDefinition);
+        String region = getRegion(armTemplateDefinition);
+        return new AzureSuiteLevelDeployment(suiteLevelDeploymentKey("azure", content, parameters, region, group), armTemplateDefinition.order(), content, parameters, group, region);
+    }
+
+    private static String getGroup(WithAzureArmTemplate armTemplateDefinition) throws IllegalArgumentSunstoneException {
+        String group = SunstoneConfigResolver.resolveExpressionToString(armTemplateDefinition.group());
+        if (group == null) {
+            throw new IllegalArgumentSunstoneException("Resource group for Azure ARM template is not defined. "
+                    + "It must be specified either in the annotation or as Sunstone Config property.");
+        }
+        return group;
+    }
+
+    private static String getRegion(WithAzureArmTemplate armTemplateDefinition) throws IllegalArgumentSunstoneException {
+        String region = SunstoneConfigResolver.resolveExpressionToString(armTemplateDefinition.region());
+        if (region == null) {
+            throw new IllegalArgumentSunstoneException("Region for Azure ARM template is not defined. It must be specified either "
+                    + "in the annotation or as Sunstone Config property.");
+        }
+        return region;
+    }
+
+    private void deployArmTemplate(WithAzureArmTemplate armTemplateDefinition, AzureSunstoneStore store) throws SunstoneException {
+        try {
+            if (armTemplateDefinition.perSuite()) {
+                store.deploySuiteLevel(suiteLevelDeployment(armTemplateDefinition), "azure", getGroup(armTemplateDefinition),
+                        group -> AzureResourceIndex.index(store.getAzureArmClientOrCreate(), store::getAzurePgSqlManagerOrCreate, group, store.getResourceCache()));
+                return;
             }
+            AzureArmTemplateCloudDeploymentManager deploymentManager = store.getAzureArmTemplateDeploymentManagerOrCreate();
+            String content = getResourceContent(SunstoneConfigResolver.resolveExpressionToString(armTemplateDefinition.template()));
+            String group = getGroup(armTemplateDefinition);
+            String region = getRegion(armTemplateDefinition);
+            Map<String, String> parameters = getParameters(armTemplateDefinition.parameters());
+
+            deploymentManager.deployAndRegister(group, region, content, parameters);
+            store.addIndependentClosable(() -> {
+                deploymentManager.undeploy(group);
+                store.invalidateCachedResources("azure", group);
+            });
+            AzureResourceIndex.index(store.getAzureArmClientOrCreate(), store::getAzurePgSqlManagerOrCreate, group, store.getResourceCache());
         } catch (IOException e) {
             throw new SunstoneException(e);
         }
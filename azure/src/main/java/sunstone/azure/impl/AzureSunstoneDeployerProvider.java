@@ -8,7 +8,10 @@ import sunstone.core.api.SunstoneCloudDeployer;
 import sunstone.core.spi.SunstoneCloudDeployerProvider;
 
 import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
 
 public class AzureSunstoneDeployerProvider implements SunstoneCloudDeployerProvider {
     @Override
@@ -27,4 +30,9 @@ public class AzureSunstoneDeployerProvider implements SunstoneCloudDeployerProvi
         }
         return Optional.empty();
     }
+
+    @Override
+    public Set<Class<? extends Annotation>> getHandledAnnotations() {
+        return new HashSet<>(Arrays.asList(WithAzureArmTemplate.class, WithAzureArmTemplateRepeatable.class));
+    }
 }
@@ -8,8 +8,10 @@ import sunstone.core.spi.SunstoneResourceInjectorProvider;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static java.lang.String.format;
 
@@ -20,6 +22,11 @@ import static java.lang.String.format;
 public class AzureSunstoneResourceInjectorProvider implements SunstoneResourceInjectorProvider {
     @Override
     public Optional<SunstoneResourceInjector> create(Field field) {
+        return create(field, field.getType());
+    }
+
+    @Override
+    public Optional<SunstoneResourceInjector> create(Field field, Class<?> type) {
         List<Annotation> resourceIdentifications = AnnotationUtils.findAnnotationsAnnotatedBy(field.getAnnotations(), AzureResourceIdentificationAnnotation.class);
         if (resourceIdentifications.isEmpty()) {
             return Optional.empty();
@@ -28,10 +35,15 @@ public class AzureSunstoneResourceInjectorProvider implements SunstoneResourceIn
             AzureLogger.DEFAULT.warn(format("Injected field %s is supposed to be annotated only by one annotation identifying a cloud resource. %s is accepted.", field, resourceIdentifications.get(0).toString()));
         }
         AzureIdentifiableSunstoneResource.Identification identification = new AzureIdentifiableSunstoneResource.Identification(resourceIdentifications.get(0));
-        if (identification.type != AzureIdentifiableSunstoneResource.UNSUPPORTED && identification.type.isTypeSupportedForInject(field.getType())) {
-            return Optional.of(new AzureSunstoneResourceInjector(identification, field.getType()));
+        if (identification.type != AzureIdentifiableSunstoneResource.UNSUPPORTED && identification.type.isTypeSupportedForInject(type)) {
+            return Optional.of(new AzureSunstoneResourceInjector(identification, type));
         } else {
             return Optional.empty();
         }
     }
+
+    @Override
+    public Set<Class<? extends Annotation>> getHandledAnnotations() {
+        return Collections.singleton(AzureResourceIdentificationAnnotation.class);
+    }
 }
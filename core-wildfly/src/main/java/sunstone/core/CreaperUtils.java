@@ -38,7 +38,7 @@ public class CreaperUtils {
                     .protocol(ManagementProtocol.HTTP_REMOTING)
                     .connectionTimeout(timeout)
                     .bootTimeout(timeout);
-            return ManagementClient.online(clientOptions.build());
+            return connect(clientOptions, hostname, port);
         } catch (NumberFormatException e) {
             throw new IllegalArgumentSunstoneException("Port is not a number.", e);
         }
@@ -63,12 +63,20 @@ public class CreaperUtils {
                     .protocol(ManagementProtocol.HTTP_REMOTING)
                     .connectionTimeout(timeout)
                     .bootTimeout(timeout);
-            return ManagementClient.online(clientOptions.build());
+            return connect(clientOptions, hostname, port);
         } catch (NumberFormatException e) {
             throw new IllegalArgumentSunstoneException("Port is not a number.", e);
         }
     }
 
+    private static OnlineManagementClient connect(OnlineOptions.OptionalOnlineOptions clientOptions, String hostname, int port) throws IOException {
+        try (SunstoneTimings.Phase phase = SunstoneTimings.start("management-client", hostname + ":" + port, SunstoneEvents.managementClient(hostname, port))) {
+            OnlineManagementClient client = ManagementClient.online(clientOptions.build());
+            phase.success();
+            return client;
+        }
+    }
+
     public static void setDomainServers(Deploy.Builder builder, DomainMode domainMode) {
         if (domainMode == null || domainMode.serverGroups() == null) {
             throw new RuntimeException(WildFlyConfig.DOMAIN_SERVER_GROUPS + " is not set");
@@ -25,4 +25,11 @@ public @interface Deployment {
      * For example Azure App services - the way Azure platform works, it is always deployed as ROOT.war
      */
     String name() default "";
+
+    /**
+     * Archives are deployed in the ascending order. If {@code sunstone.deploy.archivesParallel} is enabled, archives
+     * with the same order targeting different resources are deployed concurrently. Archives targeting the same resource
+     * are always deployed one by one.
+     */
+    int order() default 0;
 }
@@ -0,0 +1,17 @@
+package sunstone.annotation;
+
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Inject a proxy of the field type that resolves the resource on the first method call, e.g. {@code Hostname} or
+ * {@code OnlineManagementClient}. The field type must be an interface. The resource is closed with the rest of injected
+ * resources only if it was resolved.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface LazyProxy {
+}
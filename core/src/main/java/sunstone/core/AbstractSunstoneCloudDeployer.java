@@ -7,10 +7,14 @@ import sunstone.core.api.SunstoneCloudDeployer;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
 import static sunstone.core.SunstoneConfigResolver.resolveExpression;
 import static sunstone.core.SunstoneConfigResolver.resolveOptionalExpression;
@@ -32,6 +36,42 @@ public abstract class AbstractSunstoneCloudDeployer implements SunstoneCloudDepl
         return Collections.unmodifiableMap(parametersMap);
     }
 
+    /**
+     * Canonical key of a suite level deployment - SHA-256 of the resolved template content, parameters (in any order),
+     * region and group. Semantically identical template declarations have the same key and share one environment.
+     *
+     * @param provider cloud provider, e.g. {@code aws}
+     * @param group resource group or {@code null} if not applicable
+     */
+    protected static String suiteLevelDeploymentKey(String provider, String content, Map<String, String> parameters, String region, String group) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        update(digest, provider);
+        update(digest, content.replace("\r\n", "\n").trim());
+        for (Map.Entry<String, String> parameter : new TreeMap<>(parameters).entrySet()) {
+            update(digest, parameter.getKey());
+            update(digest, parameter.getValue());
+        }
+        update(digest, region);
+        update(digest, group);
+        StringBuilder key = new StringBuilder(provider).append('-');
+        for (byte b : digest.digest()) {
+            key.append(String.format("%02x", b));
+        }
+        return key.toString();
+    }
+
+    // length prefixed so that different values can't produce the same input
+    private static void update(MessageDigest digest, String value) {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(4).putInt(value == null ? -1 : bytes.length).array());
+        digest.update(bytes);
+    }
+
     protected static String getResourceContent(String resource) throws IOException {
         ByteArrayOutputStream result;
         try (InputStream is = AbstractSunstoneCloudDeployer.class.getClassLoader().getResourceAsStream(resource)) {
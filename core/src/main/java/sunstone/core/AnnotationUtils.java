@@ -2,8 +2,12 @@ package sunstone.core;
 
 
 import java.lang.annotation.Annotation;
+import java.lang.annotation.Repeatable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
@@ -37,6 +41,29 @@ public class AnnotationUtils {
                 .findAny();
     }
 
+    /**
+     * If the annotation is a container of a {@link Repeatable} annotation, returns contained annotations.
+     * Otherwise, returns the annotation itself.
+     */
+    public static List<Annotation> unwrapRepeatable(Annotation annotation) {
+        try {
+            Method value = annotation.annotationType().getDeclaredMethod("value");
+            Class<?> componentType = value.getReturnType().getComponentType();
+            if (componentType != null && componentType.isAnnotation()) {
+                Repeatable repeatable = componentType.getAnnotation(Repeatable.class);
+                if (repeatable != null && repeatable.value() == annotation.annotationType()) {
+                    value.setAccessible(true);
+                    return Arrays.asList((Annotation[]) value.invoke(annotation));
+                }
+            }
+        } catch (NoSuchMethodException e) {
+            // not a container
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Unable to read repeatable annotations from " + annotation, e);
+        }
+        return Collections.singletonList(annotation);
+    }
+
     @SuppressWarnings("unchecked")
     private static <A extends Annotation> A findAnnotation(Class<?> clazz, Class<A> annotationType, Set<Annotation> visited) {
         Annotation[] anns = clazz.getDeclaredAnnotations();
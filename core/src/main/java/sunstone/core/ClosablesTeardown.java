@@ -0,0 +1,87 @@
+package sunstone.core;
+
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+
+/**
+ * Closes the closables stack registered in {@link SunstoneStore}.
+ * <p>
+ * Closables are closed in LIFO order, i.e. resources are cleaned before the resources they were created on (archive is
+ * undeployed before the stack hosting the server is deleted). Only adjacent closables registered as independent
+ * (see {@link SunstoneStore#addIndependentClosable(AutoCloseable)}) may be closed concurrently if
+ * {@link CoreConfig#TEARDOWN_PARALLEL} is enabled. Any other closable is a barrier that waits for everything above it
+ * in the stack.
+ * <p>
+ * A failure does not stop the teardown. All closables are closed and the failures are aggregated - the first one
+ * is the cause, the others are suppressed.
+ */
+class ClosablesTeardown {
+
+    /**
+     * Marks a closable that does not depend on its neighbours in the stack.
+     */
+    static class IndependentClosable implements Closeable {
+        private final AutoCloseable closable;
+
+        IndependentClosable(AutoCloseable closable) {
+            this.closable = closable;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                closable.close();
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    static void closeAll(Deque<Closeable> closables, String description) {
+        boolean parallel = SunstoneConfigResolver.getValue(CoreConfig.TEARDOWN_PARALLEL, false);
+        int threads = SunstoneConfigResolver.getValue(CoreConfig.TEARDOWN_THREADS, 4);
+        List<Throwable> failures = new ArrayList<>();
+
+        Closeable closable;
+        while ((closable = closables.pollFirst()) != null) {
+            if (!parallel || !(closable instanceof IndependentClosable) || !(closables.peekFirst() instanceof IndependentClosable)) {
+                close(closable, failures);
+                continue;
+            }
+            List<Closeable> batch = new ArrayList<>();
+            batch.add(closable);
+            while (closables.peekFirst() instanceof IndependentClosable) {
+                batch.add(closables.pollFirst());
+            }
+            SunstoneLogger.DEFAULT.debug("Closing {} independent resources of {} concurrently", batch.size(), description);
+            List<Callable<Void>> tasks = batch.stream()
+                    .map(c -> (Callable<Void>) () -> {
+                        c.close();
+                        return null;
+                    })
+                    .collect(Collectors.toList());
+            failures.addAll(ConcurrencyUtils.invokeAll("sunstone-teardown", threads, tasks));
+        }
+
+        RuntimeException failure = ConcurrencyUtils.aggregate("Unable to clean up resources of " + description, failures);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static void close(Closeable closable, List<Throwable> failures) {
+        try {
+            closable.close();
+        } catch (Throwable t) {
+            failures.add(t);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package sunstone.core;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Helpers for running independent Sunstone operations (cloud deployments, ...) concurrently.
+ * <p>
+ * Every call uses its own bounded pool of daemon threads that is shut down once all the tasks are done. Pools are not
+ * shared so a task may use the helper again without a risk of starving the pool it runs in.
+ */
+public class ConcurrencyUtils {
+
+    /**
+     * Run all the tasks on a pool of at most {@code threads} threads and wait for all of them.
+     * <p>
+     * A failure of a task does not stop other tasks. Failures are collected and returned in the order of the tasks.
+     *
+     * @return failures of the tasks, empty if all tasks succeeded
+     */
+    public static List<Throwable> invokeAll(String threadNamePrefix, int threads, List<? extends Callable<?>> tasks) {
+        if (tasks.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Throwable> failures = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, tasks.size())), new DaemonThreadFactory(threadNamePrefix));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Callable<?> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            boolean interrupted = false;
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    failures.add(e.getCause() != null ? e.getCause() : e);
+                } catch (InterruptedException e) {
+                    // the tasks are still running and may register resources for clean up, wait for them
+                    interrupted = true;
+                    try {
+                        future.get();
+                    } catch (ExecutionException ex) {
+                        failures.add(ex.getCause() != null ? ex.getCause() : ex);
+                    } catch (InterruptedException ex) {
+                        failures.add(ex);
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return failures;
+    }
+
+    /**
+     * Turns collected failures into a single exception. The first failure is the cause, the others are suppressed.
+     *
+     * @return {@code null} if there is no failure
+     */
+    public static RuntimeException aggregate(String message, List<Throwable> failures) {
+        if (failures.isEmpty()) {
+            return null;
+        }
+        RuntimeException result = new RuntimeException(message, failures.get(0));
+        for (int i = 1; i < failures.size(); i++) {
+            result.addSuppressed(failures.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Daemon threads named {@code <prefix>-<n>}, so that Sunstone threads don't keep the JVM alive.
+     */
+    public static class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+        private final String prefix;
+
+        public DaemonThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -4,4 +4,76 @@ package sunstone.core;
 public class CoreConfig {
 
     public static final String TIMEOUT_FACTOR = "sunstone.timeout.factor";
+
+    /**
+     * If true, cloud deploy annotations of a test class with the same order are deployed concurrently.
+     */
+    public static final String DEPLOY_PARALLEL = "sunstone.deploy.parallel";
+    /**
+     * Maximum number of cloud deployments of a test class running at the same time.
+     */
+    public static final String DEPLOY_THREADS = "sunstone.deploy.threads";
+
+    /**
+     * Number of distinct suite level deployments (e.g. {@code perSuite} templates) of upcoming test classes that are
+     * deployed in the background while earlier classes run. 0 (default) disables the look-ahead.
+     */
+    public static final String DEPLOY_LOOKAHEAD = "sunstone.deploy.lookahead";
+    /**
+     * Directory shared by JVMs running the suite (e.g. surefire forks). If set, a suite level deployment is deployed by
+     * the first JVM, the others attach to it and the last one undeploys it. Not set by default.
+     */
+    public static final String DEPLOY_SHARED_DIR = "sunstone.deploy.sharedDir";
+    /**
+     * If true, {@code @Deployment} methods are invoked and their archives prepared (exported) in the background while
+     * cloud resources are being deployed, i.e. before {@code @Setup} tasks run. False by default.
+     */
+    public static final String DEPLOY_ARCHIVES_AHEAD = "sunstone.deploy.archivesAhead";
+    /**
+     * If true, {@code @Deployment} archives with the same order targeting different resources are deployed concurrently
+     * (at most {@link #DEPLOY_THREADS} at a time).
+     */
+    public static final String DEPLOY_ARCHIVES_PARALLEL = "sunstone.deploy.archivesParallel";
+
+    /**
+     * If true, adjacent independent closables (e.g. cloud stacks) are closed concurrently. False by default.
+     */
+    public static final String TEARDOWN_PARALLEL = "sunstone.teardown.parallel";
+    /**
+     * Maximum number of independent closables being closed at the same time.
+     */
+    public static final String TEARDOWN_THREADS = "sunstone.teardown.threads";
+    /**
+     * If true, a suite level deployment is undeployed in the background as soon as the last test class of the test plan
+     * that needs it finishes, not at the end of the suite.
+     */
+    public static final String TEARDOWN_EARLY_RELEASE = "sunstone.teardown.earlyRelease";
+
+    /**
+     * Minutes a suite level deployment (e.g. {@code perSuite} template) is kept alive after tests so that the next run may
+     * reuse it. Expired environments are deleted by a later run. 0 (default) disables the keep-alive mode.
+     */
+    public static final String KEEP_ALIVE_TTL = "sunstone.keepAlive.ttl";
+    /**
+     * Journal of environments kept alive, {@code ~/.sunstone/keep-alive.properties} by default.
+     */
+    public static final String KEEP_ALIVE_JOURNAL = "sunstone.keepAlive.journal";
+
+    /**
+     * Seconds a cloud resource found for injection or archive deploy (VM, web app, ...) is cached, 0 (disabled) by
+     * default. The cache is invalidated when a cloud deployment is undeployed.
+     */
+    public static final String RESOURCE_CACHE_TTL = "sunstone.resource.cache.ttl";
+
+    /**
+     * Path of a JSON report with durations of Sunstone phases (cloud deploy, resource lookup, archive deploy, teardown,
+     * ...) per test class. Written when the test plan is finished. Not set (no report) by default.
+     */
+    public static final String TIMING_REPORT = "sunstone.timing.report";
+
+    /**
+     * If true, sunstone.properties is watched for changes and reloaded. Useful for long-running IDE sessions.
+     * It is read from system properties only.
+     */
+    public static final String PROPERTIES_RELOAD = "sunstone.properties.reload";
 }
@@ -5,8 +5,11 @@ import sunstone.annotation.SunstoneProperty;
 import sunstone.core.api.SunstoneResourceInjector;
 import sunstone.core.spi.SunstoneResourceInjectorProvider;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
+import java.util.Collections;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Used by {@link SunstoneExtension} to get {@link CoreSunstoneResourceInjector} if it can handle the annotation
@@ -15,12 +18,22 @@ import java.util.Optional;
 public class CoreSunstoneResourceInjectorProvider implements SunstoneResourceInjectorProvider {
     @Override
     public Optional<SunstoneResourceInjector> create(Field field) {
+        return create(field, field.getType());
+    }
+
+    @Override
+    public Optional<SunstoneResourceInjector> create(Field field, Class<?> type) {
         // support only selected annotations
         Optional<SunstoneProperty> propertyIdentifications = AnnotationUtils.getAnnotation(field.getAnnotations(), SunstoneProperty.class);
         if (propertyIdentifications.isPresent()) {
-            return Optional.of(new CoreSunstoneResourceInjector(propertyIdentifications.get(), field.getType()));
+            return Optional.of(new CoreSunstoneResourceInjector(propertyIdentifications.get(), type));
         } else {
             return Optional.empty();
         }
     }
+
+    @Override
+    public Set<Class<? extends Annotation>> getHandledAnnotations() {
+        return Collections.singleton(SunstoneProperty.class);
+    }
 }
@@ -0,0 +1,188 @@
+package sunstone.core;
+
+
+import sunstone.core.api.SuiteLevelDeployment;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Shares a suite level deployment among JVMs (e.g. surefire forks) using files in a shared directory
+ * ({@link CoreConfig#DEPLOY_SHARED_DIR}):
+ * <ul>
+ *     <li>{@code <key>.lock} - file lock serializing deploy and undeploy of the deployment among JVMs</li>
+ *     <li>{@code <key>.journal} - handle of the deployed environment (e.g. stack name, resource group)</li>
+ *     <li>{@code <key>.<lease>.lease} - one file per JVM using the environment, locked while the JVM uses it</li>
+ * </ul>
+ * The first JVM deploys the environment and records its handle, the others attach to it. The environment is undeployed
+ * by the last JVM that releases its lease. The OS releases file locks of a crashed JVM, so its lease is not counted.
+ */
+class CrossJvmSuiteLevelDeployment implements SuiteLevelDeployment {
+    private static final String HANDLE = "handle";
+    // a file lock is held by the JVM, threads of one JVM are serialized here
+    private static final ConcurrentMap<String, Object> jvmLocks = new ConcurrentHashMap<>();
+    // leases held by deployments of this JVM, their files can't be probed by tryLock
+    private static final Set<Path> jvmLeases = ConcurrentHashMap.newKeySet();
+
+    private final SuiteLevelDeployment delegate;
+    private final Path dir;
+    private final String lease = UUID.randomUUID().toString();
+    private FileChannel leaseChannel;
+
+    CrossJvmSuiteLevelDeployment(SuiteLevelDeployment delegate, Path dir) {
+        this.delegate = delegate;
+        this.dir = dir;
+    }
+
+    /**
+     * Wrap the deployment if {@link CoreConfig#DEPLOY_SHARED_DIR} is set.
+     */
+    static SuiteLevelDeployment wrap(SuiteLevelDeployment deployment) {
+        String dir = SunstoneConfigResolver.getValue(CoreConfig.DEPLOY_SHARED_DIR, "");
+        return dir.isEmpty() ? deployment : new CrossJvmSuiteLevelDeployment(deployment, Paths.get(dir));
+    }
+
+    @Override
+    public String getKey() {
+        return delegate.getKey();
+    }
+
+    @Override
+    public int getOrder() {
+        return delegate.getOrder();
+    }
+
+    @Override
+    public String deploy() throws Exception {
+        return locked(() -> {
+            Path journal = dir.resolve(getKey() + ".journal");
+            if (Files.exists(journal)) {
+                String handle = readHandle(journal);
+                // this deployment already holds a lease if it is deployed again, e.g. after the deploy was retried
+                if (handle != null && (leaseChannel != null || hasLiveLeases())) {
+                    SunstoneLogger.DEFAULT.debug("Suite level deployment {} is deployed by another JVM as {}, attaching", getKey(), handle);
+                    acquireLease();
+                    return handle;
+                }
+                SunstoneLogger.DEFAULT.warn("Suite level deployment {} was recorded as {} but no JVM uses it, it might have been leaked. Deploying again.", getKey(), handle);
+                Files.delete(journal);
+            }
+            String handle = delegate.deploy();
+            writeHandle(journal, handle);
+            acquireLease();
+            return handle;
+        });
+    }
+
+    @Override
+    public void undeploy(String handle) throws Exception {
+        locked(() -> {
+            releaseLease();
+            if (hasLiveLeases()) {
+                SunstoneLogger.DEFAULT.debug("Suite level deployment {} is still used by another JVM", getKey());
+                return null;
+            }
+            delegate.undeploy(handle);
+            Files.deleteIfExists(dir.resolve(getKey() + ".journal"));
+            return null;
+        });
+    }
+
+    private <T> T locked(Callable<T> action) throws Exception {
+        synchronized (jvmLocks.computeIfAbsent(getKey(), k -> new Object())) {
+            Files.createDirectories(dir);
+            try (FileChannel channel = FileChannel.open(dir.resolve(getKey() + ".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                return action.call();
+            }
+        }
+    }
+
+    private Path getLeaseFile() {
+        return dir.resolve(getKey() + "." + lease + ".lease").toAbsolutePath();
+    }
+
+    private void acquireLease() throws IOException {
+        if (leaseChannel != null) {
+            return;
+        }
+        leaseChannel = FileChannel.open(getLeaseFile(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        leaseChannel.lock();
+        jvmLeases.add(getLeaseFile());
+    }
+
+    private void releaseLease() throws IOException {
+        jvmLeases.remove(getLeaseFile());
+        if (leaseChannel != null) {
+            leaseChannel.close();
+            leaseChannel = null;
+        }
+        Files.deleteIfExists(getLeaseFile());
+    }
+
+    /**
+     * Check leases other than the own one. Leases of other deployments of this JVM are live while they are held, leases
+     * of other JVMs are live while their file is locked. Leases of dead JVMs are removed.
+     */
+    private boolean hasLiveLeases() throws IOException {
+        boolean live = false;
+        try (DirectoryStream<Path> leases = Files.newDirectoryStream(dir, getKey() + ".*.lease")) {
+            for (Path other : leases) {
+                Path otherLease = other.toAbsolutePath();
+                if (otherLease.equals(getLeaseFile())) {
+                    continue;
+                }
+                if (jvmLeases.contains(otherLease)) {
+                    live = true;
+                    continue;
+                }
+                try (FileChannel channel = FileChannel.open(otherLease, StandardOpenOption.WRITE)) {
+                    FileLock lock = channel.tryLock();
+                    if (lock == null) {
+                        live = true;
+                        continue;
+                    }
+                    lock.release();
+                } catch (OverlappingFileLockException e) {
+                    // locked by this JVM but not held by a deployment, i.e. it is being released
+                    continue;
+                }
+                SunstoneLogger.DEFAULT.debug("Removing lease {} of a JVM that is not running anymore", otherLease);
+                Files.deleteIfExists(otherLease);
+            }
+        }
+        return live;
+    }
+
+    private static String readHandle(Path journal) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(journal)) {
+            properties.load(in);
+        }
+        return properties.getProperty(HANDLE);
+    }
+
+    private void writeHandle(Path journal, String handle) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(HANDLE, handle);
+        try (OutputStream out = Files.newOutputStream(journal)) {
+            properties.store(out, "Suite level deployment " + getKey() + " deployed by " + ManagementFactory.getRuntimeMXBean().getName());
+        }
+    }
+}
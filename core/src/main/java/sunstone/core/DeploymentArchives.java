@@ -0,0 +1,247 @@
+package sunstone.core;
+
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.junit.platform.commons.support.HierarchyTraversalMode;
+import org.junit.platform.commons.util.StringUtils;
+import sunstone.annotation.Deployment;
+import sunstone.annotation.SunstoneArchiveDeployTargetAnotation;
+import sunstone.core.api.SunstoneArchiveDeployer;
+import sunstone.core.exceptions.IllegalArgumentSunstoneException;
+import sunstone.core.exceptions.SunstoneException;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static java.lang.String.format;
+
+/**
+ * {@link Deployment} methods of a test class. Archives are created (the methods are invoked) and prepared by their
+ * {@link SunstoneArchiveDeployer} first, possibly in the background while cloud resources are deployed, and deployed
+ * once the cloud resources exist.
+ * <p>
+ * Archives are deployed in the ascending {@link Deployment#order()}. If {@link CoreConfig#DEPLOY_ARCHIVES_PARALLEL} is
+ * enabled, archives with the same order are deployed concurrently, except for archives with the same target
+ * ({@link SunstoneArchiveDeployTargetAnotation target annotations} with equal resolved attributes) that are deployed
+ * one by one.
+ */
+class DeploymentArchives {
+    private final List<DeploymentArchive> archives;
+
+    private DeploymentArchives(List<DeploymentArchive> archives) {
+        this.archives = archives;
+    }
+
+    /**
+     * Check the deployment methods of the test class and start creating the archives.
+     *
+     * @param background create the archives in a background thread, otherwise they are created in this thread before the
+     *                   method returns
+     */
+    static DeploymentArchives create(ExtensionContext ctx, boolean background) throws SunstoneException {
+        List<DeploymentArchive> archives = new ArrayList<>();
+        for (Method method : AnnotationSupport.findAnnotatedMethods(ctx.getRequiredTestClass(), Deployment.class, HierarchyTraversalMode.TOP_DOWN)) {
+            if (!Modifier.isStatic(method.getModifiers())) {
+                throw new IllegalArgumentSunstoneException("Deployment method must be static");
+            }
+            if (method.getParameterCount() != 0) {
+                throw new IllegalArgumentSunstoneException("Deployment method must have 0 parameters");
+            }
+            Deployment annotation = method.getAnnotation(Deployment.class);
+            String deploymentName = StringUtils.isBlank(annotation.name()) ? "" : SunstoneConfigResolver.resolveExpressionToString(annotation.name());
+            SunstoneArchiveDeployer archiveDeployer = SunstoneExtension.getArchiveDeployer(method)
+                    .orElseThrow(() -> new SunstoneException(format("Unable to load a service via SPI that can deploy %s in %s", method.getName(), method.getDeclaringClass().getName())));
+            archives.add(new DeploymentArchive(method, deploymentName, annotation.order(), archiveDeployer));
+        }
+        if (archives.isEmpty()) {
+            return new DeploymentArchives(archives);
+        }
+
+        String testClass = ctx.getRequiredTestClass().getName();
+        ExecutorService executor = background ? Executors.newSingleThreadExecutor(new ConcurrencyUtils.DaemonThreadFactory("sunstone-archive")) : null;
+        for (DeploymentArchive archive : archives) {
+            archive.prepared = CompletableFuture.supplyAsync(() -> archive.prepare(testClass), executor != null ? executor : Runnable::run);
+        }
+        if (executor != null) {
+            executor.shutdown();
+        }
+        return new DeploymentArchives(archives);
+    }
+
+    /**
+     * Throw the failure of an archive that failed to be created or prepared in the background, so that the caller
+     * doesn't deploy more cloud resources for a test class that fails anyway.
+     */
+    void failFast() {
+        for (DeploymentArchive archive : archives) {
+            if (archive.prepared.isCompletedExceptionally()) {
+                Throwable failure = archive.prepared.handle((prepared, t) -> t instanceof CompletionException ? t.getCause() : t).join();
+                throw new RuntimeException(format("Unable to create deployment %s in %s, cloud resources are not deployed further",
+                        archive.method.getName(), archive.method.getDeclaringClass().getName()), failure);
+            }
+        }
+    }
+
+    /**
+     * Deploy the archives, waiting for the archives that are not prepared yet. Every deployed archive is registered for
+     * undeploy, even if other archives fail. Archives with a higher order are not deployed if an archive fails.
+     */
+    void deploy(ExtensionContext ctx) throws SunstoneException {
+        Map<Integer, List<DeploymentArchive>> archivesByOrder = archives.stream()
+                .collect(Collectors.groupingBy(a -> a.order, TreeMap::new, Collectors.toList()));
+        boolean parallel = SunstoneConfigResolver.getValue(CoreConfig.DEPLOY_ARCHIVES_PARALLEL, false);
+        String testClass = ctx.getRequiredTestClass().getName();
+        for (List<DeploymentArchive> sameOrder : archivesByOrder.values()) {
+            // archives deployed to the same target are deployed one by one
+            Map<Set<List<Object>>, List<DeploymentArchive>> byTarget = sameOrder.stream()
+                    .collect(Collectors.groupingBy(DeploymentArchive::getTarget, LinkedHashMap::new, Collectors.toList()));
+            if (!parallel || byTarget.size() == 1) {
+                for (DeploymentArchive archive : sameOrder) {
+                    archive.deploy(ctx);
+                }
+            } else {
+                List<Callable<Void>> tasks = byTarget.values().stream()
+                        .map(targetArchives -> (Callable<Void>) () -> {
+                            try (SunstoneTimings.Scope scope = SunstoneTimings.forClass(testClass)) {
+                                for (DeploymentArchive archive : targetArchives) {
+                                    archive.deploy(ctx);
+                                }
+                            }
+                            return null;
+                        })
+                        .collect(Collectors.toList());
+                List<Throwable> failures = ConcurrencyUtils.invokeAll("sunstone-archive-deploy", SunstoneConfigResolver.getValue(CoreConfig.DEPLOY_THREADS, 4), tasks);
+                RuntimeException failure = ConcurrencyUtils.aggregate("Unable to deploy archives for " + testClass, failures);
+                if (failure != null) {
+                    throw failure;
+                }
+            }
+        }
+    }
+
+    private static class DeploymentArchive {
+        final Method method;
+        final String name;
+        final int order;
+        final SunstoneArchiveDeployer deployer;
+        CompletableFuture<Object> prepared;
+
+        DeploymentArchive(Method method, String name, int order, SunstoneArchiveDeployer deployer) {
+            this.method = method;
+            this.name = name;
+            this.order = order;
+            this.deployer = deployer;
+        }
+
+        /**
+         * Target annotations with their attributes resolved, e.g. {@code @AwsEc2Instance(nameTag = "vm")} and
+         * {@code @AwsEc2Instance(nameTag = "${vm.name}", region = "eu-west-1")} are the same target if the
+         * expressions resolve to the same values.
+         */
+        Set<List<Object>> getTarget() {
+            Set<List<Object>> target = new HashSet<>();
+            for (Annotation ann : method.getAnnotations()) {
+                if (AnnotationUtils.isAnnotatedBy(ann.annotationType(), SunstoneArchiveDeployTargetAnotation.class)) {
+                    List<Object> resolved = new ArrayList<>();
+                    resolved.add(ann.annotationType());
+                    Method[] attributes = ann.annotationType().getDeclaredMethods();
+                    Arrays.sort(attributes, Comparator.comparing(Method::getName));
+                    for (Method attribute : attributes) {
+                        try {
+                            resolved.add(attribute.getName());
+                            resolved.add(resolve(attribute.invoke(ann)));
+                        } catch (IllegalAccessException | InvocationTargetException e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                    target.add(resolved);
+                }
+            }
+            return target;
+        }
+
+        private static Object resolve(Object value) {
+            if (value instanceof String) {
+                return SunstoneConfigResolver.resolveOptionalExpression((String) value, String.class).orElse((String) value);
+            } else if (value.getClass().isArray()) {
+                List<Object> values = new ArrayList<>();
+                for (int i = 0; i < Array.getLength(value); i++) {
+                    values.add(resolve(Array.get(value, i)));
+                }
+                return values;
+            }
+            return value;
+        }
+
+        void deploy(ExtensionContext ctx) throws SunstoneException {
+            Object deployment = get();
+            try (SunstoneTimings.Phase phase = SunstoneTimings.start("archive-deploy", method.getName())) {
+                deployer.deploy(name, deployment, ctx);
+                phase.success();
+            }
+            SunstoneStore.get(ctx).addClosable((AutoCloseable) () -> deployer.undeploy(name, ctx));
+        }
+
+        Object prepare(String testClass) {
+            try (SunstoneTimings.Scope scope = SunstoneTimings.forClass(testClass)) {
+                Object invoke;
+                try (SunstoneTimings.Phase phase = SunstoneTimings.start("archive-create", method.getName())) {
+                    method.setAccessible(true);
+                    invoke = method.invoke(null);
+                    phase.success();
+                }
+                if (invoke == null) {
+                    throw new RuntimeException(format("%s in %s returned null", method.getName(), method.getDeclaringClass().getName()));
+                }
+                try (SunstoneTimings.Phase phase = SunstoneTimings.start("archive-export", method.getName())) {
+                    Object prepared = deployer.prepare(invoke);
+                    phase.success();
+                    return prepared;
+                }
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new RuntimeException(e);
+            } catch (SunstoneException e) {
+                throw new CompletionException(e);
+            }
+        }
+
+        Object get() throws SunstoneException {
+            try {
+                return prepared.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SunstoneException(e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SunstoneException) {
+                    throw (SunstoneException) cause;
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new RuntimeException(cause);
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package sunstone.core;
+
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+import sunstone.annotation.LazyProxy;
+import sunstone.core.api.SunstoneResourceInjector;
+import sunstone.core.exceptions.SunstoneException;
+import sunstone.core.spi.SunstoneProviderRegistry;
+import sunstone.inject.Lazy;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static java.lang.String.format;
+
+/**
+ * Precomputed injection of a class - injectable fields with their identification annotation, resource injector and
+ * setter. The plan is computed once per class and cached, so repeated injection (test instance per method, setup tasks,
+ * ...) only gets resources and writes fields.
+ * <p>
+ * Invalid fields (e.g. no provider can inject them) don't fail the plan. A failure is thrown every time the field is
+ * injected, hence the behavior is the same as if the field was inspected at injection time.
+ * <p>
+ * Fields of {@link Lazy} or {@link Supplier} type and {@link LazyProxy} fields get a {@link LazyResource} (or a proxy
+ * backed by it) that resolves the resource on the first use.
+ */
+class InjectionPlan {
+    private static final ClassValue<InjectionPlan> PLANS = new ClassValue<InjectionPlan>() {
+        @Override
+        protected InjectionPlan computeValue(Class<?> type) {
+            return new InjectionPlan(type);
+        }
+    };
+
+    private final List<FieldInjection> staticInjections;
+    private final List<FieldInjection> instanceInjections;
+
+    private InjectionPlan(Class<?> clazz) {
+        this.staticInjections = plan(clazz, true);
+        this.instanceInjections = plan(clazz, false);
+    }
+
+    static InjectionPlan of(Class<?> clazz) {
+        return PLANS.get(clazz);
+    }
+
+    void injectStaticFields(ExtensionContext ctx) {
+        for (FieldInjection injection : staticInjections) {
+            injection.inject(ctx, null);
+        }
+    }
+
+    void injectInstanceFields(ExtensionContext ctx, Object instance) {
+        for (FieldInjection injection : instanceInjections) {
+            injection.inject(ctx, instance);
+        }
+    }
+
+    private static List<FieldInjection> plan(Class<?> clazz, boolean statics) {
+        List<FieldInjection> injections = new ArrayList<>();
+        for (Field field : SunstoneExtension.getAllFieldsList(clazz, f -> Modifier.isStatic(f.getModifiers()) == statics)) {
+            try {
+                Optional<Annotation> identification = SunstoneExtension.getAndCheckInjectionAnnotation(field);
+                if (identification.isPresent()) {
+                    injections.add(FieldInjection.create(field, identification.get()));
+                }
+            } catch (SunstoneException e) {
+                injections.add(new FieldInjection(field, null, null, () -> new RuntimeException(format("Unable to inject %s %s in %s", field.getType().getName(), field.getName(), field.getDeclaringClass()), e)));
+            }
+        }
+        return Collections.unmodifiableList(injections);
+    }
+
+    static class FieldInjection {
+        private final Field field;
+        private final SunstoneResourceInjector injector;
+        private final Class<?> resourceType;
+        private final boolean lazy;
+        // (Object)void for static fields, (Object,Object)void for instance fields
+        private final MethodHandle setter;
+        private final Supplier<RuntimeException> failure;
+
+        private FieldInjection(Field field, SunstoneResourceInjector injector, MethodHandle setter, Supplier<RuntimeException> failure) {
+            this(field, injector, field.getType(), false, setter, failure);
+        }
+
+        private FieldInjection(Field field, SunstoneResourceInjector injector, Class<?> resourceType, boolean lazy, MethodHandle setter, Supplier<RuntimeException> failure) {
+            this.field = field;
+            this.injector = injector;
+            this.resourceType = resourceType;
+            this.lazy = lazy;
+            this.setter = setter;
+            this.failure = failure;
+        }
+
+        static FieldInjection create(Field field, Annotation identification) {
+            Class<?> resourceType = field.getType();
+            boolean lazy = false;
+            if (resourceType == Lazy.class || resourceType == Supplier.class) {
+                resourceType = getTypeArgument(field);
+                lazy = true;
+                if (resourceType == null) {
+                    return new FieldInjection(field, null, null, () -> new RuntimeException(format("Lazily injected %s %s in %s must declare the type of the resource", field.getType().getName(), field.getName(), field.getDeclaringClass().getName())));
+                }
+            } else if (field.isAnnotationPresent(LazyProxy.class)) {
+                lazy = true;
+                if (!resourceType.isInterface()) {
+                    return new FieldInjection(field, null, null, () -> new RuntimeException(format("%s %s in %s annotated by %s must be of an interface type", field.getType().getName(), field.getName(), field.getDeclaringClass().getName(), LazyProxy.class.getSimpleName())));
+                }
+            }
+            Optional<SunstoneResourceInjector> injector = SunstoneProviderRegistry.get().getResourceInjector(field, resourceType, identification);
+            if (!injector.isPresent()) {
+                return new FieldInjection(field, null, null, () -> new RuntimeException(format("Unable to load a service via SPI that can inject into %s %s in %s class", field.getType().getName(), field.getName(), field.getDeclaringClass().getName())));
+            }
+            try {
+                field.setAccessible(true);
+                MethodHandle setter = MethodHandles.lookup().unreflectSetter(field);
+                setter = Modifier.isStatic(field.getModifiers())
+                        ? setter.asType(MethodType.methodType(void.class, Object.class))
+                        : setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+                return new FieldInjection(field, injector.get(), resourceType, lazy, setter, null);
+            } catch (IllegalAccessException | RuntimeException e) {
+                return new FieldInjection(field, null, null, () -> new RuntimeException(e));
+            }
+        }
+
+        /**
+         * Type argument of {@code Lazy<T>} / {@code Supplier<T>} field, null if it is not a class.
+         */
+        private static Class<?> getTypeArgument(Field field) {
+            if (!(field.getGenericType() instanceof ParameterizedType)) {
+                return null;
+            }
+            Type argument = ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
+            if (argument instanceof WildcardType) {
+                argument = ((WildcardType) argument).getUpperBounds()[0];
+            }
+            if (argument instanceof ParameterizedType) {
+                argument = ((ParameterizedType) argument).getRawType();
+            }
+            return argument instanceof Class && argument != Object.class ? (Class<?>) argument : null;
+        }
+
+        void inject(ExtensionContext ctx, Object instance) {
+            if (failure != null) {
+                throw failure.get();
+            }
+            SunstoneStore store = SunstoneStore.get(ctx);
+            try {
+                Object injectObject;
+                if (lazy) {
+                    LazyResource<Object> resource = new LazyResource<>(() -> {
+                        try {
+                            return getResource(ctx);
+                        } catch (SunstoneException e) {
+                            throw injectionFailure(e);
+                        }
+                    }, format("%s %s in %s", resourceType.getName(), field.getName(), field.getDeclaringClass().getName()));
+                    store.addClosable((AutoCloseable) () -> {
+                        if (resource.isResolved()) {
+                            injector.closeResource(resource.get());
+                        }
+                    });
+                    injectObject = resourceType == field.getType()
+                            ? Proxy.newProxyInstance(resourceType.getClassLoader(), new Class<?>[] {resourceType}, resource)
+                            : resource;
+                } else {
+                    Object resource = getResource(ctx);
+                    store.addClosable((AutoCloseable) () -> injector.closeResource(resource));
+                    injectObject = resource;
+                }
+                if (instance == null) {
+                    setter.invokeExact(injectObject);
+                } else {
+                    setter.invokeExact(instance, injectObject);
+                }
+            } catch (SunstoneException e) {
+                throw injectionFailure(e);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        private Object getResource(ExtensionContext ctx) throws SunstoneException {
+            try (SunstoneTimings.Phase phase = SunstoneTimings.start("resource-lookup", field.getDeclaringClass().getName() + "." + field.getName())) {
+                Object resource = injector.getResource(ctx);
+                phase.success();
+                return resource;
+            }
+        }
+
+        private RuntimeException injectionFailure(SunstoneException e) {
+            return new RuntimeException(format("Unable to inject %s %s in %s", field.getType().getName(), field.getName(), field.getDeclaringClass()), e);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package sunstone.core;
+
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event types of {@link SunstoneEvents}. Loaded only if {@code jdk.jfr} is available, compiled only by JDK 11+
+ * (see the {@code jfr} profile).
+ */
+class JfrEvents implements SunstoneEvents.Factory {
+
+    @Override
+    public SunstoneEvents.Recording cloudTemplate(String provider, String operation, String name) {
+        CloudTemplateEvent event = new CloudTemplateEvent();
+        if (!event.isEnabled()) {
+            return SunstoneEvents.NOOP;
+        }
+        event.provider = provider;
+        event.operation = operation;
+        event.name = name;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public SunstoneEvents.Recording deploymentPoll(String group, String deployment) {
+        DeploymentPollEvent event = new DeploymentPollEvent();
+        if (!event.isEnabled()) {
+            return SunstoneEvents.NOOP;
+        }
+        event.group = group;
+        event.deployment = deployment;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public SunstoneEvents.Recording cloudFormationWait(String stack, String operation) {
+        CloudFormationWaitEvent event = new CloudFormationWaitEvent();
+        if (!event.isEnabled()) {
+            return SunstoneEvents.NOOP;
+        }
+        event.stack = stack;
+        event.operation = operation;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public SunstoneEvents.Recording resourceLookup(String provider, String type, String resource) {
+        ResourceLookupEvent event = new ResourceLookupEvent();
+        if (!event.isEnabled()) {
+            return SunstoneEvents.NOOP;
+        }
+        event.provider = provider;
+        event.type = type;
+        event.resource = resource;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public SunstoneEvents.Recording managementClient(String host, int port) {
+        ManagementClientEvent event = new ManagementClientEvent();
+        if (!event.isEnabled()) {
+            return SunstoneEvents.NOOP;
+        }
+        event.host = host;
+        event.port = port;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public SunstoneEvents.Recording wildFlyDeployment(String operation, String deployment, String target) {
+        WildFlyDeploymentEvent event = new WildFlyDeploymentEvent();
+        if (!event.isEnabled()) {
+            return SunstoneEvents.NOOP;
+        }
+        event.operation = operation;
+        event.deployment = deployment;
+        event.target = target;
+        event.begin();
+        return event;
+    }
+
+    abstract static class SunstoneEvent extends Event implements SunstoneEvents.Recording {
+        @Label("Success")
+        boolean success;
+
+        @Override
+        public void success() {
+            success = true;
+        }
+
+        @Override
+        public void close() {
+            commit();
+        }
+    }
+
+    @Name("sunstone.CloudTemplate")
+    @Label("Cloud Template")
+    @Description("Deploy or undeploy of a cloud template")
+    @Category("Sunstone")
+    static class CloudTemplateEvent extends SunstoneEvent {
+        @Label("Provider")
+        String provider;
+        @Label("Operation")
+        String operation;
+        @Label("Stack / Resource Group")
+        String name;
+    }
+
+    @Name("sunstone.DeploymentPoll")
+    @Label("Azure Deployment Poll")
+    @Description("One iteration of polling an Azure deployment, including the poll interval")
+    @Category("Sunstone")
+    static class DeploymentPollEvent extends SunstoneEvent {
+        @Label("Resource Group")
+        String group;
+        @Label("Deployment")
+        String deployment;
+    }
+
+    @Name("sunstone.CloudFormationWait")
+    @Label("CloudFormation Wait")
+    @Description("Wait for a CloudFormation stack operation to complete")
+    @Category("Sunstone")
+    static class CloudFormationWaitEvent extends SunstoneEvent {
+        @Label("Stack")
+        String stack;
+        @Label("Operation")
+        String operation;
+    }
+
+    @Name("sunstone.ResourceLookup")
+    @Label("Resource Lookup")
+    @Description("Lookup of a cloud resource to be injected")
+    @Category("Sunstone")
+    static class ResourceLookupEvent extends SunstoneEvent {
+        @Label("Provider")
+        String provider;
+        @Label("Type")
+        String type;
+        @Label("Resource")
+        String resource;
+    }
+
+    @Name("sunstone.ManagementClient")
+    @Label("Management Client")
+    @Description("Creation of a WildFly management client")
+    @Category("Sunstone")
+    static class ManagementClientEvent extends SunstoneEvent {
+        @Label("Host")
+        String host;
+        @Label("Port")
+        int port;
+    }
+
+    @Name("sunstone.WildFlyDeployment")
+    @Label("WildFly Deployment")
+    @Description("Deploy or undeploy of an archive to WildFly")
+    @Category("Sunstone")
+    static class WildFlyDeploymentEvent extends SunstoneEvent {
+        @Label("Operation")
+        String operation;
+        @Label("Deployment")
+        String deployment;
+        @Label("Target")
+        String target;
+    }
+}
@@ -0,0 +1,290 @@
+package sunstone.core;
+
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Local journal of environments kept alive after tests ({@link CoreConfig#KEEP_ALIVE_TTL}), so that the next run may
+ * reuse them instead of deploying them again.
+ * <p>
+ * An environment is recorded under the key of its suite level deployment (i.e. the hash of its content) with its handle
+ * (stack name, resource group), region and expiration. The expiration is extended whenever the environment is used and
+ * renewed periodically while it is {@link #hold(String) held} by a running suite, so that a reaper of another JVM doesn't
+ * delete it even if the suite runs longer than {@link #getTtl()}.
+ * Cloud modules tag the environments with {@link #HASH_TAG} and {@link #TTL_TAG} so that a reused environment may be
+ * verified, and reap expired environments in the background ({@link #startReaper(String, Reaper)}).
+ * <p>
+ * The journal file ({@link CoreConfig#KEEP_ALIVE_JOURNAL}) is locked while it is read or written, it may be shared by
+ * several JVMs.
+ */
+public class KeepAliveJournal {
+    public static final String HASH_TAG = "sunstone-hash";
+    public static final String TTL_TAG = "sunstone-ttl";
+
+    private static final Set<String> reapers = ConcurrentHashMap.newKeySet();
+    private static final Set<String> held = ConcurrentHashMap.newKeySet();
+    private static ScheduledExecutorService renewal;
+    // replaced by tests
+    static volatile Clock clock = Clock.systemUTC();
+
+    /**
+     * True if environments are kept alive, i.e. {@link CoreConfig#KEEP_ALIVE_TTL} is positive.
+     */
+    public static boolean isEnabled() {
+        return getTtl().compareTo(Duration.ZERO) > 0;
+    }
+
+    public static Duration getTtl() {
+        return Duration.ofMinutes(SunstoneConfigResolver.getValue(CoreConfig.KEEP_ALIVE_TTL, 0L));
+    }
+
+    /**
+     * Get the recorded environment unless it is expired.
+     */
+    public static Optional<Entry> get(String key) {
+        return locked(journal -> Optional.ofNullable(Entry.read(journal, key)).filter(e -> !e.isExpired()));
+    }
+
+    /**
+     * Get the recorded environment unless it is expired and extend its expiration, both under one journal lock. A reaper
+     * that has not seen the environment expired yet won't delete it then, it may be reused.
+     *
+     * @return the refreshed entry
+     */
+    public static Optional<Entry> claim(String key) {
+        return locked(journal -> {
+            Entry entry = Entry.read(journal, key);
+            if (entry == null || entry.isExpired()) {
+                return Optional.empty();
+            }
+            Entry refreshed = new Entry(key, entry.handle, entry.region, expiration());
+            refreshed.write(journal);
+            return Optional.of(refreshed);
+        });
+    }
+
+    /**
+     * Record the environment, it expires in {@link #getTtl()}. Other keys recorded with the same handle are forgotten,
+     * the environment was redeployed with a different content.
+     */
+    public static void put(String key, String handle, String region) {
+        locked(journal -> {
+            for (String other : keys(journal)) {
+                Entry entry = Entry.read(journal, other);
+                if (!other.equals(key) && entry != null && entry.handle.equals(handle)) {
+                    Entry.remove(journal, other);
+                }
+            }
+            new Entry(key, handle, region, expiration()).write(journal);
+            return null;
+        });
+    }
+
+    /**
+     * The environment is used by this JVM until {@link #release(String)}. Its expiration is renewed every half of
+     * {@link #getTtl()} meanwhile and the reaper of this JVM doesn't delete it.
+     */
+    public static void hold(String key) {
+        held.add(key);
+        startRenewal();
+    }
+
+    /**
+     * Stop renewing the expiration of the environment, it expires in {@link #getTtl()} after the last renewal.
+     */
+    public static void release(String key) {
+        held.remove(key);
+    }
+
+    /**
+     * Extend the expiration of held environments. Environments no longer in the journal (e.g. removed as unhealthy) are
+     * not recorded again.
+     */
+    static void renew() {
+        if (held.isEmpty()) {
+            return;
+        }
+        locked(journal -> {
+            for (String key : held) {
+                Entry entry = Entry.read(journal, key);
+                if (entry != null) {
+                    new Entry(key, entry.handle, entry.region, expiration()).write(journal);
+                }
+            }
+            return null;
+        });
+    }
+
+    private static synchronized void startRenewal() {
+        if (renewal != null) {
+            return;
+        }
+        long period = Math.max(getTtl().toMillis() / 2, 1000);
+        renewal = Executors.newSingleThreadScheduledExecutor(new ConcurrencyUtils.DaemonThreadFactory("sunstone-keep-alive-renewal"));
+        renewal.scheduleAtFixedRate(() -> {
+            try {
+                renew();
+            } catch (RuntimeException e) {
+                SunstoneLogger.DEFAULT.warn("Unable to renew environments kept alive", e);
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public static void remove(String key) {
+        locked(journal -> {
+            Entry.remove(journal, key);
+            return null;
+        });
+    }
+
+    /**
+     * Start a background daemon thread (once per JVM and prefix) that reaps expired environments with keys starting with
+     * the prefix. Environments {@link #hold(String) held} by this JVM are skipped. An environment is forgotten once it is
+     * reaped successfully.
+     */
+    public static void startReaper(String keyPrefix, Reaper reaper) {
+        if (!reapers.add(keyPrefix)) {
+            return;
+        }
+        Thread thread = new ConcurrencyUtils.DaemonThreadFactory("sunstone-keep-alive-reaper").newThread(() -> {
+            List<Entry> expired = locked(journal -> {
+                List<Entry> entries = new ArrayList<>();
+                for (String key : keys(journal)) {
+                    Entry entry = Entry.read(journal, key);
+                    if (key.startsWith(keyPrefix) && !held.contains(key) && entry != null && entry.isExpired()) {
+                        entries.add(entry);
+                    }
+                }
+                return entries;
+            });
+            for (Entry entry : expired) {
+                try {
+                    SunstoneLogger.DEFAULT.info("Environment {} kept alive for {} expired, deleting", entry.handle, entry.key);
+                    if (!reaper.reap(entry)) {
+                        SunstoneLogger.DEFAULT.info("Environment {} is still used, not deleted", entry.handle);
+                        continue;
+                    }
+                    locked(journal -> {
+                        // it may have been reused meanwhile
+                        Entry current = Entry.read(journal, entry.key);
+                        if (current != null && current.expires == entry.expires) {
+                            Entry.remove(journal, entry.key);
+                        }
+                        return null;
+                    });
+                } catch (Exception e) {
+                    SunstoneLogger.DEFAULT.warn("Unable to delete expired environment {}", entry.handle, e);
+                }
+            }
+        });
+        thread.start();
+    }
+
+    private static long expiration() {
+        return clock.millis() + getTtl().toMillis();
+    }
+
+    private static List<String> keys(Properties journal) {
+        List<String> keys = new ArrayList<>();
+        for (String property : journal.stringPropertyNames()) {
+            if (property.endsWith(".handle")) {
+                keys.add(property.substring(0, property.length() - ".handle".length()));
+            }
+        }
+        return keys;
+    }
+
+    private static synchronized <T> T locked(Function<Properties, T> action) {
+        Path file = Paths.get(SunstoneConfigResolver.getValue(CoreConfig.KEEP_ALIVE_JOURNAL,
+                Paths.get(System.getProperty("user.home"), ".sunstone", "keep-alive.properties").toString()));
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (FileChannel channel = FileChannel.open(file.resolveSibling(file.getFileName() + ".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                Properties journal = new Properties();
+                if (Files.exists(file)) {
+                    try (InputStream in = Files.newInputStream(file)) {
+                        journal.load(in);
+                    }
+                }
+                Properties original = (Properties) journal.clone();
+                T result = action.apply(journal);
+                if (!journal.equals(original)) {
+                    try (OutputStream out = Files.newOutputStream(file)) {
+                        journal.store(out, "Environments kept alive by Sunstone");
+                    }
+                }
+                return result;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to access keep-alive journal " + file, e);
+        }
+    }
+
+    public interface Reaper {
+        /**
+         * @return false if the environment is still used and was not deleted
+         */
+        boolean reap(Entry entry) throws Exception;
+    }
+
+    public static class Entry {
+        public final String key;
+        public final String handle;
+        public final String region;
+        public final long expires;
+
+        Entry(String key, String handle, String region, long expires) {
+            this.key = key;
+            this.handle = handle;
+            this.region = region;
+            this.expires = expires;
+        }
+
+        boolean isExpired() {
+            return clock.millis() > expires;
+        }
+
+        static Entry read(Properties journal, String key) {
+            String handle = journal.getProperty(key + ".handle");
+            String expires = journal.getProperty(key + ".expires");
+            if (handle == null || expires == null) {
+                return null;
+            }
+            return new Entry(key, handle, journal.getProperty(key + ".region", ""), Long.parseLong(expires));
+        }
+
+        void write(Properties journal) {
+            journal.setProperty(key + ".handle", handle);
+            journal.setProperty(key + ".region", region);
+            journal.setProperty(key + ".expires", Long.toString(expires));
+        }
+
+        static void remove(Properties journal, String key) {
+            journal.remove(key + ".handle");
+            journal.remove(key + ".region");
+            journal.remove(key + ".expires");
+        }
+    }
+}
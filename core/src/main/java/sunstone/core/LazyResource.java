@@ -0,0 +1,69 @@
+package sunstone.core;
+
+
+import sunstone.inject.Lazy;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.function.Supplier;
+
+/**
+ * Lazily injected resource, see {@link Lazy} and {@link sunstone.annotation.LazyProxy}. Also serves as the invocation
+ * handler of lazy proxies - methods of {@link Object} don't resolve the resource, others are delegated to the resource.
+ */
+class LazyResource<T> implements Lazy<T>, InvocationHandler {
+    private final Supplier<T> resolver;
+    private final String description;
+    private volatile T resource;
+
+    LazyResource(Supplier<T> resolver, String description) {
+        this.resolver = resolver;
+        this.description = description;
+    }
+
+    @Override
+    public T get() {
+        T result = resource;
+        if (result == null) {
+            synchronized (this) {
+                result = resource;
+                if (result == null) {
+                    result = resolver.get();
+                    resource = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isResolved() {
+        return resource != null;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return toString();
+            }
+        }
+        try {
+            return method.invoke(get(), args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public String toString() {
+        T result = resource;
+        return result != null ? result.toString() : "unresolved " + description;
+    }
+}
@@ -0,0 +1,130 @@
+package sunstone.core;
+
+
+import sunstone.core.exceptions.SunstoneException;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache of cloud resources found by injectors and archive deployers, see
+ * {@link SunstoneStore#getCachedResource(String, String, String, String, SunstoneStore.ResourceLookup)}. There is one
+ * cache per suite ({@link SunstoneStore#getResourceCache()}).
+ * <p>
+ * Resources are cached for {@link CoreConfig#RESOURCE_CACHE_TTL} (caching is disabled by default) and invalidated once
+ * the cloud deployment (group, region) they may come from is undeployed. Only found resources are cached. Concurrent
+ * lookups of the same resource wait for the first one, the cloud is queried once.
+ * <p>
+ * Cloud modules may also {@link #put(String, String, String, String, Object) index} resources of a deployment right after
+ * it is deployed, using one listing instead of a lookup per resource.
+ */
+public class ResourceCache {
+    private final Map<List<String>, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * @return false if caching is disabled by {@link CoreConfig#RESOURCE_CACHE_TTL}, there is no point in indexing resources
+     */
+    public static boolean isEnabled() {
+        return getTtl() > 0;
+    }
+
+    private static long getTtl() {
+        return TimeUnit.SECONDS.toNanos(SunstoneConfigResolver.getValue(CoreConfig.RESOURCE_CACHE_TTL, 0L));
+    }
+
+    /**
+     * Cache the resource as if it was found by a lookup with the same provider, type, name and scope.
+     */
+    public void put(String provider, String type, String name, String scope, Object resource) {
+        if (isEnabled()) {
+            Entry entry = new Entry();
+            entry.complete(Optional.of(resource));
+            entries.put(Arrays.asList(provider, type, name, scope), entry);
+        }
+    }
+
+    /**
+     * @return true if the resource is cached and not expired, i.e. a lookup of it won't reach the cloud
+     */
+    public boolean contains(String provider, String type, String name, String scope) {
+        Entry entry = entries.get(Arrays.asList(provider, type, name, scope));
+        return entry != null && entry.isFound(getTtl());
+    }
+
+    <T> Optional<T> getOrLookup(String provider, String type, String name, String scope, SunstoneStore.ResourceLookup<T> lookup) throws SunstoneException {
+        long ttl = getTtl();
+        if (ttl <= 0) {
+            return lookup.lookup();
+        }
+        List<String> key = Arrays.asList(provider, type, name, scope);
+        while (true) {
+            Entry lookedUp = new Entry();
+            Entry entry = entries.compute(key, (k, current) -> current != null && (current.isPending() || current.isFound(ttl)) ? current : lookedUp);
+            if (entry == lookedUp) {
+                return lookup(key, entry, lookup);
+            }
+            Optional<?> resource = entry.await();
+            // null if the lookup failed, the waiting thread tries it itself
+            if (resource != null) {
+                return (Optional<T>) resource;
+            }
+        }
+    }
+
+    private <T> Optional<T> lookup(List<String> key, Entry entry, SunstoneStore.ResourceLookup<T> lookup) throws SunstoneException {
+        try {
+            Optional<T> resource = lookup.lookup();
+            if (!resource.isPresent()) {
+                entries.remove(key, entry);
+            }
+            entry.complete(resource);
+            return resource;
+        } catch (SunstoneException | RuntimeException | Error e) {
+            entries.remove(key, entry);
+            entry.fail(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Forget resources of the provider in the scope (resource group, region).
+     */
+    void invalidate(String provider, String scope) {
+        entries.keySet().removeIf(key -> key.get(0).equals(provider) && key.get(3).equals(scope));
+    }
+
+    private static class Entry {
+        final CompletableFuture<Optional<?>> resource = new CompletableFuture<>();
+        volatile long created;
+
+        void complete(Optional<?> found) {
+            created = System.nanoTime();
+            resource.complete(found);
+        }
+
+        void fail(Throwable t) {
+            resource.completeExceptionally(t);
+        }
+
+        boolean isPending() {
+            return !resource.isDone();
+        }
+
+        boolean isFound(long ttl) {
+            return resource.isDone() && !resource.isCompletedExceptionally() && resource.join().isPresent()
+                    && System.nanoTime() - created < ttl;
+        }
+
+        /**
+         * @return the looked up resource or null if the lookup failed
+         */
+        Optional<?> await() {
+            return resource.handle((found, t) -> t == null ? found : null).join();
+        }
+    }
+}
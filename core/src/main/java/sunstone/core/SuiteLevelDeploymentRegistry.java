@@ -0,0 +1,202 @@
+package sunstone.core;
+
+
+import sunstone.core.api.SuiteLevelDeployment;
+import sunstone.core.exceptions.SunstoneException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * JVM wide registry of suite level deployments, shared by {@link SunstoneExtension} and {@link SunstoneLookAheadListener}.
+ * <p>
+ * A deployment is started either ahead of time by the listener ({@link #prefetch(SuiteLevelDeployment)}) or by the
+ * first test class that needs it ({@link #acquire(SuiteLevelDeployment)}). Other classes wait for the running
+ * deployment. The first class that gets the deployed environment adopts it, i.e. registers its undeploy.
+ * Environments deployed ahead of time that no class adopted are undeployed by {@link #undeployNotAdopted()}.
+ * <p>
+ * An environment is undeployed only once. It may be {@link #release(String) released} early in the background, the
+ * adopter's undeploy then waits for the background undeploy and reports its failure.
+ * <p>
+ * Deployments are shared with other JVMs if {@link CoreConfig#DEPLOY_SHARED_DIR} is set, see
+ * {@link CrossJvmSuiteLevelDeployment}.
+ */
+class SuiteLevelDeploymentRegistry {
+    private static final ConcurrentMap<String, Entry> deployments = new ConcurrentHashMap<>();
+    private static final ExecutorService executor = Executors.newCachedThreadPool(new ConcurrencyUtils.DaemonThreadFactory("sunstone-suite-deployments"));
+
+    /**
+     * Start the deployment in the background unless it is already started.
+     */
+    static void prefetch(SuiteLevelDeployment deployment) {
+        Entry entry = deployments.computeIfAbsent(deployment.getKey(), k -> new Entry(CrossJvmSuiteLevelDeployment.wrap(deployment)));
+        if (!entry.started.get()) {
+            SunstoneLogger.DEFAULT.debug("Deploying suite level deployment {} ahead of time", entry.key);
+            executor.execute(entry::deploy);
+        }
+    }
+
+    /**
+     * Get the deployed environment. The deployment is done in the caller thread unless it is already started, in which
+     * case the caller waits for it. A failed deployment is forgotten so that another class may try again.
+     */
+    static Acquired acquire(SuiteLevelDeployment deployment) throws SunstoneException {
+        Entry entry = deployments.computeIfAbsent(deployment.getKey(), k -> new Entry(CrossJvmSuiteLevelDeployment.wrap(deployment)));
+        entry.deploy();
+        try {
+            String handle = entry.handle.get();
+            return new Acquired(entry, handle, entry.adopted.compareAndSet(false, true));
+        } catch (ExecutionException e) {
+            deployments.remove(entry.key, entry);
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new SunstoneException("Suite level deployment " + entry.key + " failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SunstoneException("Interrupted while waiting for suite level deployment " + entry.key, e);
+        }
+    }
+
+    /**
+     * Undeploy environments deployed ahead of time that no test class adopted, e.g. the classes were skipped. Running
+     * deployments are waited for.
+     */
+    static void undeployNotAdopted() {
+        List<Throwable> failures = new ArrayList<>();
+        for (Entry entry : deployments.values()) {
+            if (entry.adopted.get()) {
+                continue;
+            }
+            if (entry.started.compareAndSet(false, true)) {
+                // queued ahead of time but not started yet, make sure it doesn't deploy once the suite is done
+                entry.handle.cancel(false);
+                deployments.remove(entry.key, entry);
+                continue;
+            }
+            try {
+                SunstoneLogger.DEFAULT.debug("Suite level deployment {} was not used by any test class, undeploying", entry.key);
+                entry.undeploy();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failures.add(e);
+                break;
+            } catch (Exception e) {
+                failures.add(e);
+            }
+        }
+        RuntimeException failure = ConcurrencyUtils.aggregate("Unable to undeploy suite level deployments", failures);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Undeploy the environment in the background, no other test class needs it. If it is being deployed, the undeploy
+     * waits for the deployment.
+     */
+    static void release(String key) {
+        Entry entry = deployments.get(key);
+        if (entry == null || !entry.started.get()) {
+            return;
+        }
+        SunstoneLogger.DEFAULT.debug("Suite level deployment {} is not needed anymore, undeploying", key);
+        executor.execute(() -> {
+            try {
+                entry.undeploy();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                SunstoneLogger.DEFAULT.error("Unable to undeploy suite level deployment " + key, e);
+            }
+        });
+    }
+
+    static class Acquired {
+        private final Entry entry;
+        final String handle;
+        final boolean adopted;
+
+        Acquired(Entry entry, String handle, boolean adopted) {
+            this.entry = entry;
+            this.handle = handle;
+            this.adopted = adopted;
+        }
+
+        /**
+         * Run the listener once the environment is undeployed, also if it is released early in the background.
+         */
+        void onUndeploy(Runnable listener) {
+            entry.undeployListeners.add(listener);
+        }
+
+        /**
+         * Undeploy the environment and remove it from the registry. If it is already being undeployed, wait for it.
+         */
+        void undeploy() throws Exception {
+            entry.undeploy();
+        }
+    }
+
+    private static class Entry {
+        final String key;
+        final SuiteLevelDeployment deployment;
+        final CompletableFuture<String> handle = new CompletableFuture<>();
+        final AtomicBoolean started = new AtomicBoolean();
+        final AtomicBoolean adopted = new AtomicBoolean();
+        final CompletableFuture<Void> undeployment = new CompletableFuture<>();
+        final AtomicBoolean undeployStarted = new AtomicBoolean();
+        final List<Runnable> undeployListeners = new CopyOnWriteArrayList<>();
+
+        Entry(SuiteLevelDeployment deployment) {
+            this.key = deployment.getKey();
+            this.deployment = deployment;
+        }
+
+        void deploy() {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            try (SunstoneTimings.Phase phase = SunstoneTimings.start("suite-deploy", key)) {
+                handle.complete(deployment.deploy());
+                phase.success();
+            } catch (Throwable t) {
+                handle.completeExceptionally(t);
+            }
+        }
+
+        void undeploy() throws Exception {
+            deployments.remove(key, this);
+            if (undeployStarted.compareAndSet(false, true)) {
+                try (SunstoneTimings.Phase phase = SunstoneTimings.start("suite-undeploy", key)) {
+                    deployment.undeploy(handle.get());
+                    // e.g. resources found in the environment are gone
+                    undeployListeners.forEach(Runnable::run);
+                    undeployment.complete(null);
+                    phase.success();
+                } catch (ExecutionException e) {
+                    // deployment failed, nothing to undeploy
+                    undeployment.complete(null);
+                } catch (Throwable t) {
+                    undeployment.completeExceptionally(t);
+                }
+            }
+            try {
+                undeployment.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Exception) {
+                    throw (Exception) e.getCause();
+                }
+                throw e;
+            }
+        }
+    }
+}
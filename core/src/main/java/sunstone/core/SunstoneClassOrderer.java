@@ -0,0 +1,119 @@
+package sunstone.core;
+
+
+import org.junit.jupiter.api.ClassDescriptor;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.ClassOrdererContext;
+import sunstone.core.api.SunstoneCloudDeployer;
+import sunstone.core.api.SuiteLevelDeployment;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Orders test classes so that classes sharing suite level deployments (e.g. {@code perSuite} templates) run one after
+ * another. Shared environments are then alive for the shortest time, which pays off with
+ * {@link CoreConfig#TEARDOWN_EARLY_RELEASE} and {@link CoreConfig#DEPLOY_LOOKAHEAD}.
+ * <p>
+ * Classes are grouped by the set of suite level deployments they need. Classes that need none go first (upcoming
+ * environments may be deployed ahead of time meanwhile), the groups follow. The next group is the one sharing the most
+ * deployments with the previous group. The original order is kept otherwise.
+ * <p>
+ * Enable it by {@code junit.jupiter.testclass.order.default=sunstone.core.SunstoneClassOrderer} in
+ * {@code junit-platform.properties}.
+ */
+public class SunstoneClassOrderer implements ClassOrderer {
+
+    @Override
+    public void orderClasses(ClassOrdererContext context) {
+        List<? extends ClassDescriptor> classes = context.getClassDescriptors();
+        Map<ClassDescriptor, Set<String>> keys = new HashMap<>();
+        for (ClassDescriptor descriptor : classes) {
+            keys.put(descriptor, getSuiteLevelDeploymentKeys(descriptor.getTestClass()));
+        }
+        List<ClassDescriptor> schedule = schedule(classes, keys::get);
+
+        Map<ClassDescriptor, Integer> positions = new HashMap<>();
+        for (int i = 0; i < schedule.size(); i++) {
+            positions.put(schedule.get(i), i);
+        }
+        classes.sort((a, b) -> Integer.compare(positions.get(a), positions.get(b)));
+
+        SunstoneLogger.DEFAULT.info("Test classes ordered by suite level deployments:\n{}", schedule.stream()
+                .map(d -> "  " + d.getTestClass().getName() + " " + keys.get(d).stream().map(SunstoneClassOrderer::abbreviate).collect(Collectors.toList()))
+                .collect(Collectors.joining("\n")));
+    }
+
+    /**
+     * Group items by their keys and order the groups so that groups sharing keys are adjacent. Items without keys go
+     * first. The first group is the first one in the original order, the next group is the one with the largest
+     * intersection with the previous one (the first one in the original order on a tie).
+     */
+    static <T> List<T> schedule(List<? extends T> items, Function<T, Set<String>> keysOf) {
+        Map<Set<String>, List<T>> groups = new LinkedHashMap<>();
+        for (T item : items) {
+            groups.computeIfAbsent(keysOf.apply(item), k -> new ArrayList<>()).add(item);
+        }
+        List<T> result = new ArrayList<>(items.size());
+        List<T> independent = groups.remove(Collections.<String>emptySet());
+        if (independent != null) {
+            result.addAll(independent);
+        }
+
+        List<Set<String>> remaining = new ArrayList<>(groups.keySet());
+        Set<String> previous = Collections.emptySet();
+        while (!remaining.isEmpty()) {
+            Set<String> next = remaining.get(0);
+            int bestOverlap = overlap(previous, next);
+            for (Set<String> candidate : remaining) {
+                int overlap = overlap(previous, candidate);
+                if (overlap > bestOverlap) {
+                    next = candidate;
+                    bestOverlap = overlap;
+                }
+            }
+            remaining.remove(next);
+            result.addAll(groups.get(next));
+            previous = next;
+        }
+        return result;
+    }
+
+    private static int overlap(Set<String> a, Set<String> b) {
+        int overlap = 0;
+        for (String key : a) {
+            if (b.contains(key)) {
+                overlap++;
+            }
+        }
+        return overlap;
+    }
+
+    private static Set<String> getSuiteLevelDeploymentKeys(Class<?> testClass) {
+        try {
+            Set<String> keys = new LinkedHashSet<>();
+            for (Map.Entry<Annotation, SunstoneCloudDeployer> deployer : SunstoneExtension.getCloudDeployers(testClass)) {
+                for (SuiteLevelDeployment deployment : deployer.getValue().getSuiteLevelDeployments()) {
+                    keys.add(deployment.getKey());
+                }
+            }
+            return keys;
+        } catch (RuntimeException e) {
+            SunstoneLogger.DEFAULT.warn("Unable to get suite level deployments of {}, the class is not ordered", testClass.getName(), e);
+            return Collections.emptySet();
+        }
+    }
+
+    private static String abbreviate(String key) {
+        return key.length() > 20 ? key.substring(0, 20) : key;
+    }
+}
@@ -4,26 +4,53 @@ package sunstone.core;
 import io.smallrye.config.SmallRyeConfig;
 import io.smallrye.config.SmallRyeConfigBuilder;
 import org.eclipse.microprofile.config.spi.ConfigSource;
+import org.eclipse.microprofile.config.spi.Converter;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.Array;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 /**
  * The class wraps and configure SmallRyeConfig so that it can resolve bare expressions and read sunstone.properties
  */
 public class SunstoneConfigResolver {
 
+    private static final Pattern EXPRESSION_PATTERN = Pattern.compile("^.*\\$\\{.*\\}.*$");
+
+    // increased whenever configuration changes, see invalidate()
+    private static final AtomicLong generation = new AtomicLong();
+
+    // system properties the cached expressions were resolved against, see invalidateIfSystemPropertiesChanged()
+    private static volatile Map<Object, Object> systemProperties = Collections.emptyMap();
+
+    static final SunstonePropertiesSource propertiesSource = new SunstonePropertiesSource();
+
+    static final ExpressionCache expressionCache = new ExpressionCache(1024);
+
     static final SmallRyeConfig config = new SmallRyeConfigBuilder()
             .addDefaultInterceptors()
             .addDefaultSources()
             .addDiscoveredSources()
-            .withSources(new SunstonePropertiesSource(), new SunstoneExpressionSource())
+            .withSources(propertiesSource, new SunstoneExpressionSource())
             .build();
 
     /**
@@ -85,12 +112,36 @@ public class SunstoneConfigResolver {
      * Parameter {@code clazz} defines a type of the returned value. I.e. {@code "10${my.property}"} may be resolved to
      * integer {@code 101} or string {@code "101"}, ...
      */
+    @SuppressWarnings("unchecked")
     public static <V> V resolveExpression(String expression, Class<V> clazz) {
-        return config.getValue(SunstoneExpressionSource.registerExpression(expression), clazz);
+        return (V) expressionCache.resolve(expression, clazz, false, () -> {
+            Optional<Converter<V>> literalConverter = getLiteralConverter(expression, clazz);
+            if (literalConverter.isPresent()) {
+                return literalConverter.get().convert(expression);
+            }
+            return config.getValue(SunstoneExpressionSource.registerExpression(expression), clazz);
+        });
     }
 
+    @SuppressWarnings("unchecked")
     public static <V> Optional<V> resolveOptionalExpression(String expression, Class<V> clazz) {
-        return config.getOptionalValue(SunstoneExpressionSource.registerExpression(expression), clazz);
+        return (Optional<V>) expressionCache.resolve(expression, clazz, true, () -> {
+            Optional<Converter<V>> literalConverter = getLiteralConverter(expression, clazz);
+            if (literalConverter.isPresent()) {
+                return Optional.ofNullable(literalConverter.get().convert(expression));
+            }
+            return config.getOptionalValue(SunstoneExpressionSource.registerExpression(expression), clazz);
+        });
+    }
+
+    /**
+     * Plain (non-empty) literals don't need to go through SR Config expression resolution, converting them is enough.
+     */
+    private static <V> Optional<Converter<V>> getLiteralConverter(String expression, Class<V> clazz) {
+        if (expression.isEmpty() || isExpression(expression)) {
+            return Optional.empty();
+        }
+        return config.getConverter(clazz);
     }
 
 
@@ -123,18 +174,69 @@ public class SunstoneConfigResolver {
         return resolveExpression(expression, String.class);
     }
 
+    /**
+     * Set the system property. Same as {@link System#setProperty(String, String)}.
+     */
+    public static void setProperty(String key, String value) {
+        System.setProperty(key, value);
+        invalidate();
+    }
+
+    /**
+     * Clear the system property. Same as {@link System#clearProperty(String)}.
+     */
+    public static void clearProperty(String key) {
+        System.clearProperty(key);
+        invalidate();
+    }
+
+    /**
+     * Resolved expressions are cached. Changes of system properties and sunstone.properties are noticed. Call the
+     * method once other configuration sources are changed.
+     */
+    public static void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Environment variables can't change at runtime, system properties can be changed directly by anyone. Compare them
+     * with the snapshot cached expressions were resolved against.
+     */
+    static void invalidateIfSystemPropertiesChanged() {
+        Properties current = System.getProperties();
+        if (!systemProperties.equals(current)) {
+            systemProperties = new HashMap<>(current);
+            invalidate();
+        }
+    }
+
     /**
      * Returns true if string contains ${.*}
      */
     public static boolean isExpression(String candidate) {
-        return candidate.matches("^.*\\$\\{.*\\}.*$");
+        return EXPRESSION_PATTERN.matcher(candidate).matches();
     }
 
     /**
      * Source for sunstone.properties.
+     * <p>
+     * Properties are loaded once into an immutable snapshot. If {@link CoreConfig#PROPERTIES_RELOAD} system property is
+     * set to {@code true} and the file is on a file system (not in a jar), the file is watched and the snapshot is
+     * replaced whenever the file changes. Every new snapshot {@link SunstoneConfigResolver#invalidate() invalidates}
+     * resolved expressions.
      */
     static class SunstonePropertiesSource implements ConfigSource {
         public static final String DEFAULT_PROPERTIES = "/sunstone.properties";
+
+        private volatile Map<String, String> properties;
+
+        SunstonePropertiesSource() {
+            this.properties = snapshot(load());
+            if (Boolean.getBoolean(CoreConfig.PROPERTIES_RELOAD)) {
+                watch();
+            }
+        }
+
         public Properties load() {
             Properties properties = new Properties();
             // reload default properties
@@ -150,14 +252,75 @@ public class SunstoneConfigResolver {
             return properties;
         }
 
+        /**
+         * Load sunstone.properties again and replace the snapshot.
+         */
+        public void reload() {
+            properties = snapshot(load());
+            invalidate();
+        }
+
+        private static Map<String, String> snapshot(Properties properties) {
+            Map<String, String> snapshot = new HashMap<>();
+            for (String name : properties.stringPropertyNames()) {
+                snapshot.put(name, properties.getProperty(name));
+            }
+            return Collections.unmodifiableMap(snapshot);
+        }
+
+        private void watch() {
+            URL url = SunstonePropertiesSource.class.getResource(DEFAULT_PROPERTIES);
+            if (url == null || !"file".equals(url.getProtocol())) {
+                SunstoneLogger.DEFAULT.warn("{} is not a file on a file system and can not be watched for changes: {}", DEFAULT_PROPERTIES, url);
+                return;
+            }
+            try {
+                Path file = Paths.get(url.toURI());
+                WatchService watchService = file.getFileSystem().newWatchService();
+                file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                Thread watcher = new Thread(() -> watch(watchService, file.getFileName()), "sunstone-properties-watcher");
+                watcher.setDaemon(true);
+                watcher.start();
+                SunstoneLogger.DEFAULT.debug("Watching {} for changes", file);
+            } catch (IOException | URISyntaxException e) {
+                SunstoneLogger.DEFAULT.error("Unable to watch " + url + " for changes", e);
+            }
+        }
+
+        private void watch(WatchService watchService, Path fileName) {
+            try {
+                while (true) {
+                    WatchKey key = watchService.take();
+                    boolean changed = false;
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        changed |= fileName.equals(event.context());
+                    }
+                    if (changed) {
+                        reload();
+                        SunstoneLogger.DEFAULT.debug("{} reloaded", DEFAULT_PROPERTIES);
+                    }
+                    if (!key.reset()) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public Map<String, String> getProperties() {
+            return properties;
+        }
+
         @Override
         public Set<String> getPropertyNames() {
-            return load().stringPropertyNames();
+            return properties.keySet();
         }
 
         @Override
         public String getValue(String propertyName) {
-            return load().getProperty(propertyName);
+            return properties.get(propertyName);
         }
 
         @Override
@@ -171,27 +334,26 @@ public class SunstoneConfigResolver {
      * To resolve expression, you need to:
      *  - Register {@link SunstoneExpressionSource} as a source for SR Config
      *  - SR Config must be created with correct interceptors so that expressions are resolver
-     *  - register expression as a new property in internal map and get key to retrieve it - {@link #registerExpression(String)}
+     *  - get a key for the expression - {@link #registerExpression(String)}
      *  - retrieve the value ({@link SmallRyeConfig#getValue(String, Class)}) using key provided by {@link #registerExpression(String)}
+     * <p>
+     * The expression is encoded in the key itself, hence nothing is stored and the source doesn't expose any property name.
      */
     static class SunstoneExpressionSource implements ConfigSource {
-
-        static final ConcurrentMap<String, String> expressions = new ConcurrentHashMap<>();
+        static final String KEY_PREFIX = "sunstone-expression-";
 
         static String registerExpression(String expression) {
-            String key = "sunstone-expression-" + expression;
-            expressions.putIfAbsent(key, expression);
-            return key;
+            return KEY_PREFIX + expression;
         }
 
         @Override
         public Set<String> getPropertyNames() {
-            return expressions.keySet();
+            return Collections.emptySet();
         }
 
         @Override
         public String getValue(String s) {
-            return expressions.get(s);
+            return s.startsWith(KEY_PREFIX) ? s.substring(KEY_PREFIX.length()) : null;
         }
 
         @Override
@@ -199,4 +361,102 @@ public class SunstoneConfigResolver {
             return "sunstone-expression-source";
         }
     }
+
+    /**
+     * Bounded LRU cache of resolved expressions. Resolved value is valid until the configuration is
+     * {@link #invalidate() invalidated}, i.e. sunstone.properties are reloaded or system properties are changed.
+     * <p>
+     * Failed resolutions are not cached.
+     */
+    static class ExpressionCache {
+        private final Map<Key, Resolved> cache;
+
+        ExpressionCache(int maxSize) {
+            this.cache = new LinkedHashMap<Key, Resolved>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, Resolved> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+
+        Object resolve(String expression, Class<?> clazz, boolean optional, Supplier<?> resolver) {
+            Key key = new Key(expression, clazz, optional);
+            invalidateIfSystemPropertiesChanged();
+            long currentGeneration = generation.get();
+            Resolved resolved;
+            synchronized (cache) {
+                resolved = cache.get(key);
+            }
+            if (resolved == null || resolved.generation != currentGeneration) {
+                resolved = new Resolved(resolver.get(), currentGeneration);
+                synchronized (cache) {
+                    cache.put(key, resolved);
+                }
+            }
+            return copyIfArray(resolved.value);
+        }
+
+        int size() {
+            synchronized (cache) {
+                return cache.size();
+            }
+        }
+
+        void clear() {
+            synchronized (cache) {
+                cache.clear();
+            }
+        }
+
+        // cached arrays must not be modified by callers
+        private static Object copyIfArray(Object value) {
+            if (value == null || !value.getClass().isArray()) {
+                return value;
+            }
+            int length = Array.getLength(value);
+            Object copy = Array.newInstance(value.getClass().getComponentType(), length);
+            System.arraycopy(value, 0, copy, 0, length);
+            return copy;
+        }
+
+        private static class Key {
+            private final String expression;
+            private final Class<?> clazz;
+            private final boolean optional;
+
+            Key(String expression, Class<?> clazz, boolean optional) {
+                this.expression = expression;
+                this.clazz = clazz;
+                this.optional = optional;
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                if (this == o) {
+                    return true;
+                }
+                if (!(o instanceof Key)) {
+                    return false;
+                }
+                Key key = (Key) o;
+                return optional == key.optional && expression.equals(key.expression) && clazz.equals(key.clazz);
+            }
+
+            @Override
+            public int hashCode() {
+                return Objects.hash(expression, clazz, optional);
+            }
+        }
+
+        private static class Resolved {
+            private final Object value;
+            private final long generation;
+
+            Resolved(Object value, long generation) {
+                this.value = value;
+                this.generation = generation;
+            }
+        }
+    }
 }
@@ -0,0 +1,125 @@
+package sunstone.core;
+
+
+/**
+ * JDK Flight Recorder events of Sunstone operations (category {@code Sunstone}), so that time blocked in cloud
+ * operations can be seen next to CPU and GC data of the test JVM. Start JFR as usual, e.g.
+ * {@code -XX:StartFlightRecording=filename=tests.jfr}.
+ * <pre>
+ * try (SunstoneEvents.Recording event = SunstoneEvents.cloudTemplate("aws", "deploy", stack)) {
+ *     // deploy
+ *     event.success();
+ * }
+ * </pre>
+ * Sites that also record a {@link SunstoneTimings} phase pass the recording to
+ * {@link SunstoneTimings#start(String, String, Recording)}, the phase finishes both.
+ * <p>
+ * If the JVM doesn't support JFR ({@code jdk.jfr} is missing), Sunstone was built without the JFR events (built by JDK
+ * older than 11) or the event is disabled, a no-op recording is returned.
+ */
+public class SunstoneEvents {
+    static final Recording NOOP = new Recording() {
+        @Override
+        public void success() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+    private static final Factory FACTORY = loadFactory();
+
+    /**
+     * Deploy or undeploy of a cloud template (stack, resource group).
+     */
+    public static Recording cloudTemplate(String provider, String operation, String name) {
+        return FACTORY.cloudTemplate(provider, operation, name);
+    }
+
+    /**
+     * One iteration of polling an Azure deployment.
+     */
+    public static Recording deploymentPoll(String group, String deployment) {
+        return FACTORY.deploymentPoll(group, deployment);
+    }
+
+    /**
+     * Wait of a CloudFormation waiter for a stack operation.
+     */
+    public static Recording cloudFormationWait(String stack, String operation) {
+        return FACTORY.cloudFormationWait(stack, operation);
+    }
+
+    /**
+     * Lookup of a cloud resource that is injected.
+     */
+    public static Recording resourceLookup(String provider, String type, String resource) {
+        return FACTORY.resourceLookup(provider, type, resource);
+    }
+
+    /**
+     * Creation of a WildFly management client (connects to the server).
+     */
+    public static Recording managementClient(String host, int port) {
+        return FACTORY.managementClient(host, port);
+    }
+
+    /**
+     * Deploy or undeploy of an archive to WildFly.
+     */
+    public static Recording wildFlyDeployment(String operation, String deployment, String target) {
+        return FACTORY.wildFlyDeployment(operation, deployment, target);
+    }
+
+    /**
+     * {@code JfrEvents} is compiled only by JDK 11+ and may be loaded only if the JVM supports JFR.
+     */
+    private static Factory loadFactory() {
+        try {
+            Class.forName("jdk.jfr.Event", false, SunstoneEvents.class.getClassLoader());
+            return (Factory) Class.forName("sunstone.core.JfrEvents").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new Factory() {
+            };
+        }
+    }
+
+    /**
+     * A running event. It is committed when closed, as failed unless {@link #success()} was called.
+     */
+    public interface Recording extends AutoCloseable {
+        void success();
+
+        @Override
+        void close();
+    }
+
+    /**
+     * Creates recordings of the event types, no-op recordings by default.
+     */
+    interface Factory {
+        default Recording cloudTemplate(String provider, String operation, String name) {
+            return NOOP;
+        }
+
+        default Recording deploymentPoll(String group, String deployment) {
+            return NOOP;
+        }
+
+        default Recording cloudFormationWait(String stack, String operation) {
+            return NOOP;
+        }
+
+        default Recording resourceLookup(String provider, String type, String resource) {
+            return NOOP;
+        }
+
+        default Recording managementClient(String host, int port) {
+            return NOOP;
+        }
+
+        default Recording wildFlyDeployment(String operation, String deployment, String target) {
+            return NOOP;
+        }
+    }
+}
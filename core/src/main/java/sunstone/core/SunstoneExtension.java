@@ -5,36 +5,28 @@ import org.junit.jupiter.api.extension.AfterAllCallback;
 import org.junit.jupiter.api.extension.BeforeAllCallback;
 import org.junit.jupiter.api.extension.ExtensionContext;
 import org.junit.jupiter.api.extension.TestInstancePostProcessor;
-import org.junit.platform.commons.support.AnnotationSupport;
-import org.junit.platform.commons.support.HierarchyTraversalMode;
-import org.junit.platform.commons.util.StringUtils;
 import sunstone.annotation.AbstractSetupTask;
 import sunstone.annotation.Setup;
 import sunstone.annotation.SunstoneCloudDeployAnnotation;
 import sunstone.annotation.CloudResourceIdentificationAnnotation;
-import sunstone.annotation.Deployment;
 import sunstone.core.api.SunstoneArchiveDeployer;
 import sunstone.core.api.SunstoneCloudDeployer;
-import sunstone.core.api.SunstoneResourceInjector;
 import sunstone.core.exceptions.IllegalArgumentSunstoneException;
 import sunstone.core.exceptions.SunstoneException;
-import sunstone.core.spi.SunstoneArchiveDeployerProvider;
-import sunstone.core.spi.SunstoneCloudDeployerProvider;
-import sunstone.core.spi.SunstoneResourceInjectorProvider;
+import sunstone.core.spi.SunstoneProviderRegistry;
 
-import java.io.Closeable;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.ServiceLoader;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -50,18 +42,30 @@ import static sunstone.core.SunstoneStore.get;
  * a resource that needs to be cleaned/closed is also responsible for registering it.
  */
 public class SunstoneExtension implements BeforeAllCallback, AfterAllCallback, TestInstancePostProcessor {
-    static ServiceLoader<SunstoneArchiveDeployerProvider> sunstoneArchiveDeployerProviderLoader = ServiceLoader.load(SunstoneArchiveDeployerProvider.class);
-    static ServiceLoader<SunstoneCloudDeployerProvider> sunstoneCloudDeployerProviderLoader = ServiceLoader.load(SunstoneCloudDeployerProvider.class);
-    static ServiceLoader<SunstoneResourceInjectorProvider> sunstoneResourceInjectorProviderLoader = ServiceLoader.load(SunstoneResourceInjectorProvider.class);
-
     @Override
     public void beforeAll(ExtensionContext ctx) throws Exception {
-        handleCloudDeployAnnotations(ctx);
-        if (ctx.getRequiredTestClass().getAnnotationsByType(Setup.class).length > 0) {
-            handleSetup(ctx);
+        try (SunstoneTimings.Scope scope = SunstoneTimings.forClass(ctx.getRequiredTestClass().getName())) {
+            // archives don't depend on cloud resources, create them while the resources are being deployed
+            DeploymentArchives archives = SunstoneConfigResolver.getValue(CoreConfig.DEPLOY_ARCHIVES_AHEAD, false)
+                    ? DeploymentArchives.create(ctx, true)
+                    : null;
+            // a failed archive fails the class, don't deploy more cloud resources then
+            Runnable failFast = archives != null ? archives::failFast : () -> { };
+            handleCloudDeployAnnotations(ctx, failFast);
+            failFast.run();
+            if (ctx.getRequiredTestClass().getAnnotationsByType(Setup.class).length > 0) {
+                handleSetup(ctx);
+            }
+            if (archives != null) {
+                archives.deploy(ctx);
+            } else {
+                performDeploymentOperation(ctx);
+            }
+            try (SunstoneTimings.Phase phase = SunstoneTimings.start("inject-static", ctx.getRequiredTestClass().getName())) {
+                injectStaticResources(ctx, ctx.getRequiredTestClass());
+                phase.success();
+            }
         }
-        performDeploymentOperation(ctx);
-        injectStaticResources(ctx, ctx.getRequiredTestClass());
     }
 
     static void handleSetup(ExtensionContext ctx) throws IllegalArgumentSunstoneException {
@@ -78,51 +82,92 @@ public class SunstoneExtension implements BeforeAllCallback, AfterAllCallback, T
             constructor.orElseThrow(() -> new IllegalArgumentSunstoneException("Setup task must have a constructor with 0 parameters"));
             constructor.get().setAccessible(true);
             AbstractSetupTask abstractSetupTask = null;
-            try {
+            try (SunstoneTimings.Phase phase = SunstoneTimings.start("setup", setupTask.getName())) {
                 abstractSetupTask = (AbstractSetupTask) constructor.get().newInstance();
                 injectInstanceResources(ctx, abstractSetupTask);
                 store.addClosable((AutoCloseable) abstractSetupTask::teardown);
                 abstractSetupTask.setup();
+                phase.success();
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
         }
     }
 
+    /**
+     * Deploys all cloud deploy annotations of the test class. Repeatable containers are unwrapped so that every single
+     * template is a deployment on its own.
+     * <p>
+     * Deployments are done in the ascending {@link SunstoneCloudDeployer#getOrder() order}. If {@link CoreConfig#DEPLOY_PARALLEL}
+     * is enabled, deployments with the same order are deployed concurrently and all of them are finished (or failed) before
+     * the next order is processed. Successful deployments are registered for undeploy by the deployers even if other
+     * deployments fail.
+     */
     protected static void handleCloudDeployAnnotations(ExtensionContext ctx) {
-        Annotation[] annotations = ctx.getRequiredTestClass().getAnnotations();
-        Arrays.stream(ctx.getRequiredTestClass().getAnnotations())
+        handleCloudDeployAnnotations(ctx, () -> { });
+    }
+
+    /**
+     * Same as {@link #handleCloudDeployAnnotations(ExtensionContext)}, {@code beforeDeploy} is run before every deployment
+     * is started and may stop the deployment by throwing an exception.
+     */
+    static void handleCloudDeployAnnotations(ExtensionContext ctx, Runnable beforeDeploy) {
+        Map<Integer, List<Map.Entry<Annotation, SunstoneCloudDeployer>>> deployersByOrder = getCloudDeployers(ctx.getRequiredTestClass()).stream()
+                .collect(Collectors.groupingBy(e -> e.getValue().getOrder(), TreeMap::new, Collectors.toList()));
+
+        boolean parallel = SunstoneConfigResolver.getValue(CoreConfig.DEPLOY_PARALLEL, false);
+        String testClass = ctx.getRequiredTestClass().getName();
+        for (List<Map.Entry<Annotation, SunstoneCloudDeployer>> deployers : deployersByOrder.values()) {
+            if (!parallel || deployers.size() == 1) {
+                for (Map.Entry<Annotation, SunstoneCloudDeployer> deployer : deployers) {
+                    beforeDeploy.run();
+                    deploy(ctx, deployer.getKey(), deployer.getValue());
+                }
+            } else {
+                List<Callable<Void>> tasks = deployers.stream()
+                        .map(deployer -> (Callable<Void>) () -> {
+                            try (SunstoneTimings.Scope scope = SunstoneTimings.forClass(testClass)) {
+                                beforeDeploy.run();
+                                deploy(ctx, deployer.getKey(), deployer.getValue());
+                            }
+                            return null;
+                        })
+                        .collect(Collectors.toList());
+                List<Throwable> failures = ConcurrencyUtils.invokeAll("sunstone-deploy", SunstoneConfigResolver.getValue(CoreConfig.DEPLOY_THREADS, 4), tasks);
+                RuntimeException failure = ConcurrencyUtils.aggregate("Unable to deploy cloud resources for " + ctx.getRequiredTestClass().getName(), failures);
+                if (failure != null) {
+                    throw failure;
+                }
+            }
+        }
+    }
+
+    /**
+     * Cloud deploy annotations of the test class (repeatable containers are unwrapped) with their deployers.
+     */
+    static List<Map.Entry<Annotation, SunstoneCloudDeployer>> getCloudDeployers(Class<?> testClass) {
+        return Arrays.stream(testClass.getAnnotations())
                 .filter(ann -> AnnotationUtils.isAnnotatedBy(ann.annotationType(), SunstoneCloudDeployAnnotation.class))
-                .forEachOrdered(ann -> {
+                .flatMap(ann -> AnnotationUtils.unwrapRepeatable(ann).stream())
+                .map(ann -> {
                     Optional<SunstoneCloudDeployer> deployer = getDeployer(ann);
                     deployer.orElseThrow(() -> new RuntimeException("Unable to load a service via SPI that handles " + ann.annotationType() + " annotation."));
-                    try {
-                        deployer.get().deployAndRegisterForUndeploy(ctx);
-                    } catch (SunstoneException e) {
-                        throw new RuntimeException("Unable to deploy " + ann, e);
-                    }
-
-                });
+                    return (Map.Entry<Annotation, SunstoneCloudDeployer>) new AbstractMap.SimpleImmutableEntry<>(ann, deployer.get());
+                })
+                .collect(Collectors.toList());
     }
 
-    static <A extends Annotation> Optional<SunstoneCloudDeployer> getDeployer(Annotation annotation) {
-        for (SunstoneCloudDeployerProvider sunstoneCloudDeployerProvider : sunstoneCloudDeployerProviderLoader) {
-            Optional<SunstoneCloudDeployer> deployer = sunstoneCloudDeployerProvider.create(annotation);
-            if (deployer.isPresent()) {
-                return deployer;
-            }
+    private static void deploy(ExtensionContext ctx, Annotation annotation, SunstoneCloudDeployer deployer) {
+        try (SunstoneTimings.Phase phase = SunstoneTimings.start("cloud-deploy", annotation.toString())) {
+            deployer.deployAndRegisterForUndeploy(ctx);
+            phase.success();
+        } catch (SunstoneException e) {
+            throw new RuntimeException("Unable to deploy " + annotation, e);
         }
-        return Optional.empty();
     }
 
-    static Optional<SunstoneResourceInjector> getSunstoneResourceInjector(Field field) {
-        for (SunstoneResourceInjectorProvider provider : sunstoneResourceInjectorProviderLoader) {
-            Optional<SunstoneResourceInjector> injector = provider.create(field);
-            if (injector.isPresent()) {
-                return injector;
-            }
-        }
-        return Optional.empty();
+    static <A extends Annotation> Optional<SunstoneCloudDeployer> getDeployer(Annotation annotation) {
+        return SunstoneProviderRegistry.get().getCloudDeployer(annotation);
     }
 
     static Optional<Annotation> getAndCheckInjectionAnnotation(Field field) throws IllegalArgumentSunstoneException {
@@ -152,102 +197,36 @@ public class SunstoneExtension implements BeforeAllCallback, AfterAllCallback, T
         return allFields;
     }
 
-    static void handleInjection(ExtensionContext ctx, Object instance, Field field) {
-        SunstoneStore store = SunstoneStore.get(ctx);
-        try {
-            Optional<Annotation> injectionAnnotation = getAndCheckInjectionAnnotation(field);
-            if (injectionAnnotation.isPresent()) {
-                SunstoneResourceInjector injector = getSunstoneResourceInjector(field).orElseThrow(() -> new RuntimeException(format("Unable to load a service via SPI that can inject into %s %s in %s class", field.getType().getName(), field.getName(), field.getDeclaringClass().getName())));
-                Object injectObject = injector.getResource(ctx);
-                store.addClosable((AutoCloseable) () -> injector.closeResource(injectObject));
-                field.setAccessible(true);
-                field.set(instance, injectObject);
-            }
-        } catch (SunstoneException e) {
-            throw new RuntimeException(format("Unable to inject %s %s in %s", field.getType().getName(), field.getName(), field.getDeclaringClass()), e);
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
     static Optional<SunstoneArchiveDeployer> getArchiveDeployer(Method method) {
-        for (SunstoneArchiveDeployerProvider sunstoneCloudDeployerProvider : sunstoneArchiveDeployerProviderLoader) {
-            Optional<SunstoneArchiveDeployer> deployer = sunstoneCloudDeployerProvider.create(method);
-            if (deployer.isPresent()) {
-                return deployer;
-            }
-        }
-        return Optional.empty();
+        return SunstoneProviderRegistry.get().getArchiveDeployer(method);
     }
     static void performDeploymentOperation(ExtensionContext ctx) throws SunstoneException {
-        List<Method> annotatedMethods = AnnotationSupport.findAnnotatedMethods(ctx.getRequiredTestClass(), Deployment.class, HierarchyTraversalMode.TOP_DOWN);
-        SunstoneStore store = SunstoneStore.get(ctx);
-
-        try {
-            for (Method method : annotatedMethods) {
-                if (!Modifier.isStatic(method.getModifiers())) {
-                    throw new IllegalArgumentSunstoneException("Deployment method must be static");
-                }
-                if (method.getParameterCount() != 0) {
-                    throw new IllegalArgumentSunstoneException("Deployment method must have 0 parameters");
-                }
-                Deployment annotation = method.getAnnotation(Deployment.class);
-                String deploymentName = StringUtils.isBlank(annotation.name()) ? "" : SunstoneConfigResolver.resolveExpressionToString(annotation.name());
-
-                method.setAccessible(true);
-                Object invoke = method.invoke(null);
-                if (invoke == null) {
-                    throw new RuntimeException(format("%s in %s returned null", method.getName(), method.getDeclaringClass().getName()));
-                }
-                SunstoneArchiveDeployer archiveDeployer = getArchiveDeployer(method).orElseThrow(() -> new SunstoneException("todo"));
-                archiveDeployer.deploy(deploymentName, invoke, ctx);
-                store.addClosable((AutoCloseable) () -> archiveDeployer.undeploy(deploymentName, ctx));
-
-            }
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException(e);
-        } catch (InvocationTargetException e) {
-            throw new RuntimeException(e);
-        }
+        DeploymentArchives.create(ctx, false).deploy(ctx);
     }
 
     static void injectInstanceResources(ExtensionContext ctx, Object instance) {
-        for (Field field : getAllFieldsList(instance.getClass(), field -> !Modifier.isStatic(field.getModifiers()))) {
-            handleInjection(ctx, instance, field);
-        }
+        InjectionPlan.of(instance.getClass()).injectInstanceFields(ctx, instance);
     }
 
     static void injectStaticResources(ExtensionContext ctx, Class<?> clazz) {
-        for (Field field : getAllFieldsList(clazz, field -> Modifier.isStatic(field.getModifiers()))) {
-            handleInjection(ctx, null, field);
-        }
+        InjectionPlan.of(clazz).injectStaticFields(ctx);
     }
 
     @Override
     public void postProcessTestInstance(Object testInstance, ExtensionContext ctx) throws Exception {
-        injectInstanceResources(ctx, testInstance);
+        try (SunstoneTimings.Scope scope = SunstoneTimings.forClass(ctx.getRequiredTestClass().getName());
+             SunstoneTimings.Phase phase = SunstoneTimings.start("inject-instance", ctx.getRequiredTestClass().getName())) {
+            injectInstanceResources(ctx, testInstance);
+            phase.success();
+        }
     }
 
     @Override
     public void afterAll(ExtensionContext ctx) throws Exception {
-        Object ref = new Object() {
-            Exception e = null;
-        };
-        Throwable thr = null;
-        Iterator<Closeable> iterator = get(ctx).getClosablesOrCreate().iterator();
-        while (iterator.hasNext()) {
-            try {
-                iterator.next().close();
-            } catch (Throwable t) {
-                if (thr == null) {
-                    thr = t;
-                } else {
-                    t.printStackTrace();
-                }
-            }
-        }
-        if (thr != null) {
-            throw new RuntimeException(thr);
+        try (SunstoneTimings.Scope scope = SunstoneTimings.forClass(ctx.getRequiredTestClass().getName());
+             SunstoneTimings.Phase phase = SunstoneTimings.start("teardown", ctx.getRequiredTestClass().getName())) {
+            ClosablesTeardown.closeAll(get(ctx).getClosablesOrCreate(), ctx.getRequiredTestClass().getName());
+            phase.success();
         }
     }
 }
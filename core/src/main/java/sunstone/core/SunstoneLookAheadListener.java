@@ -0,0 +1,174 @@
+package sunstone.core;
+
+
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.TestPlan;
+import sunstone.core.api.SunstoneCloudDeployer;
+import sunstone.core.api.SuiteLevelDeployment;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Manages suite level deployments (e.g. {@code perSuite} templates) using the knowledge of the test plan.
+ * <p>
+ * Look-ahead ({@link CoreConfig#DEPLOY_LOOKAHEAD}): deploys suite level deployments of upcoming test classes ahead of
+ * time, while earlier classes run. {@link SunstoneExtension} then only waits for the running deployment. Whenever a
+ * test class starts, the next N distinct suite level deployments of the following classes are started in the
+ * background. Only deployments that don't depend on other deployments of a class (with the lowest order) are deployed
+ * ahead of time. Deployments no class adopted (e.g. the classes were skipped) are undeployed once the execution
+ * finishes.
+ * <p>
+ * Early release ({@link CoreConfig#TEARDOWN_EARLY_RELEASE}): counts test classes of the test plan that need a suite level
+ * deployment and undeploys it in the background as soon as the last of them finishes (or is skipped).
+ * <p>
+ * Registered automatically via {@code META-INF/services}. Does nothing unless one of the modes is enabled.
+ */
+public class SunstoneLookAheadListener implements TestExecutionListener {
+    private int lookAhead;
+    private boolean earlyRelease;
+    private TestPlan testPlan;
+    private final Map<String, Integer> classIndexes = new HashMap<>();
+    private final List<SuiteLevelDeployment> deployments = new ArrayList<>();
+    // index of the first class that needs the deployment on the same position
+    private final List<Integer> firstClassIndexes = new ArrayList<>();
+    private int prefetched;
+    private final Map<String, List<String>> classKeys = new HashMap<>();
+    private final Map<String, Integer> referenceCounts = new HashMap<>();
+
+    @Override
+    public synchronized void testPlanExecutionStarted(TestPlan testPlan) {
+        this.lookAhead = SunstoneConfigResolver.getValue(CoreConfig.DEPLOY_LOOKAHEAD, 0);
+        this.earlyRelease = SunstoneConfigResolver.getValue(CoreConfig.TEARDOWN_EARLY_RELEASE, false);
+        this.testPlan = testPlan;
+        classIndexes.clear();
+        deployments.clear();
+        firstClassIndexes.clear();
+        prefetched = 0;
+        classKeys.clear();
+        referenceCounts.clear();
+        if (lookAhead <= 0 && !earlyRelease) {
+            return;
+        }
+        Set<String> keys = new HashSet<>();
+        for (TestIdentifier root : testPlan.getRoots()) {
+            scan(root, keys);
+        }
+        SunstoneLogger.DEFAULT.debug("Suite level deployments in the order of the test plan: {}",
+                deployments.stream().map(SuiteLevelDeployment::getKey).collect(Collectors.toList()));
+        if (lookAhead > 0) {
+            prefetch(-1);
+        }
+    }
+
+    @Override
+    public synchronized void executionStarted(TestIdentifier testIdentifier) {
+        Integer classIndex = classIndexes.get(testIdentifier.getUniqueId());
+        if (lookAhead > 0 && classIndex != null) {
+            prefetch(classIndex);
+        }
+    }
+
+    @Override
+    public synchronized void executionFinished(TestIdentifier testIdentifier, TestExecutionResult testExecutionResult) {
+        if (earlyRelease) {
+            release(testIdentifier);
+        }
+    }
+
+    @Override
+    public synchronized void executionSkipped(TestIdentifier testIdentifier, String reason) {
+        if (earlyRelease) {
+            release(testIdentifier);
+            testPlan.getDescendants(testIdentifier).forEach(this::release);
+        }
+    }
+
+    @Override
+    public synchronized void testPlanExecutionFinished(TestPlan testPlan) {
+        if (lookAhead <= 0 && !earlyRelease) {
+            return;
+        }
+        try {
+            SuiteLevelDeploymentRegistry.undeployNotAdopted();
+        } catch (RuntimeException e) {
+            SunstoneLogger.DEFAULT.error("Unable to undeploy suite level deployments deployed ahead of time", e);
+        }
+    }
+
+    private void scan(TestIdentifier identifier, Set<String> keys) {
+        if (identifier.isContainer() && identifier.getSource().filter(ClassSource.class::isInstance).isPresent()) {
+            int classIndex = classIndexes.size();
+            classIndexes.put(identifier.getUniqueId(), classIndex);
+            Class<?> testClass = ((ClassSource) identifier.getSource().get()).getJavaClass();
+            try {
+                scanClass(identifier, testClass, classIndex, keys);
+            } catch (RuntimeException e) {
+                SunstoneLogger.DEFAULT.warn("Unable to get suite level deployments of {}, they are managed by the extension only", testClass.getName(), e);
+            }
+        }
+        for (TestIdentifier child : testPlan.getChildren(identifier)) {
+            scan(child, keys);
+        }
+    }
+
+    private void scanClass(TestIdentifier identifier, Class<?> testClass, int classIndex, Set<String> keys) {
+        List<Map.Entry<Annotation, SunstoneCloudDeployer>> deployers = SunstoneExtension.getCloudDeployers(testClass);
+        // a suite level deployment may depend on any deployment of the class with lower order
+        int firstOrder = deployers.stream().mapToInt(e -> e.getValue().getOrder()).min().orElse(0);
+        List<String> keysOfClass = new ArrayList<>();
+        for (Map.Entry<Annotation, SunstoneCloudDeployer> deployer : deployers) {
+            for (SuiteLevelDeployment deployment : deployer.getValue().getSuiteLevelDeployments()) {
+                if (!keysOfClass.contains(deployment.getKey())) {
+                    keysOfClass.add(deployment.getKey());
+                    referenceCounts.merge(deployment.getKey(), 1, Integer::sum);
+                }
+                if (deployment.getOrder() == firstOrder && keys.add(deployment.getKey())) {
+                    deployments.add(deployment);
+                    firstClassIndexes.add(classIndex);
+                }
+            }
+        }
+        classKeys.put(identifier.getUniqueId(), keysOfClass);
+    }
+
+    /**
+     * Start the next {@link #lookAhead} deployments not needed by classes up to {@code classIndex}. Deployments needed
+     * by those classes are started as well if they are not yet.
+     */
+    private void prefetch(int classIndex) {
+        int windowStart = 0;
+        while (windowStart < deployments.size() && firstClassIndexes.get(windowStart) <= classIndex) {
+            windowStart++;
+        }
+        int windowEnd = Math.min(deployments.size(), windowStart + lookAhead);
+        while (prefetched < windowEnd) {
+            SuiteLevelDeploymentRegistry.prefetch(deployments.get(prefetched++));
+        }
+    }
+
+    /**
+     * The class doesn't need its suite level deployments anymore. Release those no other class needs.
+     */
+    private void release(TestIdentifier identifier) {
+        List<String> keys = classKeys.remove(identifier.getUniqueId());
+        if (keys == null) {
+            return;
+        }
+        for (String key : keys) {
+            if (referenceCounts.merge(key, -1, Integer::sum) == 0) {
+                referenceCounts.remove(key);
+                SuiteLevelDeploymentRegistry.release(key);
+            }
+        }
+    }
+}
@@ -3,15 +3,18 @@ package sunstone.core;
 
 import org.junit.jupiter.api.extension.ExtensionContext;
 import org.junit.jupiter.api.extension.ExtensionContext.Store;
+import sunstone.core.api.SuiteLevelDeployment;
+import sunstone.core.exceptions.SunstoneException;
 
 import java.io.Closeable;
 import java.lang.annotation.Annotation;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.HashSet;
+import java.util.Optional;
 import java.util.Set;
-import java.util.UUID;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.function.Consumer;
 
 /**
  * An abstraction over JUnit5 Extension store providing methods to set commonly used resources.
@@ -19,8 +22,10 @@ import java.util.concurrent.ConcurrentLinkedDeque;
 public class SunstoneStore {
     private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create("sunstone", "core", "SunstoneStore");
     private static final String CLOSABLES = "closables";
+    private static final String SUITE_LEVEL_CLOSABLES = "sunstoneSuiteLevelClosables";
 
     private static final String SUITE_LEVEL_DEPLOYMENTS = "sunstoneSuiteLevelDeployments";
+    private static final String RESOURCE_CACHE = "sunstoneResourceCache";
 
     private final ExtensionContext context;
 
@@ -38,38 +43,130 @@ public class SunstoneStore {
 
 
     /**
-     * Add {@link ExtensionContext.Store.CloseableResource} to the root global store.
+     * Add closable to the suite level closables stack that is closed once the root global store is closed.
      */
     public void addSuiteLevelClosable(AutoCloseable closable) {
-        Store store = context.getRoot().getStore(ExtensionContext.Namespace.GLOBAL);
-        store.put(UUID.randomUUID().toString(), (ExtensionContext.Store.CloseableResource) closable::close);
+        getSuiteLevelClosablesOrCreate().push(wrap(closable));
     }
     /**
-     * Add {@link ExtensionContext.Store.CloseableResource} to the root global store.
+     * Add closable to the suite level closables stack that is closed once the root global store is closed.
      */
     public void addSuiteLevelClosable(Closeable closable) {
+        getSuiteLevelClosablesOrCreate().push(closable);
+    }
+
+    /**
+     * Add closable that doesn't depend on other suite level closables, e.g. deleting a whole cloud stack.
+     * See {@link #addIndependentClosable(AutoCloseable)}.
+     */
+    public void addSuiteLevelIndependentClosable(AutoCloseable closable) {
+        getSuiteLevelClosablesOrCreate().push(new ClosablesTeardown.IndependentClosable(closable));
+    }
+
+    Deque<Closeable> getSuiteLevelClosablesOrCreate() {
         Store store = getContext().getRoot().getStore(ExtensionContext.Namespace.GLOBAL);
-        store.put(UUID.randomUUID().toString(), (ExtensionContext.Store.CloseableResource) closable::close);
+        return store.getOrComputeIfAbsent(SUITE_LEVEL_CLOSABLES, k -> new SuiteLevelClosables(), SuiteLevelClosables.class).closables;
+    }
+
+    /**
+     * Deploy the suite level deployment unless the same deployment (by key) is already deployed or being deployed, e.g.
+     * ahead of time by {@link SunstoneLookAheadListener}. In that case, wait for it. Undeploy is registered as a suite
+     * level closable once per deployment.
+     *
+     * @return handle of the deployed environment, see {@link SuiteLevelDeployment#deploy()}
+     */
+    public String deploySuiteLevel(SuiteLevelDeployment deployment) throws SunstoneException {
+        SuiteLevelDeploymentRegistry.Acquired acquired = SuiteLevelDeploymentRegistry.acquire(deployment);
+        if (acquired.adopted) {
+            addSuiteLevelIndependentClosable(acquired::undeploy);
+        }
+        return acquired.handle;
+    }
+
+    /**
+     * Deploy the suite level deployment like {@link #deploySuiteLevel(SuiteLevelDeployment)} and keep the resource cache
+     * consistent with it: the environment is indexed by {@code index} once it is adopted by the suite and cached resources
+     * of the provider in the scope (region, resource group) are invalidated once it is undeployed.
+     *
+     * @param index called with the handle of the environment, e.g. to {@link ResourceCache#put(String, String, String, String, Object) index}
+     *              its resources
+     */
+    public String deploySuiteLevel(SuiteLevelDeployment deployment, String provider, String scope, Consumer<String> index) throws SunstoneException {
+        SuiteLevelDeploymentRegistry.Acquired acquired = SuiteLevelDeploymentRegistry.acquire(deployment);
+        if (acquired.adopted) {
+            ResourceCache cache = getResourceCache();
+            acquired.onUndeploy(() -> cache.invalidate(provider, scope));
+            addSuiteLevelIndependentClosable(acquired::undeploy);
+            index.accept(acquired.handle);
+        }
+        return acquired.handle;
     }
 
     /**
      * Add sum to the root global store.
+     *
+     * @return false if the sum is already present, i.e. the deployment is done (or being done) by someone else
+     * @deprecated checking and deploying is not atomic, use {@link #deploySuiteLevel(SuiteLevelDeployment)}
      */
-    public void addSuiteLevelDeployment(Annotation annotation) {
+    @Deprecated
+    public boolean addSuiteLevelDeployment(Annotation annotation) {
         Store store = getContext().getRoot().getStore(ExtensionContext.Namespace.GLOBAL);
         Set<Annotation> checkSums = (Set<Annotation>) store.getOrComputeIfAbsent(SUITE_LEVEL_DEPLOYMENTS, s -> Collections.synchronizedSet(new HashSet<>()));
-        checkSums.add(annotation);
+        return checkSums.add(annotation);
+    }
+
+    /**
+     * Remove sum from the root global store, e.g. if the deployment failed.
+     *
+     * @deprecated checking and deploying is not atomic, use {@link #deploySuiteLevel(SuiteLevelDeployment)}
+     */
+    @Deprecated
+    public void removeSuiteLevelDeployment(Annotation annotation) {
+        Store store = getContext().getRoot().getStore(ExtensionContext.Namespace.GLOBAL);
+        Set<Annotation> checkSums = (Set<Annotation>) store.getOrComputeIfAbsent(SUITE_LEVEL_DEPLOYMENTS, s -> Collections.synchronizedSet(new HashSet<>()));
+        checkSums.remove(annotation);
     }
 
     /**
      * Check if sum is present in root global store.
+     *
+     * @deprecated checking and deploying is not atomic, use {@link #deploySuiteLevel(SuiteLevelDeployment)}
      */
+    @Deprecated
     public boolean suiteLevelDeploymentExists(Annotation annotation) {
         Store store = getContext().getRoot().getStore(ExtensionContext.Namespace.GLOBAL);
         Set<Annotation> checkSums = (Set<Annotation>) store.getOrComputeIfAbsent(SUITE_LEVEL_DEPLOYMENTS, s -> Collections.synchronizedSet(new HashSet<>()));
         return checkSums.contains(annotation);
     }
 
+    /**
+     * Resource cache of the suite, it lives in the root store.
+     */
+    public ResourceCache getResourceCache() {
+        Store store = getContext().getRoot().getStore(ExtensionContext.Namespace.GLOBAL);
+        return store.getOrComputeIfAbsent(RESOURCE_CACHE, k -> new ResourceCache(), ResourceCache.class);
+    }
+
+    /**
+     * Get a cloud resource from the resource cache of the suite or look it up, see {@link CoreConfig#RESOURCE_CACHE_TTL}.
+     *
+     * @param provider cloud provider, e.g. {@code azure}
+     * @param type     type of the resource, e.g. {@code VirtualMachine}
+     * @param name     resolved name of the resource
+     * @param scope    resolved resource group or region of the resource, see {@link #invalidateCachedResources(String, String)}
+     */
+    public <T> Optional<T> getCachedResource(String provider, String type, String name, String scope, ResourceLookup<T> lookup) throws SunstoneException {
+        return getResourceCache().getOrLookup(provider, type, name, scope, lookup);
+    }
+
+    /**
+     * Forget cached resources of the provider in the scope (resource group, region), e.g. once a cloud deployment is
+     * undeployed.
+     */
+    public void invalidateCachedResources(String provider, String scope) {
+        getResourceCache().invalidate(provider, scope);
+    }
+
     Deque<Closeable> getClosablesOrCreate() {
         return getStore().getOrComputeIfAbsent(CLOSABLES, k -> new ConcurrentLinkedDeque<Closeable>(), Deque.class);
     }
@@ -78,16 +175,45 @@ public class SunstoneStore {
         getClosablesOrCreate().push(closable);
     }
     public void addClosable(AutoCloseable closable) {
-        getClosablesOrCreate().push(() -> {
+        getClosablesOrCreate().push(wrap(closable));
+    }
+
+    /**
+     * Add closable that doesn't depend on its neighbours in the closables stack, e.g. deleting a whole cloud stack or
+     * resource group. Adjacent independent closables may be closed concurrently, see {@link ClosablesTeardown}.
+     */
+    public void addIndependentClosable(AutoCloseable closable) {
+        getClosablesOrCreate().push(new ClosablesTeardown.IndependentClosable(closable));
+    }
+
+    private static Closeable wrap(AutoCloseable closable) {
+        return () -> {
             try {
                 closable.close();
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
-        });
+        };
     }
 
     protected ExtensionContext getContext() {
         return context;
     }
+
+    @FunctionalInterface
+    public interface ResourceLookup<T> {
+        Optional<T> lookup() throws SunstoneException;
+    }
+
+    /**
+     * Suite level closables stack closed by JUnit once the root store is closed.
+     */
+    static class SuiteLevelClosables implements ExtensionContext.Store.CloseableResource {
+        private final Deque<Closeable> closables = new ConcurrentLinkedDeque<>();
+
+        @Override
+        public void close() {
+            ClosablesTeardown.closeAll(closables, "the suite");
+        }
+    }
 }
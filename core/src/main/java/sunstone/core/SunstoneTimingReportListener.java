@@ -0,0 +1,36 @@
+package sunstone.core;
+
+
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestPlan;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Writes the {@link SunstoneTimings} report to {@link CoreConfig#TIMING_REPORT} once the test plan is finished.
+ * <p>
+ * Registered automatically via {@code META-INF/services}. Does nothing unless the report is enabled.
+ */
+public class SunstoneTimingReportListener implements TestExecutionListener {
+
+    @Override
+    public void testPlanExecutionStarted(TestPlan testPlan) {
+        SunstoneTimings.clear();
+    }
+
+    @Override
+    public void testPlanExecutionFinished(TestPlan testPlan) {
+        if (!SunstoneTimings.isEnabled()) {
+            return;
+        }
+        Path report = Paths.get(SunstoneConfigResolver.getValue(CoreConfig.TIMING_REPORT, ""));
+        try {
+            SunstoneTimings.writeReport(report, SunstoneTimings.getRecords());
+            SunstoneLogger.DEFAULT.info("Sunstone timing report written to {}", report.toAbsolutePath());
+        } catch (IOException e) {
+            SunstoneLogger.DEFAULT.error("Unable to write Sunstone timing report to {}", report, e);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package sunstone.core;
+
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how long phases of the Sunstone work (cloud deploy, resource lookup, archive deploy, teardown, ...) take.
+ * Records are collected only if {@link CoreConfig#TIMING_REPORT} is set, {@link SunstoneTimingReportListener} writes
+ * them to a JSON report once the test plan is finished.
+ * <pre>
+ * try (SunstoneTimings.Phase phase = SunstoneTimings.start("cloud-deploy", template)) {
+ *     // deploy
+ *     phase.success();
+ * }
+ * </pre>
+ * A phase belongs to the test class the current thread works for ({@link #forClass(String)}), phases out of a test
+ * class (e.g. suite level deployments deployed ahead of time) are reported in the {@code suite} section.
+ */
+public class SunstoneTimings {
+    private static final Queue<Record> records = new ConcurrentLinkedQueue<>();
+    private static final ThreadLocal<String> currentClass = new ThreadLocal<>();
+    private static final Phase NOOP = new Phase(false, null, null, null, SunstoneEvents.NOOP);
+
+    public static boolean isEnabled() {
+        return !SunstoneConfigResolver.getValue(CoreConfig.TIMING_REPORT, "").isEmpty();
+    }
+
+    /**
+     * Start a phase. The phase is recorded once it is closed, as failed unless {@link Phase#success()} was called.
+     *
+     * @param detail what the phase works on, e.g. a template or a field, may be null
+     */
+    public static Phase start(String phase, String detail) {
+        return start(phase, detail, SunstoneEvents.NOOP);
+    }
+
+    /**
+     * Start a phase that also emits the JFR event ({@link SunstoneEvents}). The phase marks the event successful and
+     * commits it, even if timings are not collected.
+     */
+    public static Phase start(String phase, String detail, SunstoneEvents.Recording event) {
+        boolean enabled = isEnabled();
+        if (!enabled && event == SunstoneEvents.NOOP) {
+            return NOOP;
+        }
+        return new Phase(enabled, currentClass.get(), phase, detail, event);
+    }
+
+    /**
+     * Attribute phases started by the current thread to the test class until the returned scope is closed.
+     */
+    public static Scope forClass(String testClass) {
+        String previous = currentClass.get();
+        currentClass.set(testClass);
+        return () -> currentClass.set(previous);
+    }
+
+    static List<Record> getRecords() {
+        return new ArrayList<>(records);
+    }
+
+    static void clear() {
+        records.clear();
+    }
+
+    /**
+     * Write the report: records grouped by test class and totals per phase.
+     */
+    static void writeReport(Path file, List<Record> records) throws IOException {
+        Map<String, List<Record>> byClass = new LinkedHashMap<>();
+        Map<String, long[]> byPhase = new LinkedHashMap<>();
+        records.sort((a, b) -> Long.compare(a.start, b.start));
+        for (Record record : records) {
+            byClass.computeIfAbsent(record.testClass == null ? "suite" : record.testClass, k -> new ArrayList<>()).add(record);
+            // count, failures, total, max
+            long[] totals = byPhase.computeIfAbsent(record.phase, k -> new long[4]);
+            totals[0]++;
+            totals[1] += record.success ? 0 : 1;
+            totals[2] += record.durationMillis();
+            totals[3] = Math.max(totals[3], record.durationMillis());
+        }
+
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("{\n  \"classes\": [");
+            String separator = "\n";
+            for (Map.Entry<String, List<Record>> testClass : byClass.entrySet()) {
+                List<Record> phases = testClass.getValue();
+                long start = phases.stream().mapToLong(r -> r.start).min().orElse(0);
+                long end = phases.stream().mapToLong(r -> r.start + r.durationMillis()).max().orElse(0);
+                out.write(separator + "    {\"class\": " + quote(testClass.getKey()) + ", \"start\": " + start + ", \"durationMs\": " + (end - start) + ", \"phases\": [");
+                String phaseSeparator = "\n";
+                for (Record record : phases) {
+                    out.write(phaseSeparator + "      {\"phase\": " + quote(record.phase) + ", \"detail\": " + quote(record.detail)
+                            + ", \"thread\": " + quote(record.thread) + ", \"start\": " + record.start
+                            + ", \"durationMs\": " + record.durationMillis() + ", \"outcome\": " + quote(record.success ? "success" : "failure") + "}");
+                    phaseSeparator = ",\n";
+                }
+                out.write("\n    ]}");
+                separator = ",\n";
+            }
+            out.write("\n  ],\n  \"phases\": [");
+            separator = "\n";
+            for (Map.Entry<String, long[]> phase : byPhase.entrySet()) {
+                long[] totals = phase.getValue();
+                out.write(separator + "    {\"phase\": " + quote(phase.getKey()) + ", \"count\": " + totals[0] + ", \"failures\": " + totals[1]
+                        + ", \"totalMs\": " + totals[2] + ", \"maxMs\": " + totals[3] + "}");
+                separator = ",\n";
+            }
+            out.write("\n  ]\n}\n");
+        }
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"':
+                    quoted.append("\\\"");
+                    break;
+                case '\\':
+                    quoted.append("\\\\");
+                    break;
+                case '\n':
+                    quoted.append("\\n");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    public static class Phase implements AutoCloseable {
+        private final boolean recorded;
+        private final String testClass;
+        private final String phase;
+        private final String detail;
+        private final SunstoneEvents.Recording event;
+        private final long start = System.currentTimeMillis();
+        private final long startNanos = System.nanoTime();
+        private boolean success;
+
+        private Phase(boolean recorded, String testClass, String phase, String detail, SunstoneEvents.Recording event) {
+            this.recorded = recorded;
+            this.testClass = testClass;
+            this.phase = phase;
+            this.detail = detail;
+            this.event = event;
+        }
+
+        /**
+         * Mark the phase (and its event) as successful.
+         */
+        public void success() {
+            success = true;
+            event.success();
+        }
+
+        @Override
+        public void close() {
+            if (recorded) {
+                records.add(new Record(testClass, phase, detail, Thread.currentThread().getName(), start, System.nanoTime() - startNanos, success));
+            }
+            event.close();
+        }
+    }
+
+    static class Record {
+        final String testClass;
+        final String phase;
+        final String detail;
+        final String thread;
+        final long start;
+        final long durationNanos;
+        final boolean success;
+
+        Record(String testClass, String phase, String detail, String thread, long start, long durationNanos, boolean success) {
+            this.testClass = testClass;
+            this.phase = phase;
+            this.detail = detail;
+            this.thread = thread;
+            this.start = start;
+            this.durationNanos = durationNanos;
+            this.success = success;
+        }
+
+        long durationMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package sunstone.core.api;
+
+/**
+ * A suite level deployment (e.g. a {@code perSuite} template) that can be deployed without an {@code ExtensionContext},
+ * hence also ahead of time, before a test class that needs it starts.
+ * <p>
+ * Deployments with the same {@link #getKey() key} are considered the same environment and are deployed only once.
+ */
+public interface SuiteLevelDeployment {
+    /**
+     * Identity of the deployed environment.
+     */
+    String getKey();
+
+    /**
+     * Order of the deployment within the test class, see {@link SunstoneCloudDeployer#getOrder()}. Only deployments
+     * with the lowest order of a class are deployed ahead of time as others may depend on them.
+     */
+    default int getOrder() {
+        return 0;
+    }
+
+    /**
+     * Deploy the environment.
+     *
+     * @return handle identifying the deployed environment, e.g. stack name or resource group
+     */
+    String deploy() throws Exception;
+
+    /**
+     * Undeploy the environment identified by the handle returned by {@link #deploy()}.
+     */
+    void undeploy(String handle) throws Exception;
+}
@@ -7,6 +7,17 @@ import sunstone.core.exceptions.SunstoneException;
  * Deployer service do deploy object. Modules providing such services determine scope of support.
  */
 public interface SunstoneArchiveDeployer {
+    /**
+     * Prepare the object returned by a {@code @Deployment} method for {@link #deploy(String, Object, ExtensionContext)},
+     * e.g. export an archive to bytes. Called before cloud resources exist, possibly concurrently with their deployment,
+     * so it must not use them.
+     *
+     * @return the object passed to deploy, the deployment itself by default
+     */
+    default Object prepare(Object deployment) throws SunstoneException {
+        return deployment;
+    }
+
     void deploy(String deploymentName, Object deployment, ExtensionContext ctx) throws SunstoneException;
     void undeploy(String deploymentName, ExtensionContext ctx) throws SunstoneException;
 }
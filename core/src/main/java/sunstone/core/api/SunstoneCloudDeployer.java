@@ -4,6 +4,26 @@ package sunstone.core.api;
 import org.junit.jupiter.api.extension.ExtensionContext;
 import sunstone.core.exceptions.SunstoneException;
 
+import java.util.Collections;
+import java.util.List;
+
 public interface SunstoneCloudDeployer {
     void deployAndRegisterForUndeploy(ExtensionContext ctx) throws SunstoneException;
+
+    /**
+     * Deployers with lower order are deployed first. Deployers with the same order don't depend on each other and may
+     * be deployed concurrently.
+     */
+    default int getOrder() {
+        return 0;
+    }
+
+    /**
+     * Suite level deployments the deployer does. Used to deploy them ahead of time
+     * (see {@link sunstone.core.CoreConfig#DEPLOY_LOOKAHEAD}) and to undeploy them once no other test class needs them
+     * (see {@link sunstone.core.CoreConfig#TEARDOWN_EARLY_RELEASE}).
+     */
+    default List<SuiteLevelDeployment> getSuiteLevelDeployments() {
+        return Collections.emptyList();
+    }
 }
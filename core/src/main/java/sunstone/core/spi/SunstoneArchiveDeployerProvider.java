@@ -3,9 +3,22 @@ package sunstone.core.spi;
 
 import sunstone.core.api.SunstoneArchiveDeployer;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.util.Collections;
 import java.util.Optional;
+import java.util.Set;
 
 public interface SunstoneArchiveDeployerProvider {
     Optional<SunstoneArchiveDeployer> create(Method method);
+
+    /**
+     * Annotation types identifying a deploy target the provider handles. A method annotation is handled if it is of
+     * such type or it is (in)directly annotated by it. Used by {@link SunstoneProviderRegistry} to index providers.
+     * <p>
+     * Empty set means the provider is asked for every method.
+     */
+    default Set<Class<? extends Annotation>> getHandledAnnotations() {
+        return Collections.emptySet();
+    }
 }
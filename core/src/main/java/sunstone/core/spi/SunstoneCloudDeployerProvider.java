@@ -3,8 +3,20 @@ package sunstone.core.spi;
 import sunstone.core.api.SunstoneCloudDeployer;
 
 import java.lang.annotation.Annotation;
+import java.util.Collections;
 import java.util.Optional;
+import java.util.Set;
 
 public interface SunstoneCloudDeployerProvider {
     Optional<SunstoneCloudDeployer> create(Annotation annotation);
+
+    /**
+     * Annotation types the provider handles. An annotation is handled if it is of such type or it is (in)directly
+     * annotated by it. Used by {@link SunstoneProviderRegistry} to index providers.
+     * <p>
+     * Empty set means the provider is asked for every annotation.
+     */
+    default Set<Class<? extends Annotation>> getHandledAnnotations() {
+        return Collections.emptySet();
+    }
 }
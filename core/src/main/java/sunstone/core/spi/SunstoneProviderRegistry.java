@@ -0,0 +1,169 @@
+package sunstone.core.spi;
+
+
+import sunstone.core.AnnotationUtils;
+import sunstone.core.api.SunstoneArchiveDeployer;
+import sunstone.core.api.SunstoneCloudDeployer;
+import sunstone.core.api.SunstoneResourceInjector;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Registry of Sunstone SPI providers.
+ * <p>
+ * Providers are loaded via {@link ServiceLoader} only once, when the registry is first used, and the registry is shared
+ * by all the test classes of the launcher session. Providers are indexed by the annotation types they handle
+ * (see {@link SunstoneCloudDeployerProvider#getHandledAnnotations()}) so that a lookup asks only the providers that may
+ * handle the annotation. The index is built lazily per annotation type and the registry is safe for concurrent use.
+ * <p>
+ * Providers are asked in the {@link ServiceLoader} order, the first non-empty result wins.
+ */
+public class SunstoneProviderRegistry {
+
+    private static class Holder {
+        static final SunstoneProviderRegistry INSTANCE = new SunstoneProviderRegistry();
+    }
+
+    private final ProviderIndex<SunstoneCloudDeployerProvider> cloudDeployerProviders;
+    private final ProviderIndex<SunstoneResourceInjectorProvider> resourceInjectorProviders;
+    private final ProviderIndex<SunstoneArchiveDeployerProvider> archiveDeployerProviders;
+
+    SunstoneProviderRegistry() {
+        this(load(SunstoneCloudDeployerProvider.class), load(SunstoneResourceInjectorProvider.class), load(SunstoneArchiveDeployerProvider.class));
+    }
+
+    SunstoneProviderRegistry(List<SunstoneCloudDeployerProvider> cloudDeployerProviders,
+                             List<SunstoneResourceInjectorProvider> resourceInjectorProviders,
+                             List<SunstoneArchiveDeployerProvider> archiveDeployerProviders) {
+        this.cloudDeployerProviders = new ProviderIndex<>(cloudDeployerProviders, SunstoneCloudDeployerProvider::getHandledAnnotations);
+        this.resourceInjectorProviders = new ProviderIndex<>(resourceInjectorProviders, SunstoneResourceInjectorProvider::getHandledAnnotations);
+        this.archiveDeployerProviders = new ProviderIndex<>(archiveDeployerProviders, SunstoneArchiveDeployerProvider::getHandledAnnotations);
+    }
+
+    public static SunstoneProviderRegistry get() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Get a cloud deployer for the cloud deploy annotation.
+     */
+    public Optional<SunstoneCloudDeployer> getCloudDeployer(Annotation annotation) {
+        for (SunstoneCloudDeployerProvider provider : cloudDeployerProviders.candidates(annotation.annotationType())) {
+            Optional<SunstoneCloudDeployer> deployer = provider.create(annotation);
+            if (deployer.isPresent()) {
+                return deployer;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Get a resource injector for the field.
+     *
+     * @param identification annotation of the field identifying the injected resource
+     */
+    public Optional<SunstoneResourceInjector> getResourceInjector(Field field, Annotation identification) {
+        return getResourceInjector(field, field.getType(), identification);
+    }
+
+    /**
+     * Get a resource injector of resources of the type for the field, see {@link SunstoneResourceInjectorProvider#create(Field, Class)}.
+     *
+     * @param identification annotation of the field identifying the injected resource
+     */
+    public Optional<SunstoneResourceInjector> getResourceInjector(Field field, Class<?> type, Annotation identification) {
+        for (SunstoneResourceInjectorProvider provider : resourceInjectorProviders.candidates(identification.annotationType())) {
+            Optional<SunstoneResourceInjector> injector = provider.create(field, type);
+            if (injector.isPresent()) {
+                return injector;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Get an archive deployer for the deployment method. Providers handling any of the method annotations are asked.
+     */
+    public Optional<SunstoneArchiveDeployer> getArchiveDeployer(Method method) {
+        Set<SunstoneArchiveDeployerProvider> candidates = new LinkedHashSet<>();
+        for (Annotation annotation : method.getAnnotations()) {
+            candidates.addAll(archiveDeployerProviders.candidates(annotation.annotationType()));
+        }
+        for (SunstoneArchiveDeployerProvider provider : archiveDeployerProviders.inLoadOrder(candidates)) {
+            Optional<SunstoneArchiveDeployer> deployer = provider.create(method);
+            if (deployer.isPresent()) {
+                return deployer;
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static <T> List<T> load(Class<T> service) {
+        List<T> providers = new ArrayList<>();
+        for (T provider : ServiceLoader.load(service)) {
+            providers.add(provider);
+        }
+        return Collections.unmodifiableList(providers);
+    }
+
+    /**
+     * Maps annotation type to the providers that may handle it. Providers that don't declare handled annotations are
+     * candidates for every annotation type.
+     */
+    private static class ProviderIndex<P> {
+        private final List<P> providers;
+        private final Function<P, Set<Class<? extends Annotation>>> handledAnnotations;
+        private final ConcurrentMap<Class<? extends Annotation>, List<P>> index = new ConcurrentHashMap<>();
+
+        ProviderIndex(List<P> providers, Function<P, Set<Class<? extends Annotation>>> handledAnnotations) {
+            this.providers = providers;
+            this.handledAnnotations = handledAnnotations;
+        }
+
+        List<P> candidates(Class<? extends Annotation> annotationType) {
+            return index.computeIfAbsent(annotationType, this::resolve);
+        }
+
+        private List<P> resolve(Class<? extends Annotation> annotationType) {
+            List<P> candidates = new ArrayList<>();
+            for (P provider : providers) {
+                Set<Class<? extends Annotation>> handled = handledAnnotations.apply(provider);
+                if (handled.isEmpty() || handles(handled, annotationType)) {
+                    candidates.add(provider);
+                }
+            }
+            return Collections.unmodifiableList(candidates);
+        }
+
+        private static boolean handles(Set<Class<? extends Annotation>> handled, Class<? extends Annotation> annotationType) {
+            for (Class<? extends Annotation> handledType : handled) {
+                if (handledType == annotationType || AnnotationUtils.isAnnotatedBy(annotationType, handledType)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        List<P> inLoadOrder(Set<P> candidates) {
+            List<P> result = new ArrayList<>(candidates.size());
+            for (P provider : providers) {
+                if (candidates.contains(provider)) {
+                    result.add(provider);
+                }
+            }
+            return result;
+        }
+    }
+}
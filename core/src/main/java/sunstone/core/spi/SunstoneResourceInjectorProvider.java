@@ -2,8 +2,11 @@ package sunstone.core.spi;
 
 import sunstone.core.api.SunstoneResourceInjector;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
+import java.util.Collections;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Service that returns {@link SunstoneResourceInjector}. Provider returns a service and promises it can inject
@@ -11,4 +14,25 @@ import java.util.Optional;
  */
 public interface SunstoneResourceInjectorProvider {
     Optional<SunstoneResourceInjector> create(Field field);
+
+    /**
+     * Create an injector of resources of {@code type} for the field. The type differs from the field type for lazily
+     * injected fields - it is {@code T} for {@link sunstone.inject.Lazy Lazy&lt;T&gt;} and {@code Supplier<T>} fields.
+     * <p>
+     * Providers that don't override the method support lazy injection only for {@link sunstone.annotation.LazyProxy}
+     * fields.
+     */
+    default Optional<SunstoneResourceInjector> create(Field field, Class<?> type) {
+        return type == field.getType() ? create(field) : Optional.empty();
+    }
+
+    /**
+     * Identification annotation types the provider handles. An annotation is handled if it is of such type or it is
+     * (in)directly annotated by it. Used by {@link SunstoneProviderRegistry} to index providers.
+     * <p>
+     * Empty set means the provider is asked for every injected field.
+     */
+    default Set<Class<? extends Annotation>> getHandledAnnotations() {
+        return Collections.emptySet();
+    }
 }
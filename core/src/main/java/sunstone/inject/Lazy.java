@@ -0,0 +1,20 @@
+package sunstone.inject;
+
+import java.util.function.Supplier;
+
+/**
+ * Lazily injected resource. A field of {@code Lazy<T>} (or {@code Supplier<T>}) type annotated by an identification
+ * annotation gets the resource {@code T} on the first {@link #get()} call instead of during the test class setup.
+ * The resource is closed with the rest of injected resources only if it was resolved.
+ */
+public interface Lazy<T> extends Supplier<T> {
+    /**
+     * Get the resource, resolve it on the first call.
+     *
+     * @throws RuntimeException if the resource can not be resolved, the call may be repeated
+     */
+    @Override
+    T get();
+
+    boolean isResolved();
+}
@@ -0,0 +1,34 @@
+package sunstone.core;
+
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AbstractSunstoneCloudDeployerTest {
+
+    @Test
+    public void suiteLevelDeploymentKeyIsCanonical() {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("a", "1");
+        params.put("b", "2");
+        Map<String, String> reversed = new LinkedHashMap<>();
+        reversed.put("b", "2");
+        reversed.put("a", "1");
+
+        String key = AbstractSunstoneCloudDeployer.suiteLevelDeploymentKey("aws", "{}\n", params, "us-east-1", null);
+        assertThat(AbstractSunstoneCloudDeployer.suiteLevelDeploymentKey("aws", "{}\r\n", reversed, "us-east-1", null)).isEqualTo(key);
+
+        assertThat(AbstractSunstoneCloudDeployer.suiteLevelDeploymentKey("aws", "{}", params, "eu-west-1", null)).isNotEqualTo(key);
+        assertThat(AbstractSunstoneCloudDeployer.suiteLevelDeploymentKey("aws", "{}", params, "us-east-1", "")).isNotEqualTo(key);
+        assertThat(AbstractSunstoneCloudDeployer.suiteLevelDeploymentKey("azure", "{}", params, "us-east-1", null)).isNotEqualTo(key);
+        Map<String, String> shifted = new HashMap<>();
+        shifted.put("a", "12");
+        shifted.put("b", "");
+        assertThat(AbstractSunstoneCloudDeployer.suiteLevelDeploymentKey("aws", "{}", shifted, "us-east-1", null)).isNotEqualTo(key);
+    }
+}
@@ -0,0 +1,74 @@
+package sunstone.core;
+
+
+import org.junit.jupiter.api.Test;
+
+import java.io.Closeable;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ClosablesTeardownTest {
+
+    @Test
+    public void independentClosablesClosedConcurrently() {
+        List<String> closed = new CopyOnWriteArrayList<>();
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        Deque<Closeable> closables = new ConcurrentLinkedDeque<>();
+
+        closables.push(() -> closed.add("client"));
+        closables.push(new ClosablesTeardown.IndependentClosable(() -> {
+            bothStarted.countDown();
+            // would time out if the stacks were deleted one by one
+            assertThat(bothStarted.await(10, TimeUnit.SECONDS)).isTrue();
+            closed.add("stack1");
+        }));
+        closables.push(new ClosablesTeardown.IndependentClosable(() -> {
+            bothStarted.countDown();
+            assertThat(bothStarted.await(10, TimeUnit.SECONDS)).isTrue();
+            closed.add("stack2");
+        }));
+        closables.push(() -> closed.add("archive"));
+
+        System.setProperty(CoreConfig.TEARDOWN_PARALLEL, "true");
+        try {
+            ClosablesTeardown.closeAll(closables, "test");
+        } finally {
+            System.clearProperty(CoreConfig.TEARDOWN_PARALLEL);
+        }
+
+        assertThat(closed).hasSize(4);
+        assertThat(closed.get(0)).isEqualTo("archive");
+        assertThat(closed.subList(1, 3)).containsExactlyInAnyOrder("stack1", "stack2");
+        assertThat(closed.get(3)).isEqualTo("client");
+        assertThat(closables).isEmpty();
+    }
+
+    @Test
+    public void failuresAggregated() {
+        List<String> closed = new CopyOnWriteArrayList<>();
+        Deque<Closeable> closables = new ConcurrentLinkedDeque<>();
+
+        closables.push(() -> closed.add("last"));
+        closables.push(new ClosablesTeardown.IndependentClosable(() -> {
+            throw new IllegalStateException("stack1");
+        }));
+        closables.push(new ClosablesTeardown.IndependentClosable(() -> {
+            throw new IllegalStateException("stack2");
+        }));
+        closables.push(() -> {
+            throw new IllegalStateException("archive");
+        });
+
+        assertThatThrownBy(() -> ClosablesTeardown.closeAll(closables, "test"))
+                .hasCauseInstanceOf(IllegalStateException.class)
+                .satisfies(e -> assertThat(e.getSuppressed()).hasSize(2));
+        assertThat(closed).containsExactly("last");
+    }
+}
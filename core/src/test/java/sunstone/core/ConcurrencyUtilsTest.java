@@ -0,0 +1,49 @@
+package sunstone.core;
+
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConcurrencyUtilsTest {
+
+    @Test
+    public void allTasksRunDespiteFailures() {
+        AtomicInteger finished = new AtomicInteger();
+        List<Callable<Void>> tasks = Arrays.asList(
+                () -> {
+                    throw new IllegalStateException("first");
+                },
+                () -> {
+                    finished.incrementAndGet();
+                    return null;
+                },
+                () -> {
+                    throw new IllegalArgumentException("second");
+                },
+                () -> {
+                    finished.incrementAndGet();
+                    return null;
+                });
+
+        List<Throwable> failures = ConcurrencyUtils.invokeAll("test", 2, tasks);
+
+        assertThat(finished.get()).isEqualTo(2);
+        assertThat(failures).hasSize(2);
+        RuntimeException aggregated = ConcurrencyUtils.aggregate("failed", failures);
+        assertThat(aggregated.getCause()).hasMessage("first");
+        assertThat(aggregated.getSuppressed()).hasSize(1);
+        assertThat(aggregated.getSuppressed()[0]).hasMessage("second");
+    }
+
+    @Test
+    public void noFailureNoException() {
+        List<Callable<Void>> tasks = Arrays.asList(() -> null, () -> null);
+        assertThat(ConcurrencyUtils.aggregate("failed", ConcurrencyUtils.invokeAll("test", 4, tasks))).isNull();
+    }
+}
@@ -0,0 +1,122 @@
+package sunstone.core;
+
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CrossJvmSuiteLevelDeploymentTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void lastLeaseUndeploys() throws Exception {
+        SuiteLevelDeploymentRegistryTest.CountingDeployment deployment = new SuiteLevelDeploymentRegistryTest.CountingDeployment();
+        // two JVMs sharing the directory
+        CrossJvmSuiteLevelDeployment first = new CrossJvmSuiteLevelDeployment(deployment, dir);
+        CrossJvmSuiteLevelDeployment second = new CrossJvmSuiteLevelDeployment(deployment, dir);
+
+        String handle = first.deploy();
+        assertThat(second.deploy()).isEqualTo(handle);
+        assertThat(deployment.deployed.get()).isEqualTo(1);
+
+        first.undeploy(handle);
+        assertThat(deployment.undeployed).isEmpty();
+        second.undeploy(handle);
+        assertThat(deployment.undeployed).containsExactly(handle);
+        assertThat(Files.exists(dir.resolve(deployment.getKey() + ".journal"))).isFalse();
+    }
+
+    @Test
+    public void journalWithoutLeaseIsNotAttached() throws Exception {
+        SuiteLevelDeploymentRegistryTest.CountingDeployment deployment = new SuiteLevelDeploymentRegistryTest.CountingDeployment();
+        Files.write(dir.resolve(deployment.getKey() + ".journal"), "handle=leaked".getBytes());
+        // lease of a JVM that is not running anymore
+        Files.createFile(dir.resolve(deployment.getKey() + ".dead.lease"));
+
+        CrossJvmSuiteLevelDeployment shared = new CrossJvmSuiteLevelDeployment(deployment, dir);
+        String handle = shared.deploy();
+
+        assertThat(handle).isNotEqualTo("leaked");
+        assertThat(deployment.deployed.get()).isEqualTo(1);
+        assertThat(Files.exists(dir.resolve(deployment.getKey() + ".dead.lease"))).isFalse();
+        shared.undeploy(handle);
+        assertThat(deployment.undeployed).containsExactly(handle);
+    }
+
+    @Test
+    public void ownLeaseIsNotCounted() throws Exception {
+        SuiteLevelDeploymentRegistryTest.CountingDeployment deployment = new SuiteLevelDeploymentRegistryTest.CountingDeployment();
+        CrossJvmSuiteLevelDeployment shared = new CrossJvmSuiteLevelDeployment(deployment, dir);
+
+        String handle = shared.deploy();
+        assertThat(shared.deploy()).isEqualTo(handle);
+        // the own lease is not a reason to keep the deployment
+        shared.undeploy(handle);
+
+        assertThat(deployment.deployed.get()).isEqualTo(1);
+        assertThat(deployment.undeployed).containsExactly(handle);
+    }
+
+    @Test
+    public void leaseOfAnotherJvmKeepsDeployment() throws Exception {
+        SuiteLevelDeploymentRegistryTest.CountingDeployment deployment = new SuiteLevelDeploymentRegistryTest.CountingDeployment();
+        CrossJvmSuiteLevelDeployment shared = new CrossJvmSuiteLevelDeployment(deployment, dir);
+        String handle = shared.deploy();
+
+        Process otherJvm = holdLease(dir.resolve(deployment.getKey() + ".other.lease"));
+        try {
+            shared.undeploy(handle);
+            assertThat(deployment.undeployed).isEmpty();
+
+            // attaching again, the own lease doesn't count - the deployment is kept only by the other JVM
+            assertThat(shared.deploy()).isEqualTo(handle);
+        } finally {
+            otherJvm.getOutputStream().close();
+            assertThat(otherJvm.waitFor(30, TimeUnit.SECONDS)).isTrue();
+        }
+
+        shared.undeploy(handle);
+        assertThat(deployment.deployed.get()).isEqualTo(1);
+        assertThat(deployment.undeployed).containsExactly(handle);
+    }
+
+    /**
+     * Start a JVM that locks the lease until its stdin is closed.
+     */
+    private static Process holdLease(Path lease) throws Exception {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), LeaseHolder.class.getName(), lease.toString())
+                .redirectError(new File(lease + ".err"))
+                .start();
+        BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        assertThat(out.readLine()).isEqualTo("locked");
+        return process;
+    }
+
+    public static class LeaseHolder {
+        public static void main(String[] args) throws Exception {
+            try (FileChannel channel = FileChannel.open(Paths.get(args[0]), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                channel.lock();
+                System.out.println("locked");
+                System.out.flush();
+                while (System.in.read() != -1) {
+                    // wait until the test closes stdin
+                }
+            }
+        }
+    }
+}
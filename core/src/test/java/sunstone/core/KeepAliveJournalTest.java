@@ -0,0 +1,139 @@
+package sunstone.core;
+
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KeepAliveJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private final Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+    @BeforeEach
+    public void setUp() {
+        KeepAliveJournal.clock = Clock.fixed(now, ZoneOffset.UTC);
+        System.setProperty(CoreConfig.KEEP_ALIVE_JOURNAL, dir.resolve("journal.properties").toString());
+        System.setProperty(CoreConfig.KEEP_ALIVE_TTL, "10");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        KeepAliveJournal.clock = Clock.systemUTC();
+        System.clearProperty(CoreConfig.KEEP_ALIVE_JOURNAL);
+        System.clearProperty(CoreConfig.KEEP_ALIVE_TTL);
+    }
+
+    @Test
+    public void recordedEnvironmentIsFound() {
+        assertThat(KeepAliveJournal.isEnabled()).isTrue();
+        KeepAliveJournal.put("aws-1", "stack", "us-east-1");
+
+        KeepAliveJournal.Entry entry = KeepAliveJournal.get("aws-1").get();
+        assertThat(entry.handle).isEqualTo("stack");
+        assertThat(entry.region).isEqualTo("us-east-1");
+        assertThat(entry.expires).isEqualTo(now.plus(Duration.ofMinutes(10)).toEpochMilli());
+
+        KeepAliveJournal.remove("aws-1");
+        assertThat(KeepAliveJournal.get("aws-1")).isEmpty();
+    }
+
+    @Test
+    public void redeployedHandleReplacesOldKey() {
+        KeepAliveJournal.put("azure-1", "group", "eastus");
+        KeepAliveJournal.put("azure-2", "group", "eastus");
+
+        assertThat(KeepAliveJournal.get("azure-1")).isEmpty();
+        assertThat(KeepAliveJournal.get("azure-2")).isPresent();
+    }
+
+    @Test
+    public void expiredEnvironmentIsNotFound() {
+        KeepAliveJournal.put("aws-2", "stack", "us-east-1");
+        KeepAliveJournal.clock = Clock.offset(KeepAliveJournal.clock, Duration.ofMinutes(11));
+
+        assertThat(KeepAliveJournal.get("aws-2")).isEmpty();
+        assertThat(KeepAliveJournal.claim("aws-2")).isEmpty();
+    }
+
+    @Test
+    public void claimExtendsExpiration() {
+        KeepAliveJournal.put("aws-3", "stack", "us-east-1");
+        KeepAliveJournal.clock = Clock.offset(KeepAliveJournal.clock, Duration.ofMinutes(9));
+
+        KeepAliveJournal.Entry claimed = KeepAliveJournal.claim("aws-3").get();
+        assertThat(claimed.handle).isEqualTo("stack");
+        assertThat(claimed.expires).isEqualTo(now.plus(Duration.ofMinutes(19)).toEpochMilli());
+
+        // not expired after the original expiration
+        KeepAliveJournal.clock = Clock.offset(KeepAliveJournal.clock, Duration.ofMinutes(5));
+        assertThat(KeepAliveJournal.get("aws-3")).isPresent();
+    }
+
+    @Test
+    public void heldEnvironmentIsRenewed() {
+        KeepAliveJournal.put("aws-4", "stack", "us-east-1");
+        KeepAliveJournal.put("aws-5", "other-stack", "us-east-1");
+        KeepAliveJournal.hold("aws-4");
+        KeepAliveJournal.hold("aws-5");
+        try {
+            KeepAliveJournal.release("aws-5");
+            KeepAliveJournal.clock = Clock.offset(KeepAliveJournal.clock, Duration.ofMinutes(5));
+            KeepAliveJournal.renew();
+
+            // the suite runs longer than the TTL
+            KeepAliveJournal.clock = Clock.offset(KeepAliveJournal.clock, Duration.ofMinutes(8));
+            assertThat(KeepAliveJournal.get("aws-4")).isPresent();
+            assertThat(KeepAliveJournal.get("aws-5")).isEmpty();
+        } finally {
+            KeepAliveJournal.release("aws-4");
+        }
+    }
+
+    @Test
+    public void reaperSkipsHeldEnvironment() throws InterruptedException, IOException {
+        KeepAliveJournal.put("reaper-1", "held-stack", "us-east-1");
+        KeepAliveJournal.put("reaper-2", "expired-stack", "us-east-1");
+        KeepAliveJournal.hold("reaper-1");
+        try {
+            KeepAliveJournal.clock = Clock.offset(KeepAliveJournal.clock, Duration.ofMinutes(11));
+            List<String> reaped = new CopyOnWriteArrayList<>();
+            CountDownLatch done = new CountDownLatch(1);
+            KeepAliveJournal.startReaper("reaper-", entry -> {
+                reaped.add(entry.handle);
+                done.countDown();
+                return true;
+            });
+
+            assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+            // the reaped environment is forgotten before the journal is cleaned up
+            Path journal = dir.resolve("journal.properties");
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (new String(Files.readAllBytes(journal), StandardCharsets.ISO_8859_1).contains("reaper-2.handle") && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(reaped).containsExactly("expired-stack");
+            assertThat(new String(Files.readAllBytes(journal), StandardCharsets.ISO_8859_1)).doesNotContain("reaper-2.handle").contains("reaper-1.handle");
+        } finally {
+            KeepAliveJournal.release("reaper-1");
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package sunstone.core;
+
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ResourceCacheTest {
+    private final ResourceCache cache = new ResourceCache();
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    @BeforeEach
+    public void setUp() {
+        System.setProperty(CoreConfig.RESOURCE_CACHE_TTL, "60");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        System.clearProperty(CoreConfig.RESOURCE_CACHE_TTL);
+    }
+
+    private Optional<String> lookup(String scope) throws Exception {
+        return cache.getOrLookup("azure", "VirtualMachine", "vm", scope, () -> Optional.of("vm-" + lookups.incrementAndGet()));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    public void resourceIsLookedUpOnce() throws Exception {
+        assertThat(lookup("group")).contains("vm-1");
+        assertThat(lookup("group")).contains("vm-1");
+        assertThat(lookup("other-group")).contains("vm-2");
+    }
+
+    @Test
+    public void missingResourceIsNotCached() throws Exception {
+        assertThat(cache.getOrLookup("aws", "Instance", "vm", "us-east-1", Optional::empty)).isEmpty();
+        assertThat(cache.getOrLookup("aws", "Instance", "vm", "us-east-1", () -> Optional.of("vm"))).contains("vm");
+    }
+
+    @Test
+    public void undeployInvalidatesScope() throws Exception {
+        lookup("group");
+        lookup("other-group");
+
+        cache.invalidate("azure", "group");
+
+        assertThat(lookup("group")).contains("vm-3");
+        assertThat(lookup("other-group")).contains("vm-2");
+    }
+
+    @Test
+    public void indexedResourceIsNotLookedUp() throws Exception {
+        cache.put("azure", "VirtualMachine", "vm", "group", "indexed");
+        assertThat(lookup("group")).contains("indexed");
+        assertThat(lookups).hasValue(0);
+    }
+
+    @Test
+    public void containsOnlyCachedScope() throws Exception {
+        lookup("group");
+        assertThat(cache.contains("azure", "VirtualMachine", "vm", "group")).isTrue();
+        assertThat(cache.contains("azure", "VirtualMachine", "vm", "other-group")).isFalse();
+    }
+
+    @Test
+    public void concurrentLookupsQueryCloudOnce() throws Exception {
+        CountDownLatch lookingUp = new CountDownLatch(1);
+        CountDownLatch found = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Optional<String>>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> cache.getOrLookup("aws", "Instance", "vm", "us-east-1", () -> {
+                    lookingUp.countDown();
+                    await(found);
+                    return Optional.of("vm-" + lookups.incrementAndGet());
+                })));
+            }
+            assertThat(lookingUp.await(10, TimeUnit.SECONDS)).isTrue();
+            found.countDown();
+            for (Future<Optional<String>> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS)).contains("vm-1");
+            }
+            assertThat(lookups).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void failedLookupIsRetried() throws Exception {
+        assertThatThrownBy(() -> cache.getOrLookup("aws", "Instance", "vm", "us-east-1", () -> {
+            throw new IllegalStateException("throttled");
+        })).hasMessage("throttled");
+        // the failure is not cached
+        assertThat(lookup("us-east-1")).contains("vm-1");
+    }
+
+    @Test
+    public void cacheIsDisabledByDefault() throws Exception {
+        System.clearProperty(CoreConfig.RESOURCE_CACHE_TTL);
+        assertThat(ResourceCache.isEnabled()).isFalse();
+        assertThat(lookup("group")).contains("vm-1");
+        assertThat(lookup("group")).contains("vm-2");
+    }
+
+    @Test
+    public void zeroTtlDisablesCache() throws Exception {
+        System.setProperty(CoreConfig.RESOURCE_CACHE_TTL, "0");
+        assertThat(lookup("group")).contains("vm-1");
+        assertThat(lookup("group")).contains("vm-2");
+    }
+}
@@ -0,0 +1,159 @@
+package sunstone.core;
+
+
+import org.junit.jupiter.api.Test;
+import sunstone.core.api.SuiteLevelDeployment;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SuiteLevelDeploymentRegistryTest {
+
+    static class CountingDeployment implements SuiteLevelDeployment {
+        final String key = UUID.randomUUID().toString();
+        final AtomicInteger deployed = new AtomicInteger();
+        final List<String> undeployed = new CopyOnWriteArrayList<>();
+        volatile boolean fail;
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public String deploy() {
+            if (fail) {
+                throw new IllegalStateException("deploy failed");
+            }
+            return key + "-" + deployed.incrementAndGet();
+        }
+
+        @Override
+        public void undeploy(String handle) {
+            undeployed.add(handle);
+        }
+    }
+
+    @Test
+    public void prefetchedDeploymentIsAdoptedOnce() throws Exception {
+        CountingDeployment deployment = new CountingDeployment();
+        SuiteLevelDeploymentRegistry.prefetch(deployment);
+
+        SuiteLevelDeploymentRegistry.Acquired first = SuiteLevelDeploymentRegistry.acquire(deployment);
+        SuiteLevelDeploymentRegistry.Acquired second = SuiteLevelDeploymentRegistry.acquire(deployment);
+
+        assertThat(deployment.deployed.get()).isEqualTo(1);
+        assertThat(first.adopted).isTrue();
+        assertThat(second.adopted).isFalse();
+        assertThat(second.handle).isEqualTo(first.handle);
+
+        SuiteLevelDeploymentRegistry.undeployNotAdopted();
+        assertThat(deployment.undeployed).isEmpty();
+        first.undeploy();
+        assertThat(deployment.undeployed).containsExactly(first.handle);
+    }
+
+    @Test
+    public void undeployListenersRunOnce() throws Exception {
+        CountingDeployment deployment = new CountingDeployment();
+        AtomicInteger invalidated = new AtomicInteger();
+        SuiteLevelDeploymentRegistry.Acquired acquired = SuiteLevelDeploymentRegistry.acquire(deployment);
+        acquired.onUndeploy(invalidated::incrementAndGet);
+        assertThat(invalidated).hasValue(0);
+
+        SuiteLevelDeploymentRegistry.release(deployment.getKey());
+        acquired.undeploy();
+
+        assertThat(deployment.undeployed).containsExactly(acquired.handle);
+        assertThat(invalidated).hasValue(1);
+    }
+
+    @Test
+    public void notAdoptedDeploymentIsUndeployed() throws Exception {
+        CountDownLatch deploying = new CountDownLatch(1);
+        CountingDeployment deployment = new CountingDeployment() {
+            @Override
+            public String deploy() {
+                deploying.countDown();
+                return super.deploy();
+            }
+        };
+        SuiteLevelDeploymentRegistry.prefetch(deployment);
+        assertThat(deploying.await(10, TimeUnit.SECONDS)).isTrue();
+
+        SuiteLevelDeploymentRegistry.undeployNotAdopted();
+
+        assertThat(deployment.deployed.get()).isEqualTo(1);
+        assertThat(deployment.undeployed).containsExactly(deployment.key + "-1");
+    }
+
+    @Test
+    public void failedDeploymentIsRetried() throws Exception {
+        CountingDeployment deployment = new CountingDeployment();
+        deployment.fail = true;
+        assertThatThrownBy(() -> SuiteLevelDeploymentRegistry.acquire(deployment)).hasMessage("deploy failed");
+
+        deployment.fail = false;
+        SuiteLevelDeploymentRegistry.Acquired acquired = SuiteLevelDeploymentRegistry.acquire(deployment);
+        assertThat(acquired.adopted).isTrue();
+        acquired.undeploy();
+    }
+
+    @Test
+    public void concurrentClassesShareInFlightDeployment() throws Exception {
+        CountDownLatch deploying = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        CountingDeployment deployment = new CountingDeployment() {
+            @Override
+            public String deploy() {
+                deploying.countDown();
+                try {
+                    proceed.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return super.deploy();
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<SuiteLevelDeploymentRegistry.Acquired> first = executor.submit(() -> SuiteLevelDeploymentRegistry.acquire(deployment));
+            deploying.await();
+            Future<SuiteLevelDeploymentRegistry.Acquired> second = executor.submit(() -> SuiteLevelDeploymentRegistry.acquire(deployment));
+            proceed.countDown();
+
+            assertThat(second.get().handle).isEqualTo(first.get().handle);
+            assertThat(deployment.deployed.get()).isEqualTo(1);
+            assertThat(first.get().adopted ^ second.get().adopted).isTrue();
+            first.get().undeploy();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void releasedDeploymentIsUndeployedOnce() throws Exception {
+        CountingDeployment deployment = new CountingDeployment();
+        SuiteLevelDeploymentRegistry.Acquired acquired = SuiteLevelDeploymentRegistry.acquire(deployment);
+
+        SuiteLevelDeploymentRegistry.release(deployment.key);
+        acquired.undeploy();
+
+        assertThat(deployment.undeployed).containsExactly(acquired.handle);
+        // a class that was not expected to need the deployment gets a new one
+        SuiteLevelDeploymentRegistry.Acquired again = SuiteLevelDeploymentRegistry.acquire(deployment);
+        assertThat(again.adopted).isTrue();
+        assertThat(again.handle).isNotEqualTo(acquired.handle);
+        again.undeploy();
+    }
+}
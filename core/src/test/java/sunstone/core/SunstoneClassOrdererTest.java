@@ -0,0 +1,45 @@
+package sunstone.core;
+
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SunstoneClassOrdererTest {
+
+    private static Set<String> keys(String... keys) {
+        return new HashSet<>(Arrays.asList(keys));
+    }
+
+    @Test
+    public void classesSharingDeploymentsAreAdjacent() {
+        Map<String, Set<String>> classes = new HashMap<>();
+        classes.put("A1", keys("a"));
+        classes.put("B1", keys("b"));
+        classes.put("none1", keys());
+        classes.put("A2", keys("a"));
+        classes.put("AB", keys("a", "b"));
+        classes.put("B2", keys("b"));
+        classes.put("none2", keys());
+
+        assertThat(SunstoneClassOrderer.schedule(Arrays.asList("A1", "B1", "none1", "A2", "AB", "B2", "none2"), classes::get))
+                .containsExactly("none1", "none2", "A1", "A2", "AB", "B1", "B2");
+    }
+
+    @Test
+    public void originalOrderIsKeptWithoutOverlap() {
+        Map<String, Set<String>> classes = new HashMap<>();
+        classes.put("C", keys("c"));
+        classes.put("A", keys("a"));
+        classes.put("B", keys("b"));
+
+        assertThat(SunstoneClassOrderer.schedule(Arrays.asList("C", "A", "B"), classes::get))
+                .containsExactly("C", "A", "B");
+    }
+}
@@ -21,7 +21,7 @@ public class SunstoneConfigResolverTest {
 
     @BeforeEach
     public void cleanup(){
-        SunstoneConfigResolver.SunstoneExpressionSource.expressions.clear();
+        SunstoneConfigResolver.expressionCache.clear();
     }
 
     @Test
@@ -44,7 +44,7 @@ public class SunstoneConfigResolverTest {
         Assertions.assertThat(SunstoneConfigResolver.resolveExpression("${expressionToSystemProperty}", String.class)).isEqualTo("valueSet");
         Assertions.assertThat(SunstoneConfigResolver.resolveExpression("${expressionToSystemProperty}", String.class)).isEqualTo("valueSet");
         Assertions.assertThat(SunstoneConfigResolver.resolveExpression("${sunstone.test.system}", String.class)).isEqualTo("valueSet");
-        Assertions.assertThat(SunstoneConfigResolver.SunstoneExpressionSource.expressions.size()).isEqualTo(2);
+        Assertions.assertThat(SunstoneConfigResolver.expressionCache.size()).isEqualTo(2);
     }
 
     @Test
@@ -52,12 +52,44 @@ public class SunstoneConfigResolverTest {
         Assertions.assertThat(SunstoneConfigResolver.resolveExpression("prefix-${expressionToSystemProperty}-${expressionToSystemProperty}-suffix", String.class)).isEqualTo("prefix-valueSet-valueSet-suffix");
         Assertions.assertThat(SunstoneConfigResolver.resolveExpression("prefix-${expressionToSystemProperty}-${expressionToSystemProperty}-suffix", String.class)).isEqualTo("prefix-valueSet-valueSet-suffix");
         Assertions.assertThat(SunstoneConfigResolver.resolveExpression("prefix-${sunstone.test.system}-${sunstone.test.system}-suffix", String.class)).isEqualTo("prefix-valueSet-valueSet-suffix");
-        Assertions.assertThat(SunstoneConfigResolver.SunstoneExpressionSource.expressions.size()).isEqualTo(2);
+        Assertions.assertThat(SunstoneConfigResolver.expressionCache.size()).isEqualTo(2);
     }
 
     @Test
     public void resolveNotExpression() {
         Assertions.assertThat(SunstoneConfigResolver.resolveExpression("not.a.expression", String.class)).isEqualTo("not.a.expression");
+        Assertions.assertThat(SunstoneConfigResolver.resolveExpression("10", Integer.class)).isEqualTo(10);
+    }
+
+    @Test
+    public void resolvedExpressionFollowsSystemProperties() {
+        try {
+            System.setProperty("sunstone.test.changing", "first");
+            Assertions.assertThat(SunstoneConfigResolver.resolveExpression("${sunstone.test.changing}", String.class)).isEqualTo("first");
+            System.setProperty("sunstone.test.changing", "second");
+            Assertions.assertThat(SunstoneConfigResolver.resolveExpression("${sunstone.test.changing}", String.class)).isEqualTo("second");
+            System.clearProperty("sunstone.test.changing");
+            Assertions.assertThat(SunstoneConfigResolver.resolveOptionalExpression("${sunstone.test.changing}", String.class)).isEmpty();
+        } finally {
+            System.clearProperty("sunstone.test.changing");
+        }
+    }
+
+    @Test
+    public void reloadInvalidatesResolvedExpressions() {
+        Assertions.assertThat(SunstoneConfigResolver.resolveExpression("${property}", String.class)).isEqualTo("value");
+        SunstoneConfigResolver.propertiesSource.reload();
+        Assertions.assertThat(SunstoneConfigResolver.resolveExpression("${property}", String.class)).isEqualTo("value");
+    }
+
+    @Test
+    public void expressionCacheIsBounded() {
+        SunstoneConfigResolver.ExpressionCache cache = new SunstoneConfigResolver.ExpressionCache(2);
+        cache.resolve("a", String.class, false, () -> "a");
+        cache.resolve("b", String.class, false, () -> "b");
+        cache.resolve("c", String.class, false, () -> "c");
+        Assertions.assertThat(cache.size()).isEqualTo(2);
+        Assertions.assertThat(new SunstoneConfigResolver.SunstoneExpressionSource().getPropertyNames()).isEmpty();
     }
 
     @Test
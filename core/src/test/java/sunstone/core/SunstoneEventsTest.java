@@ -0,0 +1,65 @@
+package sunstone.core;
+
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SunstoneEventsTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void eventIsRecorded() throws Exception {
+        Path file = dir.resolve("sunstone.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("sunstone.CloudTemplate");
+            recording.start();
+            try (SunstoneEvents.Recording event = SunstoneEvents.cloudTemplate("aws", "deploy", "SunstoneStack-1")) {
+                event.success();
+            }
+            try (SunstoneEvents.Recording event = SunstoneEvents.cloudTemplate("azure", "undeploy", "group")) {
+                // failed
+            }
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        assertThat(events).extracting(e -> e.getString("name")).containsExactly("SunstoneStack-1", "group");
+        assertThat(events).extracting(e -> e.getBoolean("success")).containsExactly(true, false);
+        assertThat(events.get(0).getString("provider")).isEqualTo("aws");
+    }
+
+    @Test
+    public void phaseCommitsItsEvent() throws Exception {
+        Path file = dir.resolve("phase.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("sunstone.CloudTemplate");
+            recording.start();
+            // timings are not collected, the event is recorded anyway
+            try (SunstoneTimings.Phase phase = SunstoneTimings.start("template-update", "stack", SunstoneEvents.cloudTemplate("aws", "update", "stack"))) {
+                phase.success();
+            }
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        assertThat(events).extracting(e -> e.getString("operation")).containsExactly("update");
+        assertThat(events.get(0).getBoolean("success")).isTrue();
+    }
+
+    @Test
+    public void disabledEventIsNoop() {
+        assertThat(SunstoneEvents.resourceLookup("aws", "EC2_INSTANCE", "vm")).isSameAs(SunstoneEvents.NOOP);
+    }
+}
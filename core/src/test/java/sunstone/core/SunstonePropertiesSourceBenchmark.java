@@ -0,0 +1,44 @@
+package sunstone.core;
+
+
+/**
+ * Microbenchmark of a sunstone.properties lookup. Compares the snapshot lookup with loading the file on every lookup
+ * (the former behavior). Not run by surefire, run it manually:
+ * <pre>
+ * mvn -pl core test-compile exec:java -Dexec.mainClass=sunstone.core.SunstonePropertiesSourceBenchmark -Dexec.classpathScope=test
+ * </pre>
+ */
+public class SunstonePropertiesSourceBenchmark {
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 200_000;
+
+    public static void main(String[] args) {
+        SunstoneConfigResolver.SunstonePropertiesSource source = new SunstoneConfigResolver.SunstonePropertiesSource();
+
+        long blackhole = 0;
+        blackhole += run("load on every lookup", WARMUP, () -> source.load().getProperty("property"));
+        blackhole += run("load on every lookup", ITERATIONS, () -> source.load().getProperty("property"));
+        blackhole += run("snapshot lookup", WARMUP, () -> source.getValue("property"));
+        blackhole += run("snapshot lookup", ITERATIONS, () -> source.getValue("property"));
+        blackhole += run("SunstoneConfigResolver.getString", WARMUP, () -> SunstoneConfigResolver.getString("property"));
+        blackhole += run("SunstoneConfigResolver.getString", ITERATIONS, () -> SunstoneConfigResolver.getString("property"));
+        System.out.println("(" + blackhole + ")");
+    }
+
+    private static long run(String name, int iterations, Lookup lookup) {
+        long blackhole = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            blackhole += lookup.get().length();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (iterations == ITERATIONS) {
+            System.out.printf("%-35s %10.1f ns/op%n", name, (double) elapsed / iterations);
+        }
+        return blackhole;
+    }
+
+    private interface Lookup {
+        String get();
+    }
+}
@@ -0,0 +1,64 @@
+package sunstone.core;
+
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SunstoneTimingsTest {
+
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    public void tearDown() {
+        System.clearProperty(CoreConfig.TIMING_REPORT);
+        SunstoneTimings.clear();
+    }
+
+    @Test
+    public void phasesAreNotRecordedByDefault() {
+        SunstoneTimings.clear();
+        try (SunstoneTimings.Phase phase = SunstoneTimings.start("cloud-deploy", null)) {
+            phase.success();
+        }
+        assertThat(SunstoneTimings.getRecords()).isEmpty();
+    }
+
+    @Test
+    public void reportGroupsPhasesByClass() throws Exception {
+        System.setProperty(CoreConfig.TIMING_REPORT, dir.resolve("report.json").toString());
+        SunstoneTimings.clear();
+        try (SunstoneTimings.Scope scope = SunstoneTimings.forClass("my.Test")) {
+            try (SunstoneTimings.Phase phase = SunstoneTimings.start("cloud-deploy", "template \"a\"")) {
+                phase.success();
+            }
+            try (SunstoneTimings.Phase phase = SunstoneTimings.start("archive-deploy", "deployment")) {
+                // failed
+            }
+        }
+        try (SunstoneTimings.Phase phase = SunstoneTimings.start("suite-deploy", "aws-1")) {
+            phase.success();
+        }
+
+        List<SunstoneTimings.Record> records = SunstoneTimings.getRecords();
+        assertThat(records).extracting(r -> r.testClass).containsExactly("my.Test", "my.Test", null);
+        assertThat(records).extracting(r -> r.success).containsExactly(true, false, true);
+
+        SunstoneTimings.writeReport(dir.resolve("report.json"), records);
+        String report = new String(Files.readAllBytes(dir.resolve("report.json")), StandardCharsets.UTF_8);
+        assertThat(report)
+                .contains("{\"class\": \"my.Test\"")
+                .contains("{\"class\": \"suite\"")
+                .contains("\"detail\": \"template \\\"a\\\"\"")
+                .contains("\"outcome\": \"failure\"")
+                .contains("{\"phase\": \"archive-deploy\", \"count\": 1, \"failures\": 1");
+    }
+}
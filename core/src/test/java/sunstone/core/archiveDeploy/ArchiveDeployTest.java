@@ -24,12 +24,14 @@ public class ArchiveDeployTest extends AbstractArchiveDeployTest {
     @AfterAll
     public static void reset() {
         TestSunstoneResourceInjector.reset();
+        TestSunstoneArchiveDeployer.reset();
     }
 
     @Test
     public void test() {
         assertThat(TestSunstoneArchiveDeployer.called).isTrue();
         assertThat(TestSunstoneArchiveDeployer.counter).isEqualTo(2);
+        assertThat(TestSunstoneArchiveDeployer.prepared).isEqualTo(2);
 
     }
 }
@@ -0,0 +1,100 @@
+package sunstone.core.archiveDeploy;
+
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+import org.junit.platform.launcher.core.LauncherFactory;
+import org.junit.platform.launcher.listeners.SummaryGeneratingListener;
+import org.junit.platform.launcher.listeners.TestExecutionSummary;
+import sunstone.core.CoreConfig;
+import sunstone.core.archiveDeploy.suitetests.ArchivesAheadFixture;
+import sunstone.core.archiveDeploy.suitetests.FailingArchiveAheadFixture;
+import sunstone.core.cloudDeploy.OrderedTestSunstoneDeployer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClass;
+
+/**
+ * Runs the fixture classes with {@link CoreConfig#DEPLOY_ARCHIVES_AHEAD} enabled and disabled.
+ */
+public class ArchivesAheadTest {
+
+    @AfterEach
+    public void tearDown() {
+        System.clearProperty(CoreConfig.DEPLOY_ARCHIVES_AHEAD);
+        OrderedTestSunstoneDeployer.reset();
+        TestSunstoneArchiveDeployer.reset();
+        ArchivesAheadFixture.reset();
+    }
+
+    private static TestExecutionSummary run(Class<?> testClass) {
+        SummaryGeneratingListener listener = new SummaryGeneratingListener();
+        LauncherFactory.create().execute(LauncherDiscoveryRequestBuilder.request().selectors(selectClass(testClass)).build(), listener);
+        return listener.getSummary();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    public void archivesAreCreatedAfterSetupByDefault() {
+        OrderedTestSunstoneDeployer.onDeploy = name -> ArchivesAheadFixture.events.add("cloud");
+
+        TestExecutionSummary summary = run(ArchivesAheadFixture.class);
+
+        assertThat(summary.getTotalFailureCount()).isZero();
+        assertThat(ArchivesAheadFixture.events).containsExactly("cloud", "setup", "archive");
+        assertThat(TestSunstoneArchiveDeployer.deployed).containsExactly("ahead-archive");
+    }
+
+    @Test
+    public void archivesAreCreatedWhileCloudIsDeployed() {
+        System.setProperty(CoreConfig.DEPLOY_ARCHIVES_AHEAD, "true");
+        // the cloud deployment finishes only once the archive is created in the background
+        OrderedTestSunstoneDeployer.onDeploy = name -> {
+            await(ArchivesAheadFixture.created);
+            ArchivesAheadFixture.events.add("cloud");
+        };
+
+        TestExecutionSummary summary = run(ArchivesAheadFixture.class);
+
+        assertThat(summary.getTotalFailureCount()).isZero();
+        // the archive is created before setup tasks run
+        assertThat(ArchivesAheadFixture.events).containsExactly("archive", "cloud", "setup");
+        assertThat(TestSunstoneArchiveDeployer.deployed).containsExactly("ahead-archive");
+    }
+
+    @Test
+    public void failedArchiveStopsCloudDeployment() {
+        System.setProperty(CoreConfig.DEPLOY_ARCHIVES_AHEAD, "true");
+        OrderedTestSunstoneDeployer.onDeploy = name -> {
+            if (name.equals("failing-first")) {
+                FailingArchiveAheadFixture.deploying.countDown();
+                // the archive thread ends once the archive failed
+                await(FailingArchiveAheadFixture.invoked);
+                try {
+                    FailingArchiveAheadFixture.archiveThread.join(TimeUnit.SECONDS.toMillis(10));
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+
+        TestExecutionSummary summary = run(FailingArchiveAheadFixture.class);
+
+        assertThat(summary.getTotalFailureCount()).isEqualTo(1);
+        assertThat(summary.getFailures().get(0).getException()).hasMessageContaining("Unable to create deployment deploy")
+                .hasStackTraceContaining("archive failed");
+        assertThat(OrderedTestSunstoneDeployer.getDeployed()).containsExactly("failing-first");
+        assertThat(TestSunstoneArchiveDeployer.deployed).isEmpty();
+    }
+}
@@ -0,0 +1,15 @@
+package sunstone.core.archiveDeploy;
+
+import sunstone.annotation.SunstoneArchiveDeployTargetAnotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@SunstoneArchiveDeployTargetAnotation
+public @interface NamedArchiveDeployTarget {
+    String value();
+}
@@ -0,0 +1,39 @@
+package sunstone.core.archiveDeploy;
+
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import sunstone.annotation.Deployment;
+import sunstone.core.SunstoneExtension;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SunstoneExtension.class)
+public class OrderedArchiveDeployTest {
+
+    @Deployment(name = "second", order = 1)
+    @DirectlyAnnotatedArchiveDeployTarget
+    static File deploySecond() throws IOException {
+        return File.createTempFile("sunstne-test-file", "");
+    }
+
+    @Deployment(name = "first")
+    @DirectlyAnnotatedArchiveDeployTarget
+    static File deployFirst() throws IOException {
+        return File.createTempFile("sunstne-test-file", "");
+    }
+
+    @AfterAll
+    public static void reset() {
+        TestSunstoneArchiveDeployer.reset();
+    }
+
+    @Test
+    public void test() {
+        assertThat(TestSunstoneArchiveDeployer.deployed).containsExactly("first", "second");
+    }
+}
@@ -0,0 +1,103 @@
+package sunstone.core.archiveDeploy;
+
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+import org.junit.platform.launcher.core.LauncherFactory;
+import org.junit.platform.launcher.listeners.SummaryGeneratingListener;
+import org.junit.platform.launcher.listeners.TestExecutionSummary;
+import sunstone.core.CoreConfig;
+import sunstone.core.archiveDeploy.suitetests.ParallelArchivesFixture;
+import sunstone.core.archiveDeploy.suitetests.SameTargetArchivesFixture;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClass;
+
+/**
+ * Runs the fixture classes with {@link CoreConfig#DEPLOY_ARCHIVES_PARALLEL} enabled.
+ */
+public class ParallelArchiveDeployTest {
+
+    @BeforeEach
+    public void setUp() {
+        System.setProperty(CoreConfig.DEPLOY_ARCHIVES_PARALLEL, "true");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        System.clearProperty(CoreConfig.DEPLOY_ARCHIVES_PARALLEL);
+        System.clearProperty(SameTargetArchivesFixture.TARGET_PROPERTY);
+        TestSunstoneArchiveDeployer.reset();
+    }
+
+    private static TestExecutionSummary run(Class<?> testClass) {
+        SummaryGeneratingListener listener = new SummaryGeneratingListener();
+        LauncherFactory.create().execute(LauncherDiscoveryRequestBuilder.request().selectors(selectClass(testClass)).build(), listener);
+        return listener.getSummary();
+    }
+
+    @Test
+    public void archivesOfDifferentTargetsAreDeployedConcurrently() {
+        CountDownLatch deploying = new CountDownLatch(3);
+        // no deployment finishes until all of them are in progress
+        TestSunstoneArchiveDeployer.onDeploy = name -> {
+            deploying.countDown();
+            try {
+                assertThat(deploying.await(10, TimeUnit.SECONDS)).isTrue();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+
+        TestExecutionSummary summary = run(ParallelArchivesFixture.class);
+
+        assertThat(summary.getTotalFailureCount()).isZero();
+        assertThat(TestSunstoneArchiveDeployer.deployed).containsExactlyInAnyOrder("first", "second", "third");
+        assertThat(TestSunstoneArchiveDeployer.undeployed).containsExactlyInAnyOrder("first", "second", "third");
+    }
+
+    @Test
+    public void archivesOfSameResolvedTargetAreDeployedOneByOne() {
+        System.setProperty(SameTargetArchivesFixture.TARGET_PROPERTY, "vm");
+        AtomicInteger inProgress = new AtomicInteger();
+        AtomicInteger maxInProgress = new AtomicInteger();
+        TestSunstoneArchiveDeployer.onDeploy = name -> {
+            maxInProgress.accumulateAndGet(inProgress.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                inProgress.decrementAndGet();
+            }
+        };
+
+        TestExecutionSummary summary = run(SameTargetArchivesFixture.class);
+
+        assertThat(summary.getTotalFailureCount()).isZero();
+        assertThat(TestSunstoneArchiveDeployer.deployed).containsExactlyInAnyOrder("literal", "expression");
+        assertThat(maxInProgress).hasValue(1);
+    }
+
+    @Test
+    public void deployedArchivesAreUndeployedWhenOthersFail() {
+        TestSunstoneArchiveDeployer.onDeploy = name -> {
+            if (name.equals("second")) {
+                throw new IllegalStateException("second failed");
+            }
+        };
+
+        TestExecutionSummary summary = run(ParallelArchivesFixture.class);
+
+        assertThat(summary.getTotalFailureCount()).isEqualTo(1);
+        assertThat(summary.getFailures().get(0).getException()).hasStackTraceContaining("second failed");
+        assertThat(TestSunstoneArchiveDeployer.deployed).containsExactlyInAnyOrder("first", "third");
+        assertThat(TestSunstoneArchiveDeployer.undeployed).containsExactlyInAnyOrder("first", "third");
+    }
+}
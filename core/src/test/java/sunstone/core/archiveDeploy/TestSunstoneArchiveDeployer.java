@@ -5,26 +5,48 @@ import org.junit.jupiter.api.extension.ExtensionContext;
 import sunstone.core.api.SunstoneArchiveDeployer;
 import sunstone.core.exceptions.SunstoneException;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
 
 public class TestSunstoneArchiveDeployer implements SunstoneArchiveDeployer {
     static boolean called;
     static boolean calledUndeploy;
     static int counter = 0;
+    static int prepared = 0;
+    static final List<String> deployed = new CopyOnWriteArrayList<>();
+    static final List<String> undeployed = new CopyOnWriteArrayList<>();
+    // called with the name before the deployment is recorded, may fail the deployment
+    static volatile Consumer<String> onDeploy = name -> { };
 
     public static void reset() {
         called = false;
         calledUndeploy = false;
         counter = 0;
+        prepared = 0;
+        deployed.clear();
+        undeployed.clear();
+        onDeploy = name -> { };
+    }
+
+    @Override
+    public Object prepare(Object deployment) {
+        prepared++;
+        return deployment;
     }
 
     @Override
     public void deploy(String deploymentName, Object deployment, ExtensionContext ctx) throws SunstoneException {
         called = true;
+        onDeploy.accept(deploymentName);
         counter++;
+        deployed.add(deploymentName);
     }
 
     @Override
     public void undeploy(String deploymentName, ExtensionContext ctx) throws SunstoneException {
         calledUndeploy = true;
+        undeployed.add(deploymentName);
     }
 }
@@ -0,0 +1,53 @@
+package sunstone.core.archiveDeploy.suitetests;
+
+
+import org.junit.jupiter.api.Test;
+import sunstone.annotation.AbstractSetupTask;
+import sunstone.annotation.Deployment;
+import sunstone.annotation.Setup;
+import sunstone.core.archiveDeploy.DirectlyAnnotatedArchiveDeployTarget;
+import sunstone.core.cloudDeploy.annotations.OrderedCloudDeployAnnotation;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Run by {@link sunstone.core.archiveDeploy.ArchivesAheadTest}.
+ */
+@OrderedCloudDeployAnnotation(name = "ahead-cloud", order = 0)
+@Setup(ArchivesAheadFixture.Task.class)
+public class ArchivesAheadFixture {
+    public static final List<String> events = new CopyOnWriteArrayList<>();
+    public static volatile CountDownLatch created = new CountDownLatch(1);
+
+    public static void reset() {
+        events.clear();
+        created = new CountDownLatch(1);
+    }
+
+    @Deployment(name = "ahead-archive")
+    @DirectlyAnnotatedArchiveDeployTarget
+    static File deploy() throws IOException {
+        events.add("archive");
+        created.countDown();
+        return File.createTempFile("sunstne-test-file", "");
+    }
+
+    @Test
+    public void test() {
+    }
+
+    public static class Task extends AbstractSetupTask {
+        @Override
+        public void setup() {
+            events.add("setup");
+        }
+
+        @Override
+        public void teardown() {
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package sunstone.core.archiveDeploy.suitetests;
+
+
+import org.junit.jupiter.api.Test;
+import sunstone.annotation.Deployment;
+import sunstone.core.archiveDeploy.DirectlyAnnotatedArchiveDeployTarget;
+import sunstone.core.cloudDeploy.annotations.OrderedCloudDeployAnnotation;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Run by {@link sunstone.core.archiveDeploy.ArchivesAheadTest}.
+ */
+@OrderedCloudDeployAnnotation(name = "failing-first", order = 0)
+@OrderedCloudDeployAnnotation(name = "failing-second", order = 1)
+public class FailingArchiveAheadFixture {
+    // released once the first cloud deployment starts, so that the archive fails while cloud resources are deployed
+    public static final CountDownLatch deploying = new CountDownLatch(1);
+    public static final CountDownLatch invoked = new CountDownLatch(1);
+    public static volatile Thread archiveThread;
+
+    @Deployment(name = "failing-archive")
+    @DirectlyAnnotatedArchiveDeployTarget
+    static File deploy() throws IOException, InterruptedException {
+        archiveThread = Thread.currentThread();
+        if (!deploying.await(10, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Cloud deployment didn't start");
+        }
+        invoked.countDown();
+        throw new IOException("archive failed");
+    }
+
+    @Test
+    public void test() {
+    }
+}
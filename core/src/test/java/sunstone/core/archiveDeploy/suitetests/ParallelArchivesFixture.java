@@ -0,0 +1,40 @@
+package sunstone.core.archiveDeploy.suitetests;
+
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import sunstone.annotation.Deployment;
+import sunstone.core.SunstoneExtension;
+import sunstone.core.archiveDeploy.NamedArchiveDeployTarget;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Run by {@link sunstone.core.archiveDeploy.ParallelArchiveDeployTest}.
+ */
+@ExtendWith(SunstoneExtension.class)
+public class ParallelArchivesFixture {
+
+    @Deployment(name = "first")
+    @NamedArchiveDeployTarget("first-vm")
+    static File deployFirst() throws IOException {
+        return File.createTempFile("sunstne-test-file", "");
+    }
+
+    @Deployment(name = "second")
+    @NamedArchiveDeployTarget("second-vm")
+    static File deploySecond() throws IOException {
+        return File.createTempFile("sunstne-test-file", "");
+    }
+
+    @Deployment(name = "third")
+    @NamedArchiveDeployTarget("third-vm")
+    static File deployThird() throws IOException {
+        return File.createTempFile("sunstne-test-file", "");
+    }
+
+    @Test
+    public void test() {
+    }
+}
@@ -0,0 +1,35 @@
+package sunstone.core.archiveDeploy.suitetests;
+
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import sunstone.annotation.Deployment;
+import sunstone.core.SunstoneExtension;
+import sunstone.core.archiveDeploy.NamedArchiveDeployTarget;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Run by {@link sunstone.core.archiveDeploy.ParallelArchiveDeployTest}.
+ */
+@ExtendWith(SunstoneExtension.class)
+public class SameTargetArchivesFixture {
+    public static final String TARGET_PROPERTY = "sunstone.test.archive.target";
+
+    @Deployment(name = "literal")
+    @NamedArchiveDeployTarget("vm")
+    static File deployLiteral() throws IOException {
+        return File.createTempFile("sunstne-test-file", "");
+    }
+
+    @Deployment(name = "expression")
+    @NamedArchiveDeployTarget("${" + TARGET_PROPERTY + "}")
+    static File deployExpression() throws IOException {
+        return File.createTempFile("sunstne-test-file", "");
+    }
+
+    @Test
+    public void test() {
+    }
+}
@@ -0,0 +1,23 @@
+package sunstone.core.cloudDeploy;
+
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import sunstone.core.cloudDeploy.annotations.OrderedCloudDeployAnnotation;
+
+@OrderedCloudDeployAnnotation(name = "third", order = 2)
+@OrderedCloudDeployAnnotation(name = "first", order = 0)
+@OrderedCloudDeployAnnotation(name = "second", order = 1)
+public class OrderedCloudDeployAnnotationTest {
+
+    @Test
+    public void test() {
+        Assertions.assertThat(OrderedTestSunstoneDeployer.deployed).containsExactly("first", "second", "third");
+    }
+
+    @AfterAll
+    public static void reset() {
+        OrderedTestSunstoneDeployer.reset();
+    }
+}
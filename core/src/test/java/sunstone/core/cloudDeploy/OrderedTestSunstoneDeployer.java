@@ -0,0 +1,43 @@
+package sunstone.core.cloudDeploy;
+
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+import sunstone.core.api.SunstoneCloudDeployer;
+import sunstone.core.cloudDeploy.annotations.OrderedCloudDeployAnnotation;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+public class OrderedTestSunstoneDeployer implements SunstoneCloudDeployer {
+
+    static final List<String> deployed = new CopyOnWriteArrayList<>();
+    // called with the name before the deployment is recorded
+    public static volatile Consumer<String> onDeploy = name -> { };
+
+    private final OrderedCloudDeployAnnotation annotation;
+
+    OrderedTestSunstoneDeployer(OrderedCloudDeployAnnotation annotation) {
+        this.annotation = annotation;
+    }
+
+    @Override
+    public void deployAndRegisterForUndeploy(ExtensionContext ctx) {
+        onDeploy.accept(annotation.name());
+        deployed.add(annotation.name());
+    }
+
+    @Override
+    public int getOrder() {
+        return annotation.order();
+    }
+
+    public static List<String> getDeployed() {
+        return deployed;
+    }
+
+    public static void reset() {
+        deployed.clear();
+        onDeploy = name -> { };
+    }
+}
@@ -2,6 +2,7 @@ package sunstone.core.cloudDeploy;
 
 
 import sunstone.core.api.SunstoneCloudDeployer;
+import sunstone.core.cloudDeploy.annotations.OrderedCloudDeployAnnotation;
 import sunstone.core.spi.SunstoneCloudDeployerProvider;
 
 import java.lang.annotation.Annotation;
@@ -10,6 +11,9 @@ import java.util.Optional;
 public class TestSunstoneDeployerProvider implements SunstoneCloudDeployerProvider {
     @Override
     public Optional<SunstoneCloudDeployer> create(Annotation annotation) {
+        if (annotation instanceof OrderedCloudDeployAnnotation) {
+            return Optional.of(new OrderedTestSunstoneDeployer((OrderedCloudDeployAnnotation) annotation));
+        }
         return Optional.of(new TestSunstoneDeployer());
     }
 }
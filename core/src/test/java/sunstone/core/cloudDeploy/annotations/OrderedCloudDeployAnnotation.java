@@ -0,0 +1,24 @@
+package sunstone.core.cloudDeploy.annotations;
+
+
+import org.junit.jupiter.api.extension.ExtendWith;
+import sunstone.annotation.SunstoneCloudDeployAnnotation;
+import sunstone.core.SunstoneExtension;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Repeatable(OrderedCloudDeployAnnotations.class)
+@SunstoneCloudDeployAnnotation
+@Inherited
+@ExtendWith({SunstoneExtension.class})
+public @interface OrderedCloudDeployAnnotation {
+    String name();
+    int order();
+}
@@ -0,0 +1,51 @@
+package sunstone.core.di;
+
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import sunstone.annotation.LazyProxy;
+import sunstone.core.SunstoneExtension;
+import sunstone.inject.Lazy;
+
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SunstoneExtension.class)
+public class LazyInjectionTest {
+
+    @DirectlyAnnotatedInject
+    static Lazy<String> lazyStaticInject;
+
+    @DirectlyAnnotatedInject
+    Supplier<String> supplierInject;
+
+    @DirectlyAnnotatedInject
+    @LazyProxy
+    CharSequence proxyInject;
+
+    @AfterAll
+    public static void reset() {
+        TestSunstoneResourceInjector.reset();
+    }
+
+    @Test
+    public void resourcesAreResolvedOnFirstUse() {
+        int counter = TestSunstoneResourceInjector.counter;
+        assertThat(lazyStaticInject.isResolved()).isFalse();
+
+        assertThat(lazyStaticInject.get()).isEqualTo("set");
+        assertThat(lazyStaticInject.get()).isEqualTo("set");
+        assertThat(lazyStaticInject.isResolved()).isTrue();
+        assertThat(TestSunstoneResourceInjector.counter).isEqualTo(counter + 1);
+
+        assertThat(supplierInject.get()).isEqualTo("set");
+        assertThat(TestSunstoneResourceInjector.counter).isEqualTo(counter + 2);
+
+        assertThat(proxyInject.toString()).startsWith("unresolved");
+        assertThat(proxyInject.length()).isEqualTo(3);
+        assertThat(proxyInject.charAt(0)).isEqualTo('s');
+        assertThat(TestSunstoneResourceInjector.counter).isEqualTo(counter + 3);
+    }
+}
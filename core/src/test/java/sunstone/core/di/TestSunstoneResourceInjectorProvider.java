@@ -12,6 +12,11 @@ import java.util.Optional;
 public class TestSunstoneResourceInjectorProvider implements SunstoneResourceInjectorProvider {
     @Override
     public Optional<SunstoneResourceInjector> create(Field field) {
+        return create(field, field.getType());
+    }
+
+    @Override
+    public Optional<SunstoneResourceInjector> create(Field field, Class<?> type) {
         if (AnnotationUtils.getAnnotation(field.getAnnotations(), SunstoneProperty.class).isPresent()) {
             return Optional.empty();
         }
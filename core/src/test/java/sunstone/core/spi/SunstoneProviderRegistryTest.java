@@ -0,0 +1,76 @@
+package sunstone.core.spi;
+
+
+import org.junit.jupiter.api.Test;
+import sunstone.core.api.SunstoneCloudDeployer;
+import sunstone.core.cloudDeploy.annotations.OrderedCloudDeployAnnotation;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SunstoneProviderRegistryTest {
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target({ElementType.TYPE, ElementType.ANNOTATION_TYPE})
+    @interface Handled {
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.TYPE)
+    @Handled
+    @interface TransitivelyHandled {
+    }
+
+    @Handled
+    @TransitivelyHandled
+    @Deprecated
+    static class Annotated {
+    }
+
+    static class RecordingProvider implements SunstoneCloudDeployerProvider {
+        final List<Class<? extends Annotation>> asked = new CopyOnWriteArrayList<>();
+        final Set<Class<? extends Annotation>> handled;
+
+        RecordingProvider(Set<Class<? extends Annotation>> handled) {
+            this.handled = handled;
+        }
+
+        @Override
+        public Optional<SunstoneCloudDeployer> create(Annotation annotation) {
+            asked.add(annotation.annotationType());
+            return handled.isEmpty() ? Optional.empty() : Optional.of(ctx -> { });
+        }
+
+        @Override
+        public Set<Class<? extends Annotation>> getHandledAnnotations() {
+            return handled;
+        }
+    }
+
+    @Test
+    public void onlyCandidateProvidersAreAsked() {
+        RecordingProvider wildcard = new RecordingProvider(Collections.emptySet());
+        RecordingProvider handling = new RecordingProvider(Collections.singleton(Handled.class));
+        RecordingProvider other = new RecordingProvider(Collections.singleton(OrderedCloudDeployAnnotation.class));
+        SunstoneProviderRegistry registry = new SunstoneProviderRegistry(Arrays.asList(wildcard, handling, other), Collections.emptyList(), Collections.emptyList());
+
+        assertThat(registry.getCloudDeployer(Annotated.class.getAnnotation(Handled.class))).isPresent();
+        assertThat(registry.getCloudDeployer(Annotated.class.getAnnotation(TransitivelyHandled.class))).isPresent();
+        assertThat(registry.getCloudDeployer(Annotated.class.getAnnotation(Deprecated.class))).isEmpty();
+
+        assertThat(wildcard.asked).containsExactly(Handled.class, TransitivelyHandled.class, Deprecated.class);
+        assertThat(handling.asked).containsExactly(Handled.class, TransitivelyHandled.class);
+        assertThat(other.asked).isEmpty();
+    }
+}